@@ -3,6 +3,8 @@ package org.opl.access;
 import org.opl.access.block.MemoryBlock;
 import org.opl.platform.Jvm;
 import org.opl.platform.Mem;
+import org.opl.platform.MemOps;
+import org.opl.util.OplUtils;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
@@ -10,25 +12,58 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.EOFException;
 import java.io.IOException;
-
+import java.nio.ByteOrder;
+
+/**
+ * <p>Sequential {@link DataInput} and {@link DataOutput} over a memory block</p>
+ *
+ * <p>Primitives are stored with a single memory access in the big-endian order of {@link DataOutput}
+ * or in the specified order, arrays are moved with a single memory copy. Every operation checks
+ * the bounds once and fails with {@link EOFException} if the block is exhausted.</p>
+ *
+ * <p>Integers could also be stored as LEB128 varints, zigzag-encoded if signed, and runs of values as
+ * varint deltas, which is compact for small or monotonic values like identifiers and timestamps.</p>
+ *
+ * <p>The block address is captured on construction, so the accessor must not outlive the block.</p>
+ */
 @NotThreadSafe
 public class MemoryAccessor implements DataInput, DataOutput {
 
+    private static final int CARRIAGE_RETURN = '\r';
+
+    private static final int LINE_FEED = '\n';
+
     private final MemoryBlock block;
 
+    private final ByteOrder order;
+
+    private final boolean swap;
+
+    private final long limit;
+
     private long address;
 
     public MemoryAccessor(MemoryBlock block) {
-        if (block.size() > (long) Integer.MAX_VALUE) {
-            throw new IllegalArgumentException("Block is too huge for DataInput and DataOutput");
-        }
+        this(block, ByteOrder.BIG_ENDIAN);
+    }
+
+    public MemoryAccessor(MemoryBlock block, ByteOrder order) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+        OplUtils.checkNotNull(order, "Byte order is not specified");
 
         this.block = block;
+        this.order = order;
+        this.swap = order != ByteOrder.nativeOrder();
         this.address = block.address();
+        this.limit = address + block.size();
+    }
+
+    public ByteOrder order() {
+        return order;
     }
 
     public long available() {
-        return block.available(address);
+        return limit - address;
     }
 
     public long offset() {
@@ -43,11 +78,24 @@ public class MemoryAccessor implements DataInput, DataOutput {
         this.address = block.address(block.offset(address) + delta);
     }
 
+    private long claim(long bytes) throws EOFException {
+        long current = address;
+
+        if (limit - current < bytes) {
+            throw new EOFException(String.format("Block has %d bytes available but %d bytes are required",
+                limit - current, bytes));
+        }
+
+        this.address = current + bytes;
+
+        return current;
+    }
+
     @Override
     public int skipBytes(int n) throws IOException {
-        int skipped = (int) Math.min(n, block.available(address));
+        int skipped = (int) Math.max(0, Math.min(n, available()));
 
-        shift(skipped);
+        this.address += skipped;
 
         return skipped;
     }
@@ -58,31 +106,14 @@ public class MemoryAccessor implements DataInput, DataOutput {
             throw new NullPointerException("Accepting array is not specified");
         }
 
-        for (int i = 0, limit = b.length; i < limit; i++) {
-            Jvm.putByte(address, b[i]);
-            shift(Mem.BYTE_SIZE_BYTES);
-        }
+        write(b, 0, b.length);
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        if (b == null) {
-            throw new NullPointerException("Accepting array is not specified");
-        }
-        if (off < 0) {
-            throw new IndexOutOfBoundsException("Offset is invalid");
-        }
-        if (len < 0) {
-            throw new IndexOutOfBoundsException("Length is invalid");
-        }
-        if (off + len > b.length) {
-            throw new IndexOutOfBoundsException("Offset and length are invalid");
-        }
+        MemoryCodec.checkArray(b, off, len);
 
-        for (int i = off, limit = off + len; i < limit; i++) {
-            Jvm.putByte(address, b[i]);
-            shift(Mem.BYTE_SIZE_BYTES);
-        }
+        MemoryCodec.putBytes(claim(len), b, off, len);
     }
 
     @Override
@@ -90,164 +121,353 @@ public class MemoryAccessor implements DataInput, DataOutput {
         if (b == null) {
             throw new NullPointerException("Accepting array is not specified");
         }
-        if (b.length == 0) {
-            return;
-        }
-        if (block.available(address) < b.length) {
-            throw new EOFException("There are not enough bytes to fill the specified array");
-        }
 
-        for (int i = 0, limit = b.length; i < limit; i++) {
-            b[i] = Jvm.getByte(address);
-            shift(Mem.BYTE_SIZE_BYTES);
-        }
+        readFully(b, 0, b.length);
     }
 
     @Override
     public void readFully(byte[] b, int off, int len) throws IOException {
-        if (b == null) {
-            throw new NullPointerException("Accepting array is not specified");
-        }
-        if (off < 0) {
-            throw new IndexOutOfBoundsException("Offset is invalid");
-        }
-        if (len < 0) {
-            throw new IndexOutOfBoundsException("Length is invalid");
-        }
-        if (off + len > b.length) {
-            throw new IndexOutOfBoundsException("Offset and length are invalid");
-        }
-        if (block.available(address) < len) {
-            throw new EOFException("There are not enough bytes to fill the specified array");
-        }
+        MemoryCodec.checkArray(b, off, len);
 
-        for (int i = off, limit = off + len; i < limit; i++) {
-            b[i] = Jvm.getByte(address);
-            shift(Mem.BYTE_SIZE_BYTES);
-        }
+        MemoryCodec.getBytes(claim(len), b, off, len);
     }
 
     @Override
     public void write(int b) throws IOException {
-
+        Jvm.putByte(claim(Mem.BYTE_SIZE_BYTES), (byte) b);
     }
 
     @Override
     public void writeBoolean(boolean v) throws IOException {
-
+        Jvm.putByte(claim(Mem.BYTE_SIZE_BYTES), (byte) (v ? 1 : 0));
     }
 
     @Override
     public boolean readBoolean() throws IOException {
-        return false;
+        return Jvm.getByte(claim(Mem.BYTE_SIZE_BYTES)) != 0;
     }
 
     @Override
     public void writeByte(int v) throws IOException {
-        Jvm.putByte(address, (byte) v);
-        shift(Mem.BYTE_SIZE_BYTES);
+        Jvm.putByte(claim(Mem.BYTE_SIZE_BYTES), (byte) v);
     }
 
     @Override
     public byte readByte() throws IOException {
-        byte b = Jvm.getByte(address);
-        shift(Mem.BYTE_SIZE_BYTES);
-        return b;
+        return Jvm.getByte(claim(Mem.BYTE_SIZE_BYTES));
     }
 
     @Override
     public int readUnsignedByte() throws IOException {
-        return 0;
+        return Jvm.getByte(claim(Mem.BYTE_SIZE_BYTES)) & Mem.BYTE_MASK;
     }
 
     @Override
     public void writeShort(int v) throws IOException {
-
+        MemoryCodec.putShort(claim(Mem.SHORT_SIZE_BYTES), (short) v, swap);
     }
 
     @Override
     public short readShort() throws IOException {
-        return 0;
+        return MemoryCodec.getShort(claim(Mem.SHORT_SIZE_BYTES), swap);
     }
 
     @Override
     public int readUnsignedShort() throws IOException {
-        return 0;
+        return readShort() & Mem.SHORT_MASK;
     }
 
     @Override
     public void writeChar(int v) throws IOException {
-
+        MemoryCodec.putChar(claim(Mem.CHAR_SIZE_BYTES), (char) v, swap);
     }
 
     @Override
     public char readChar() throws IOException {
-        return 0;
+        return MemoryCodec.getChar(claim(Mem.CHAR_SIZE_BYTES), swap);
     }
 
     @Override
     public void writeInt(int v) throws IOException {
-
+        MemoryCodec.putInt(claim(Mem.INTEGER_SIZE_BYTES), v, swap);
     }
 
     @Override
     public int readInt() throws IOException {
-        return 0;
+        return MemoryCodec.getInt(claim(Mem.INTEGER_SIZE_BYTES), swap);
     }
 
     @Override
     public void writeLong(long v) throws IOException {
-
+        MemoryCodec.putLong(claim(Mem.LONG_SIZE_BYTES), v, swap);
     }
 
     @Override
     public long readLong() throws IOException {
-        return 0;
+        return MemoryCodec.getLong(claim(Mem.LONG_SIZE_BYTES), swap);
     }
 
     @Override
     public void writeFloat(float v) throws IOException {
-
+        writeInt(Float.floatToIntBits(v));
     }
 
     @Override
     public float readFloat() throws IOException {
-        return 0;
+        return Float.intBitsToFloat(readInt());
     }
 
     @Override
     public void writeDouble(double v) throws IOException {
-
+        writeLong(Double.doubleToLongBits(v));
     }
 
     @Override
     public double readDouble() throws IOException {
-        return 0;
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Writes the unsigned LEB128 varint of 1 to 10 bytes
+     * @param v Value treated as unsigned
+     * @throws IOException if the block is exhausted
+     */
+    public void writeVarLong(long v) throws IOException {
+        MemoryCodec.putVarLong(claim(MemoryCodec.varLongSize(v)), v);
+    }
+
+    /**
+     * Writes the unsigned LEB128 varint of 1 to 5 bytes
+     * @param v Value treated as unsigned
+     * @throws IOException if the block is exhausted
+     */
+    public void writeVarInt(int v) throws IOException {
+        writeVarLong(v & Mem.INTEGER_MASK);
+    }
+
+    /**
+     * Writes the zigzag-encoded varint, so small negative values are short as well
+     * @param v Value
+     * @throws IOException if the block is exhausted
+     */
+    public void writeSignedVarLong(long v) throws IOException {
+        writeVarLong(MemoryCodec.zigzag(v));
+    }
+
+    /**
+     * Writes the zigzag-encoded varint, so small negative values are short as well
+     * @param v Value
+     * @throws IOException if the block is exhausted
+     */
+    public void writeSignedVarInt(int v) throws IOException {
+        writeVarInt(MemoryCodec.zigzag(v));
+    }
+
+    /**
+     * Writes the zigzag-encoded varint deltas between the consecutive values starting from zero,
+     * the count of values is not written
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     * @throws IOException if the block is exhausted, nothing is written in this case
+     */
+    public void writeDeltaVarLongs(long[] values, int index, int length) throws IOException {
+        MemoryCodec.checkRange(values.length, index, length);
+
+        long target = claim(MemoryCodec.deltaVarLongsSize(values, index, length));
+        MemoryCodec.putDeltaVarLongs(target, values, index, length);
+    }
+
+    /**
+     * Writes the zigzag-encoded varint deltas between the consecutive values starting from zero,
+     * the count of values is not written
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     * @throws IOException if the block is exhausted, nothing is written in this case
+     */
+    public void writeDeltaVarInts(int[] values, int index, int length) throws IOException {
+        MemoryCodec.checkRange(values.length, index, length);
+
+        long target = claim(MemoryCodec.deltaVarIntsSize(values, index, length));
+        MemoryCodec.putDeltaVarInts(target, values, index, length);
+    }
+
+    /**
+     * Reads the unsigned LEB128 varint
+     * @return Value
+     * @throws IOException if the block is exhausted or the varint is longer than 10 bytes
+     */
+    public long readVarLong() throws IOException {
+        long current = address;
+        long available = limit - current;
+
+        if (MemoryCodec.WORD_DECODING && available >= Mem.LONG_SIZE_BYTES) {
+            long word = MemoryCodec.getWord(current);
+
+            int length = MemoryCodec.wordVarLongLength(word);
+            if (length > 0) {
+                this.address = current + length;
+                return MemoryCodec.getWordVarLong(word, length);
+            }
+        }
+
+        int length = MemoryCodec.varLongLength(current, available);
+        if (length < 0) {
+            if (available < MemoryCodec.MAX_VARLONG_LENGTH) {
+                throw new EOFException("Block is exhausted within the varint");
+            } else {
+                throw new IOException(String.format("Malformed varint at offset %d", offset()));
+            }
+        }
+
+        this.address = current + length;
+        return MemoryCodec.getVarLong(current, length);
+    }
+
+    /**
+     * Reads the unsigned LEB128 varint, the bits above 32 are dropped
+     * @return Value
+     * @throws IOException if the block is exhausted or the varint is malformed
+     */
+    public int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    /**
+     * Reads the zigzag-encoded varint
+     * @return Value
+     * @throws IOException if the block is exhausted or the varint is malformed
+     */
+    public long readSignedVarLong() throws IOException {
+        return MemoryCodec.unzigzag(readVarLong());
+    }
+
+    /**
+     * Reads the zigzag-encoded varint
+     * @return Value
+     * @throws IOException if the block is exhausted or the varint is malformed
+     */
+    public int readSignedVarInt() throws IOException {
+        return MemoryCodec.unzigzag(readVarInt());
+    }
+
+    /**
+     * Reads the values written with {@link #writeDeltaVarLongs(long[], int, int)}
+     * @param values Target array
+     * @param index Index of the first value
+     * @param length Count of values
+     * @throws IOException if the block is exhausted or a varint is malformed, the position is not changed then
+     */
+    public void readDeltaVarLongs(long[] values, int index, int length) throws IOException {
+        MemoryCodec.checkRange(values.length, index, length);
+
+        long start = address;
+        try {
+            long previous = 0;
+            for (int i = index; i < index + length; i++) {
+                previous += MemoryCodec.unzigzag(readVarLong());
+                values[i] = previous;
+            }
+        } catch (IOException e) {
+            this.address = start;
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the values written with {@link #writeDeltaVarInts(int[], int, int)}
+     * @param values Target array
+     * @param index Index of the first value
+     * @param length Count of values
+     * @throws IOException if the block is exhausted or a varint is malformed, the position is not changed then
+     */
+    public void readDeltaVarInts(int[] values, int index, int length) throws IOException {
+        MemoryCodec.checkRange(values.length, index, length);
+
+        long start = address;
+        try {
+            int previous = 0;
+            for (int i = index; i < index + length; i++) {
+                previous += MemoryCodec.unzigzag(readVarInt());
+                values[i] = previous;
+            }
+        } catch (IOException e) {
+            this.address = start;
+            throw e;
+        }
     }
 
     @Override
     public void writeUTF(String s) throws IOException {
+        int utfLength = MemoryCodec.utfLength(s);
 
+        // the length prefix and the encoded string are checked at once
+        long target = claim(MemoryCodec.UTF_LENGTH_SIZE_BYTES + utfLength);
+        MemoryCodec.putPrefixedUTF(target, s, utfLength, swap);
     }
+
     @Override
     public String readUTF() throws IOException {
-        return null;
+        long current = address;
+
+        int utfLength = readUnsignedShort();
+        if (available() < utfLength) {
+            this.address = current;
+            throw new EOFException(String.format("Block has %d bytes available but %d bytes are required",
+                available(), utfLength));
+        }
+
+        String s = MemoryCodec.getUTF(address, utfLength);
+        this.address += utfLength;
+
+        return s;
     }
 
     @Override
     public void writeBytes(String s) throws IOException {
-
+        MemoryCodec.putBytes(claim(Mem.BYTE_SIZE_BYTES * s.length()), s);
     }
 
     @Override
     public void writeChars(String s) throws IOException {
-
+        MemoryCodec.putChars(claim(Mem.CHAR_SIZE_BYTES * s.length()), s, swap);
     }
 
     @Override
     public String readLine() throws IOException {
-        return null;
-    }
+        long available = available();
+        if (available == 0) {
+            return null;
+        }
+
+        long length = MemOps.indexOf(address, available, (byte) LINE_FEED);
+        long skip = 1;
+        if (length < 0) {
+            length = available;
+            skip = 0;
+        }
 
+        long carriageReturn = MemOps.indexOf(address, length, (byte) CARRIAGE_RETURN);
+        if (carriageReturn >= 0) {
+            // a line terminated with '\r' or "\r\n"
+            length = carriageReturn;
+            skip = carriageReturn + 1 < available && Jvm.getByte(address + carriageReturn + 1) == LINE_FEED ? 2 : 1;
+        }
+
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Line of %d bytes at offset %d is too long for a string",
+                length, offset()));
+        }
+
+        char[] chars = new char[(int) length];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (Jvm.getByte(address + i) & Mem.BYTE_MASK);
+        }
+
+        this.address += length + skip;
+
+        return new String(chars);
+    }
 
 }
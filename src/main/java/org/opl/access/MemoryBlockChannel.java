@@ -0,0 +1,180 @@
+package org.opl.access;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockBuffers;
+import org.opl.util.OplUtils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>Readable and writable channel over a memory block of any size</p>
+ *
+ * <p>Data is moved between the block and buffers through direct {@link ByteBuffer} views of the block, so there is
+ * no intermediate copy. {@link #transferTo(WritableByteChannel)} and {@link #transferFrom(ReadableByteChannel)}
+ * pass such views to the other channel directly, so a {@link FileChannel} or a socket reads and writes the block
+ * memory itself (unlike {@link FileChannel#transferFrom}, which copies a foreign channel through a temporary
+ * buffer).</p>
+ *
+ * <p>The channel doesn't own the block, so closing it doesn't free the block.</p>
+ */
+@NotThreadSafe
+public class MemoryBlockChannel implements ByteChannel {
+
+    private final MemoryBlock block;
+
+    private long position;
+
+    private boolean open;
+
+    public MemoryBlockChannel(MemoryBlock block) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        this.block = block;
+        this.position = 0;
+        this.open = true;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public void position(long newPosition) {
+        if (newPosition < 0 || newPosition > block.size()) {
+            throw new IllegalArgumentException(String.format("Position %d is out of block of %d bytes",
+                newPosition, block.size()));
+        }
+
+        this.position = newPosition;
+    }
+
+    public long size() {
+        return block.size();
+    }
+
+    public long remaining() {
+        return block.size() - position;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        checkOpen();
+
+        long remaining = remaining();
+        if (remaining <= 0) {
+            return dst.hasRemaining() ? -1 : 0;
+        }
+
+        int count = (int) Math.min(dst.remaining(), remaining);
+        dst.put(MemoryBlockBuffers.asByteBuffer(block, position, count));
+        position += count;
+
+        return count;
+    }
+
+    /**
+     * Writes as many bytes as fit into the rest of the block
+     * @param src Source buffer
+     * @return Count of bytes written
+     * @throws EOFException if the block is full while the buffer has data
+     * @throws IOException if the channel is closed
+     */
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        checkOpen();
+
+        if (remaining() <= 0 && src.hasRemaining()) {
+            throw new EOFException("Block is full");
+        }
+
+        int count = (int) Math.min(src.remaining(), remaining());
+
+        ByteBuffer part = src.duplicate();
+        part.limit(part.position() + count);
+
+        MemoryBlockBuffers.asByteBuffer(block, position, count).put(part);
+        src.position(src.position() + count);
+        position += count;
+
+        return count;
+    }
+
+    /**
+     * Writes the rest of the block to the channel
+     * @param target Target channel
+     * @return Count of bytes written, less than {@link #remaining()} if a non-blocking target is full
+     * @throws IOException on the target failure
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        checkOpen();
+
+        long transferred = 0;
+        while (position < block.size()) {
+            ByteBuffer view = nextView();
+
+            int written = target.write(view);
+            position += written;
+            transferred += written;
+
+            if (view.hasRemaining()) {
+                break;
+            }
+        }
+
+        return transferred;
+    }
+
+    /**
+     * Reads the channel into the rest of the block
+     * @param source Source channel
+     * @return Count of bytes read, less than {@link #remaining()} if the source has ended or has no data
+     * available at the moment
+     * @throws IOException on the source failure
+     */
+    public long transferFrom(ReadableByteChannel source) throws IOException {
+        checkOpen();
+
+        long transferred = 0;
+        while (position < block.size()) {
+            int read = source.read(nextView());
+            if (read <= 0) {
+                break;
+            }
+
+            position += read;
+            transferred += read;
+        }
+
+        return transferred;
+    }
+
+    private ByteBuffer nextView() {
+        return MemoryBlockBuffers.asByteBuffer(block, position,
+            Math.min(remaining(), MemoryBlockBuffers.MAX_VIEW_SIZE_BYTES));
+    }
+
+    private void checkOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        this.open = false;
+    }
+
+}
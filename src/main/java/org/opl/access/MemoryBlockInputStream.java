@@ -0,0 +1,119 @@
+package org.opl.access;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.InputStream;
+
+/**
+ * <p>{@link InputStream} over a memory block of any size</p>
+ *
+ * <p>The position is a long offset, bytes are copied into arrays with a single bulk copy. The stream doesn't own
+ * the block, so closing it doesn't free the block.</p>
+ */
+@NotThreadSafe
+public class MemoryBlockInputStream extends InputStream {
+
+    private final MemoryBlock block;
+
+    private long position;
+
+    private long mark;
+
+    public MemoryBlockInputStream(MemoryBlock block) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        this.block = block;
+        this.position = 0;
+        this.mark = 0;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public void position(long newPosition) {
+        if (newPosition < 0 || newPosition > block.size()) {
+            throw new IllegalArgumentException(String.format("Position %d is out of block of %d bytes",
+                newPosition, block.size()));
+        }
+
+        this.position = newPosition;
+    }
+
+    public long remaining() {
+        return block.size() - position;
+    }
+
+    @Override
+    public int read() {
+        if (position >= block.size()) {
+            return -1;
+        }
+
+        return Jvm.getByte(block.address(position++)) & Mem.BYTE_MASK;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (b == null) {
+            throw new NullPointerException("Accepting array is not specified");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException("Offset and length are invalid");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        long remaining = remaining();
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        int count = (int) Math.min(len, remaining);
+        block.copyTo(position, b, off, count);
+        position += count;
+
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, remaining()));
+
+        position += skipped;
+
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(remaining(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        this.mark = position;
+    }
+
+    @Override
+    public void reset() {
+        this.position = mark;
+    }
+
+    @Override
+    public void close() {
+        // the block is owned by the caller
+    }
+
+}
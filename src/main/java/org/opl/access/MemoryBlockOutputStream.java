@@ -0,0 +1,84 @@
+package org.opl.access;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.platform.Jvm;
+import org.opl.util.OplUtils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.EOFException;
+import java.io.OutputStream;
+
+/**
+ * <p>{@link OutputStream} over a memory block of any size</p>
+ *
+ * <p>The position is a long offset, arrays are copied with a single bulk copy. Writing beyond the block fails with
+ * {@link EOFException} and writes nothing. The stream doesn't own the block, so closing it doesn't free
+ * the block.</p>
+ */
+@NotThreadSafe
+public class MemoryBlockOutputStream extends OutputStream {
+
+    private final MemoryBlock block;
+
+    private long position;
+
+    public MemoryBlockOutputStream(MemoryBlock block) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        this.block = block;
+        this.position = 0;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public void position(long newPosition) {
+        if (newPosition < 0 || newPosition > block.size()) {
+            throw new IllegalArgumentException(String.format("Position %d is out of block of %d bytes",
+                newPosition, block.size()));
+        }
+
+        this.position = newPosition;
+    }
+
+    public long remaining() {
+        return block.size() - position;
+    }
+
+    private void checkRemaining(long bytes) throws EOFException {
+        if (remaining() < bytes) {
+            throw new EOFException(String.format("Block has %d bytes available but %d bytes are required",
+                remaining(), bytes));
+        }
+    }
+
+    @Override
+    public void write(int b) throws EOFException {
+        checkRemaining(1);
+
+        Jvm.putByte(block.address(position++), (byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws EOFException {
+        if (b == null) {
+            throw new NullPointerException("Accepting array is not specified");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException("Offset and length are invalid");
+        }
+
+        checkRemaining(len);
+
+        block.copyFrom(position, b, off, len);
+        position += len;
+    }
+
+    @Override
+    public void close() {
+        // the block is owned by the caller
+    }
+
+}
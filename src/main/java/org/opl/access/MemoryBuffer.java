@@ -0,0 +1,91 @@
+package org.opl.access;
+
+import org.opl.access.block.MemoryBlock;
+
+/**
+ * <p>Typed access to a memory block of any size by long offsets</p>
+ *
+ * <p>Every primitive has absolute accessors, which take the offset from the start of the block, and relative ones,
+ * which use and advance the position. Values are stored in the native byte order.</p>
+ *
+ * <p>{@link MemoryBufferDirect} performs no checks, so each accessor compiles to a single memory access.
+ * {@link MemoryBufferSafe} checks the bounds on every access.</p>
+ */
+@SuppressWarnings("PMD.BooleanGetMethodName")
+public interface MemoryBuffer {
+
+    MemoryBlock block();
+
+    long size();
+
+    long position();
+
+    void position(long position);
+
+    long remaining();
+
+    boolean getBoolean(long offset);
+
+    boolean getBoolean();
+
+    void putBoolean(long offset, boolean value);
+
+    void putBoolean(boolean value);
+
+    byte getByte(long offset);
+
+    byte getByte();
+
+    void putByte(long offset, byte value);
+
+    void putByte(byte value);
+
+    short getShort(long offset);
+
+    short getShort();
+
+    void putShort(long offset, short value);
+
+    void putShort(short value);
+
+    char getChar(long offset);
+
+    char getChar();
+
+    void putChar(long offset, char value);
+
+    void putChar(char value);
+
+    int getInt(long offset);
+
+    int getInt();
+
+    void putInt(long offset, int value);
+
+    void putInt(int value);
+
+    long getLong(long offset);
+
+    long getLong();
+
+    void putLong(long offset, long value);
+
+    void putLong(long value);
+
+    float getFloat(long offset);
+
+    float getFloat();
+
+    void putFloat(long offset, float value);
+
+    void putFloat(float value);
+
+    double getDouble(long offset);
+
+    double getDouble();
+
+    void putDouble(long offset, double value);
+
+    void putDouble(double value);
+
+}
@@ -0,0 +1,225 @@
+package org.opl.access;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Memory buffer without any checks, the block address is captured on construction
+ * @see MemoryBufferSafe
+ */
+@NotThreadSafe
+public final class MemoryBufferDirect implements MemoryBuffer {
+
+    private final MemoryBlock block;
+
+    private final long address;
+
+    private final long size;
+
+    private long position;
+
+    public MemoryBufferDirect(MemoryBlock block) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        this.block = block;
+        this.address = block.address();
+        this.size = block.size();
+        this.position = 0;
+    }
+
+    @Override
+    public MemoryBlock block() {
+        return block;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void position(long position) {
+        this.position = position;
+    }
+
+    @Override
+    public long remaining() {
+        return size - position;
+    }
+
+    private long next(long bytes) {
+        long current = position;
+        this.position = current + bytes;
+        return address + current;
+    }
+
+    @Override
+    public boolean getBoolean(long offset) {
+        return Jvm.getByte(address + offset) != 0;
+    }
+
+    @Override
+    public boolean getBoolean() {
+        return Jvm.getByte(next(Mem.BYTE_SIZE_BYTES)) != 0;
+    }
+
+    @Override
+    public void putBoolean(long offset, boolean value) {
+        Jvm.putByte(address + offset, (byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public void putBoolean(boolean value) {
+        Jvm.putByte(next(Mem.BYTE_SIZE_BYTES), (byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return Jvm.getByte(address + offset);
+    }
+
+    @Override
+    public byte getByte() {
+        return Jvm.getByte(next(Mem.BYTE_SIZE_BYTES));
+    }
+
+    @Override
+    public void putByte(long offset, byte value) {
+        Jvm.putByte(address + offset, value);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        Jvm.putByte(next(Mem.BYTE_SIZE_BYTES), value);
+    }
+
+    @Override
+    public short getShort(long offset) {
+        return Jvm.getShort(address + offset);
+    }
+
+    @Override
+    public short getShort() {
+        return Jvm.getShort(next(Mem.SHORT_SIZE_BYTES));
+    }
+
+    @Override
+    public void putShort(long offset, short value) {
+        Jvm.putShort(address + offset, value);
+    }
+
+    @Override
+    public void putShort(short value) {
+        Jvm.putShort(next(Mem.SHORT_SIZE_BYTES), value);
+    }
+
+    @Override
+    public char getChar(long offset) {
+        return Jvm.getChar(address + offset);
+    }
+
+    @Override
+    public char getChar() {
+        return Jvm.getChar(next(Mem.CHAR_SIZE_BYTES));
+    }
+
+    @Override
+    public void putChar(long offset, char value) {
+        Jvm.putChar(address + offset, value);
+    }
+
+    @Override
+    public void putChar(char value) {
+        Jvm.putChar(next(Mem.CHAR_SIZE_BYTES), value);
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return Jvm.getInt(address + offset);
+    }
+
+    @Override
+    public int getInt() {
+        return Jvm.getInt(next(Mem.INTEGER_SIZE_BYTES));
+    }
+
+    @Override
+    public void putInt(long offset, int value) {
+        Jvm.putInt(address + offset, value);
+    }
+
+    @Override
+    public void putInt(int value) {
+        Jvm.putInt(next(Mem.INTEGER_SIZE_BYTES), value);
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return Jvm.getLong(address + offset);
+    }
+
+    @Override
+    public long getLong() {
+        return Jvm.getLong(next(Mem.LONG_SIZE_BYTES));
+    }
+
+    @Override
+    public void putLong(long offset, long value) {
+        Jvm.putLong(address + offset, value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        Jvm.putLong(next(Mem.LONG_SIZE_BYTES), value);
+    }
+
+    @Override
+    public float getFloat(long offset) {
+        return Jvm.getFloat(address + offset);
+    }
+
+    @Override
+    public float getFloat() {
+        return Jvm.getFloat(next(Mem.FLOAT_SIZE_BYTES));
+    }
+
+    @Override
+    public void putFloat(long offset, float value) {
+        Jvm.putFloat(address + offset, value);
+    }
+
+    @Override
+    public void putFloat(float value) {
+        Jvm.putFloat(next(Mem.FLOAT_SIZE_BYTES), value);
+    }
+
+    @Override
+    public double getDouble(long offset) {
+        return Jvm.getDouble(address + offset);
+    }
+
+    @Override
+    public double getDouble() {
+        return Jvm.getDouble(next(Mem.DOUBLE_SIZE_BYTES));
+    }
+
+    @Override
+    public void putDouble(long offset, double value) {
+        Jvm.putDouble(address + offset, value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        Jvm.putDouble(next(Mem.DOUBLE_SIZE_BYTES), value);
+    }
+
+}
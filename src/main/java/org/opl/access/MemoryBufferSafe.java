@@ -0,0 +1,239 @@
+package org.opl.access;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Memory buffer which checks the bounds on every access, the block address is captured on construction
+ * @see MemoryBufferDirect
+ */
+@NotThreadSafe
+public final class MemoryBufferSafe implements MemoryBuffer {
+
+    private final MemoryBlock block;
+
+    private final long address;
+
+    private final long size;
+
+    private long position;
+
+    public MemoryBufferSafe(MemoryBlock block) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        this.block = block;
+        this.address = block.address();
+        this.size = block.size();
+        this.position = 0;
+    }
+
+    @Override
+    public MemoryBlock block() {
+        return block;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void position(long position) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException(String.format("Position %d is out of buffer of %d bytes",
+                position, size));
+        }
+
+        this.position = position;
+    }
+
+    @Override
+    public long remaining() {
+        return size - position;
+    }
+
+    private long checkedAddress(long offset, long bytes) {
+        if (offset < 0 || offset > size - bytes) {
+            throw new IndexOutOfBoundsException(String.format("Access of %d bytes at %d is out of buffer of %d bytes",
+                bytes, offset, size));
+        }
+
+        return address + offset;
+    }
+
+    private long next(long bytes) {
+        long current = checkedAddress(position, bytes);
+        this.position += bytes;
+        return current;
+    }
+
+    @Override
+    public boolean getBoolean(long offset) {
+        return Jvm.getByte(checkedAddress(offset, Mem.BYTE_SIZE_BYTES)) != 0;
+    }
+
+    @Override
+    public boolean getBoolean() {
+        return Jvm.getByte(next(Mem.BYTE_SIZE_BYTES)) != 0;
+    }
+
+    @Override
+    public void putBoolean(long offset, boolean value) {
+        Jvm.putByte(checkedAddress(offset, Mem.BYTE_SIZE_BYTES), (byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public void putBoolean(boolean value) {
+        Jvm.putByte(next(Mem.BYTE_SIZE_BYTES), (byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return Jvm.getByte(checkedAddress(offset, Mem.BYTE_SIZE_BYTES));
+    }
+
+    @Override
+    public byte getByte() {
+        return Jvm.getByte(next(Mem.BYTE_SIZE_BYTES));
+    }
+
+    @Override
+    public void putByte(long offset, byte value) {
+        Jvm.putByte(checkedAddress(offset, Mem.BYTE_SIZE_BYTES), value);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        Jvm.putByte(next(Mem.BYTE_SIZE_BYTES), value);
+    }
+
+    @Override
+    public short getShort(long offset) {
+        return Jvm.getShort(checkedAddress(offset, Mem.SHORT_SIZE_BYTES));
+    }
+
+    @Override
+    public short getShort() {
+        return Jvm.getShort(next(Mem.SHORT_SIZE_BYTES));
+    }
+
+    @Override
+    public void putShort(long offset, short value) {
+        Jvm.putShort(checkedAddress(offset, Mem.SHORT_SIZE_BYTES), value);
+    }
+
+    @Override
+    public void putShort(short value) {
+        Jvm.putShort(next(Mem.SHORT_SIZE_BYTES), value);
+    }
+
+    @Override
+    public char getChar(long offset) {
+        return Jvm.getChar(checkedAddress(offset, Mem.CHAR_SIZE_BYTES));
+    }
+
+    @Override
+    public char getChar() {
+        return Jvm.getChar(next(Mem.CHAR_SIZE_BYTES));
+    }
+
+    @Override
+    public void putChar(long offset, char value) {
+        Jvm.putChar(checkedAddress(offset, Mem.CHAR_SIZE_BYTES), value);
+    }
+
+    @Override
+    public void putChar(char value) {
+        Jvm.putChar(next(Mem.CHAR_SIZE_BYTES), value);
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return Jvm.getInt(checkedAddress(offset, Mem.INTEGER_SIZE_BYTES));
+    }
+
+    @Override
+    public int getInt() {
+        return Jvm.getInt(next(Mem.INTEGER_SIZE_BYTES));
+    }
+
+    @Override
+    public void putInt(long offset, int value) {
+        Jvm.putInt(checkedAddress(offset, Mem.INTEGER_SIZE_BYTES), value);
+    }
+
+    @Override
+    public void putInt(int value) {
+        Jvm.putInt(next(Mem.INTEGER_SIZE_BYTES), value);
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return Jvm.getLong(checkedAddress(offset, Mem.LONG_SIZE_BYTES));
+    }
+
+    @Override
+    public long getLong() {
+        return Jvm.getLong(next(Mem.LONG_SIZE_BYTES));
+    }
+
+    @Override
+    public void putLong(long offset, long value) {
+        Jvm.putLong(checkedAddress(offset, Mem.LONG_SIZE_BYTES), value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        Jvm.putLong(next(Mem.LONG_SIZE_BYTES), value);
+    }
+
+    @Override
+    public float getFloat(long offset) {
+        return Jvm.getFloat(checkedAddress(offset, Mem.FLOAT_SIZE_BYTES));
+    }
+
+    @Override
+    public float getFloat() {
+        return Jvm.getFloat(next(Mem.FLOAT_SIZE_BYTES));
+    }
+
+    @Override
+    public void putFloat(long offset, float value) {
+        Jvm.putFloat(checkedAddress(offset, Mem.FLOAT_SIZE_BYTES), value);
+    }
+
+    @Override
+    public void putFloat(float value) {
+        Jvm.putFloat(next(Mem.FLOAT_SIZE_BYTES), value);
+    }
+
+    @Override
+    public double getDouble(long offset) {
+        return Jvm.getDouble(checkedAddress(offset, Mem.DOUBLE_SIZE_BYTES));
+    }
+
+    @Override
+    public double getDouble() {
+        return Jvm.getDouble(next(Mem.DOUBLE_SIZE_BYTES));
+    }
+
+    @Override
+    public void putDouble(long offset, double value) {
+        Jvm.putDouble(checkedAddress(offset, Mem.DOUBLE_SIZE_BYTES), value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        Jvm.putDouble(next(Mem.DOUBLE_SIZE_BYTES), value);
+    }
+
+}
@@ -6,7 +6,6 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.DataOutput;
 import java.io.IOException;
-import java.io.UTFDataFormatException;
 
 @NotThreadSafe
 public class MemoryCalculator implements DataOutput {
@@ -17,6 +16,10 @@ public class MemoryCalculator implements DataOutput {
         this.size = 0;
     }
 
+    public long size() {
+        return size;
+    }
+
     private void increment(long delta) {
         this.size += delta;
     }
@@ -86,28 +89,60 @@ public class MemoryCalculator implements DataOutput {
         increment(Mem.CHAR_SIZE_BYTES * s.length());
     }
 
+    /**
+     * Sizes {@link MemoryAccessor#writeVarLong(long)}
+     * @param v Value treated as unsigned
+     */
+    public void writeVarLong(long v) {
+        increment(MemoryCodec.varLongSize(v));
+    }
+
+    /**
+     * Sizes {@link MemoryAccessor#writeVarInt(int)}
+     * @param v Value treated as unsigned
+     */
+    public void writeVarInt(int v) {
+        increment(MemoryCodec.varLongSize(v & Mem.INTEGER_MASK));
+    }
+
+    /**
+     * Sizes {@link MemoryAccessor#writeSignedVarLong(long)}
+     * @param v Value
+     */
+    public void writeSignedVarLong(long v) {
+        writeVarLong(MemoryCodec.zigzag(v));
+    }
+
+    /**
+     * Sizes {@link MemoryAccessor#writeSignedVarInt(int)}
+     * @param v Value
+     */
+    public void writeSignedVarInt(int v) {
+        writeVarInt(MemoryCodec.zigzag(v));
+    }
+
+    /**
+     * Sizes {@link MemoryAccessor#writeDeltaVarLongs(long[], int, int)}
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     */
+    public void writeDeltaVarLongs(long[] values, int index, int length) {
+        increment(MemoryCodec.deltaVarLongsSize(values, index, length));
+    }
+
+    /**
+     * Sizes {@link MemoryAccessor#writeDeltaVarInts(int[], int, int)}
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     */
+    public void writeDeltaVarInts(int[] values, int index, int length) {
+        increment(MemoryCodec.deltaVarIntsSize(values, index, length));
+    }
+
     @Override
     public void writeUTF(String s) throws IOException {
-        int strlen = s.length();
-        int utflen = 0;
-        int count = 0;
-
-        /* use charAt instead of copying String to char array */
-        for (int i = 0; i < strlen; i++) {
-            int c = s.charAt(i);
-            if ((c >= 0x0001) && (c <= 0x007F)) {
-                utflen++;
-            } else if (c > 0x07FF) {
-                utflen += 3;
-            } else {
-                utflen += 2;
-            }
-        }
-
-        if (utflen > 65535) {
-            throw new UTFDataFormatException("encoded string too long: " + utflen + " bytes");
-        }
-
-        increment(utflen);
+        increment(MemoryCodec.UTF_LENGTH_SIZE_BYTES + MemoryCodec.utfLength(s));
     }
 }
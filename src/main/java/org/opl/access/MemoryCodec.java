@@ -0,0 +1,515 @@
+package org.opl.access;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.platform.MemOps;
+
+import java.io.UTFDataFormatException;
+
+/**
+ * <p>Encodings shared by the memory readers, writers and {@link MemoryCalculator}</p>
+ *
+ * <p>Modified UTF-8 of {@link java.io.DataOutput#writeUTF(String)} and LEB128 varints, which keep 7 bits
+ * per byte with the high bit set on every byte but the last. Signed values are zigzag-encoded first, so
+ * small negative numbers stay short as well.</p>
+ *
+ * <p>A varint of up to 8 bytes is decoded from a single little-endian word: the length comes from
+ * the first clear high bit, and the 7-bit groups are packed together with three shift-and-mask steps
+ * instead of a loop over the bytes.</p>
+ */
+final class MemoryCodec {
+
+    static final int UTF_MAX_LENGTH = Mem.SHORT_MASK;
+
+    static final long UTF_LENGTH_SIZE_BYTES = Mem.SHORT_SIZE_BYTES;
+
+    static final int MAX_VARLONG_LENGTH = 10;
+
+    /** Varints could be decoded from a single unaligned word */
+    static final boolean WORD_DECODING = MemOps.UNALIGNED_ACCESS;
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private static final long VARINT_CONTINUATION_BITS = 0x8080_8080_8080_8080L;
+
+    private static final long PACK_BYTES_LOW = 0x007F_007F_007F_007FL;
+
+    private static final long PACK_BYTES_HIGH = 0x7F00_7F00_7F00_7F00L;
+
+    private static final long PACK_SHORTS_LOW = 0x0000_3FFF_0000_3FFFL;
+
+    private static final long PACK_SHORTS_HIGH = 0x3FFF_0000_3FFF_0000L;
+
+    private static final long PACK_INTS_LOW = 0x0000_0000_0FFF_FFFFL;
+
+    private static final long PACK_INTS_HIGH = 0x0FFF_FFFF_0000_0000L;
+
+    private static final int PACK_INTS_SHIFT = 4;
+
+    private static final int BYTE_SHIFT = 3;
+
+    private static final int ONE_BYTE_MAX = 0x007F;
+
+    private static final int TWO_BYTE_MAX = 0x07FF;
+
+    private static final int THREE_BYTES = 3;
+
+    private static final int TWO_BYTE_HEAD = 0xC0;
+
+    private static final int THREE_BYTE_HEAD = 0xE0;
+
+    private static final int TAIL = 0x80;
+
+    private static final int TAIL_MASK = 0xC0;
+
+    private static final int TAIL_BITS = 0x3F;
+
+    private static final int TWO_BYTE_BITS = 0x1F;
+
+    private static final int THREE_BYTE_BITS = 0x0F;
+
+    private static final int TAIL_SHIFT = 6;
+
+    private static final int HEAD_SHIFT = 12;
+
+    private static final int KIND_SHIFT = 4;
+
+    private static final int KIND_TWO_BYTE_LOW = 0x0C;
+
+    private static final int KIND_TWO_BYTE_HIGH = 0x0D;
+
+    private static final int KIND_THREE_BYTE = 0x0E;
+
+    private MemoryCodec() {
+        // nothing to do in an utility class
+    }
+
+    static void checkArray(byte[] b, int off, int len) {
+        if (b == null) {
+            throw new NullPointerException("Accepting array is not specified");
+        }
+
+        checkRange(b.length, off, len);
+    }
+
+    static void checkRange(int arrayLength, int off, int len) {
+        if (off < 0) {
+            throw new IndexOutOfBoundsException("Offset is invalid");
+        }
+        if (len < 0) {
+            throw new IndexOutOfBoundsException("Length is invalid");
+        }
+        if (off + len > arrayLength) {
+            throw new IndexOutOfBoundsException("Offset and length are invalid");
+        }
+    }
+
+    static void putShort(long address, short value, boolean swap) {
+        Jvm.putShort(address, swap ? Short.reverseBytes(value) : value);
+    }
+
+    static short getShort(long address, boolean swap) {
+        short value = Jvm.getShort(address);
+        return swap ? Short.reverseBytes(value) : value;
+    }
+
+    static void putChar(long address, char value, boolean swap) {
+        Jvm.putChar(address, swap ? Character.reverseBytes(value) : value);
+    }
+
+    static char getChar(long address, boolean swap) {
+        char value = Jvm.getChar(address);
+        return swap ? Character.reverseBytes(value) : value;
+    }
+
+    static void putInt(long address, int value, boolean swap) {
+        Jvm.putInt(address, swap ? Integer.reverseBytes(value) : value);
+    }
+
+    static int getInt(long address, boolean swap) {
+        int value = Jvm.getInt(address);
+        return swap ? Integer.reverseBytes(value) : value;
+    }
+
+    static void putLong(long address, long value, boolean swap) {
+        Jvm.putLong(address, swap ? Long.reverseBytes(value) : value);
+    }
+
+    static long getLong(long address, boolean swap) {
+        long value = Jvm.getLong(address);
+        return swap ? Long.reverseBytes(value) : value;
+    }
+
+    /**
+     * Copies the array range, the range must be checked with {@link #checkArray(byte[], int, int)}
+     * @param address Target address with at least <code>len</code> bytes available
+     * @param b Source array
+     * @param off Index of the first byte
+     * @param len Count of bytes
+     */
+    static void putBytes(long address, byte[] b, int off, int len) {
+        MemOps.copy(b, Jvm.ARRAY_BYTE_BASE_OFFSET + (long) off, null, address, len);
+    }
+
+    /**
+     * Copies the array range, the range must be checked with {@link #checkArray(byte[], int, int)}
+     * @param address Source address with at least <code>len</code> bytes available
+     * @param b Target array
+     * @param off Index of the first byte
+     * @param len Count of bytes
+     */
+    static void getBytes(long address, byte[] b, int off, int len) {
+        MemOps.copy(null, address, b, Jvm.ARRAY_BYTE_BASE_OFFSET + (long) off, len);
+    }
+
+    /**
+     * Stores the low byte of every char as {@link java.io.DataOutput#writeBytes(String)} does
+     * @param address Target address with at least <code>s.length()</code> bytes available
+     * @param s String to store
+     */
+    static void putBytes(long address, String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            Jvm.putByte(address + i, (byte) s.charAt(i));
+        }
+    }
+
+    /**
+     * Stores every char as {@link java.io.DataOutput#writeChars(String)} does
+     * @param address Target address with at least <code>2 * s.length()</code> bytes available
+     * @param s String to store
+     * @param swap If set to <code>true</code> then the bytes of every char are reversed
+     */
+    static void putChars(long address, String s, boolean swap) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            putChar(address + i * Mem.CHAR_SIZE_BYTES, s.charAt(i), swap);
+        }
+    }
+
+    /**
+     * Calculates the length of the encoded string without the length prefix
+     * @param s String to encode
+     * @return Length of the encoded string in bytes
+     * @throws UTFDataFormatException if the encoded string is longer than 65535 bytes
+     */
+    static int utfLength(String s) throws UTFDataFormatException {
+        int length = s.length();
+        int utfLength = length;
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == 0 || c > ONE_BYTE_MAX) {
+                utfLength += c > TWO_BYTE_MAX ? 2 : 1;
+            }
+        }
+
+        if (utfLength > UTF_MAX_LENGTH) {
+            throw new UTFDataFormatException("Encoded string is too long: " + utfLength + " bytes");
+        }
+
+        return utfLength;
+    }
+
+    /**
+     * Encodes the string without the length prefix
+     * @param address Target address with at least {@link #utfLength(String)} bytes available
+     * @param s String to encode
+     * @return Address right after the encoded string
+     */
+    static long putUTF(long address, String s) {
+        int length = s.length();
+        long current = address;
+
+        int i = 0;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c == 0 || c > ONE_BYTE_MAX) {
+                break;
+            }
+            Jvm.putByte(current++, (byte) c);
+            i++;
+        }
+
+        while (i < length) {
+            char c = s.charAt(i++);
+            if (c != 0 && c <= ONE_BYTE_MAX) {
+                Jvm.putByte(current++, (byte) c);
+            } else if (c > TWO_BYTE_MAX) {
+                Jvm.putByte(current++, (byte) (THREE_BYTE_HEAD | (c >> HEAD_SHIFT) & THREE_BYTE_BITS));
+                Jvm.putByte(current++, (byte) (TAIL | (c >> TAIL_SHIFT) & TAIL_BITS));
+                Jvm.putByte(current++, (byte) (TAIL | c & TAIL_BITS));
+            } else {
+                Jvm.putByte(current++, (byte) (TWO_BYTE_HEAD | (c >> TAIL_SHIFT) & TWO_BYTE_BITS));
+                Jvm.putByte(current++, (byte) (TAIL | c & TAIL_BITS));
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Encodes the string with the length prefix as {@link java.io.DataOutput#writeUTF(String)} does
+     * @param address Target address with at least {@link #UTF_LENGTH_SIZE_BYTES} and <code>utfLength</code>
+     *                bytes available
+     * @param s String to encode
+     * @param utfLength Length of the encoded string from {@link #utfLength(String)}
+     * @param swap If set to <code>true</code> then the bytes of the prefix are reversed
+     */
+    static void putPrefixedUTF(long address, String s, int utfLength, boolean swap) {
+        putShort(address, (short) utfLength, swap);
+        putUTF(address + UTF_LENGTH_SIZE_BYTES, s);
+    }
+
+    /**
+     * Decodes the string of the specified encoded length
+     * @param address Source address
+     * @param utfLength Length of the encoded string in bytes
+     * @return Decoded string
+     * @throws UTFDataFormatException if the bytes are not a valid modified UTF-8
+     */
+    static String getUTF(long address, int utfLength) throws UTFDataFormatException {
+        char[] chars = new char[utfLength];
+        int count = 0;
+
+        long current = address;
+        long limit = address + utfLength;
+
+        while (current < limit) {
+            int c = Jvm.getByte(current) & Mem.BYTE_MASK;
+            if (c > ONE_BYTE_MAX) {
+                break;
+            }
+            chars[count++] = (char) c;
+            current++;
+        }
+
+        while (current < limit) {
+            int c = Jvm.getByte(current) & Mem.BYTE_MASK;
+            int kind = c >> KIND_SHIFT;
+
+            if (c <= ONE_BYTE_MAX) {
+                chars[count++] = (char) c;
+                current++;
+            } else if (kind == KIND_TWO_BYTE_LOW || kind == KIND_TWO_BYTE_HIGH) {
+                checkAvailable(current, 2, limit);
+                int c2 = tail(current, 1);
+                chars[count++] = (char) ((c & TWO_BYTE_BITS) << TAIL_SHIFT | c2);
+                current += 2;
+            } else if (kind == KIND_THREE_BYTE) {
+                checkAvailable(current, THREE_BYTES, limit);
+                int c2 = tail(current, 1);
+                int c3 = tail(current, 2);
+                chars[count++] = (char) ((c & THREE_BYTE_BITS) << HEAD_SHIFT | c2 << TAIL_SHIFT | c3);
+                current += THREE_BYTES;
+            } else {
+                throw new UTFDataFormatException("Malformed input at byte " + (current - address));
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Calculates the size of the unsigned varint
+     * @param value Value treated as unsigned
+     * @return Size in bytes from 1 to {@link #MAX_VARLONG_LENGTH}
+     */
+    static int varLongSize(long value) {
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(value | 1);
+        return (bits + VARINT_PAYLOAD_BITS - 1) / VARINT_PAYLOAD_BITS;
+    }
+
+    /**
+     * Calculates the total size of zigzag varint deltas between the consecutive values
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     * @return Size in bytes
+     */
+    static long deltaVarLongsSize(long[] values, int index, int length) {
+        long size = 0;
+        long previous = 0;
+        for (int i = index; i < index + length; i++) {
+            size += varLongSize(zigzag(values[i] - previous));
+            previous = values[i];
+        }
+        return size;
+    }
+
+    /**
+     * Calculates the total size of zigzag varint deltas between the consecutive values
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     * @return Size in bytes
+     */
+    static long deltaVarIntsSize(int[] values, int index, int length) {
+        long size = 0;
+        int previous = 0;
+        for (int i = index; i < index + length; i++) {
+            size += varLongSize(zigzag(values[i] - previous) & Mem.INTEGER_MASK);
+            previous = values[i];
+        }
+        return size;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> (Integer.SIZE - 1));
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Encodes the unsigned varint
+     * @param address Target address with at least {@link #varLongSize(long)} bytes available
+     * @param value Value treated as unsigned
+     * @return Address right after the encoded value
+     */
+    static long putVarLong(long address, long value) {
+        long current = address;
+        long v = value;
+
+        while ((v & ~VARINT_PAYLOAD_MASK) != 0) {
+            Jvm.putByte(current++, (byte) (v | VARINT_CONTINUATION));
+            v >>>= VARINT_PAYLOAD_BITS;
+        }
+        Jvm.putByte(current++, (byte) v);
+
+        return current;
+    }
+
+    /**
+     * Encodes the zigzag varint deltas between the consecutive values starting from zero
+     * @param address Target address with at least {@link #deltaVarLongsSize(long[], int, int)} bytes available
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     */
+    static void putDeltaVarLongs(long address, long[] values, int index, int length) {
+        long current = address;
+        long previous = 0;
+        for (int i = index; i < index + length; i++) {
+            current = putVarLong(current, zigzag(values[i] - previous));
+            previous = values[i];
+        }
+    }
+
+    /**
+     * Encodes the zigzag varint deltas between the consecutive values starting from zero
+     * @param address Target address with at least {@link #deltaVarIntsSize(int[], int, int)} bytes available
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     */
+    static void putDeltaVarInts(long address, int[] values, int index, int length) {
+        long current = address;
+        int previous = 0;
+        for (int i = index; i < index + length; i++) {
+            current = putVarLong(current, zigzag(values[i] - previous) & Mem.INTEGER_MASK);
+            previous = values[i];
+        }
+    }
+
+    /**
+     * Reads 8 bytes as a little-endian word, requires {@link #WORD_DECODING}
+     * @param address Address with at least 8 bytes available
+     * @return Word with the first byte in the lowest bits
+     */
+    static long getWord(long address) {
+        long word = Jvm.getLong(address);
+        return MemOps.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+    }
+
+    /**
+     * Finds the length of the varint which starts the word
+     * @param word Word returned by {@link #getWord(long)}
+     * @return Length from 1 to 8, or 0 if the varint is longer than the word
+     */
+    static int wordVarLongLength(long word) {
+        long terminators = ~word & VARINT_CONTINUATION_BITS;
+        if (terminators == 0) {
+            return 0;
+        }
+        return (Long.numberOfTrailingZeros(terminators) >>> BYTE_SHIFT) + 1;
+    }
+
+    /**
+     * Decodes the varint which starts the word
+     * @param word Word returned by {@link #getWord(long)}
+     * @param length Length returned by {@link #wordVarLongLength(long)}, must be positive
+     * @return Decoded value
+     */
+    static long getWordVarLong(long word, int length) {
+        long x = word & (-1L >>> (Long.SIZE - (length << BYTE_SHIFT)));
+
+        x = (x & PACK_BYTES_LOW) | ((x & PACK_BYTES_HIGH) >>> 1);
+        x = (x & PACK_SHORTS_LOW) | ((x & PACK_SHORTS_HIGH) >>> 2);
+        x = (x & PACK_INTS_LOW) | ((x & PACK_INTS_HIGH) >>> PACK_INTS_SHIFT);
+
+        return x;
+    }
+
+    /**
+     * Finds the length of the varint byte by byte
+     * @param address Address of the varint
+     * @param available Count of bytes available at the address
+     * @return Length from 1 to {@link #MAX_VARLONG_LENGTH}, or -1 if there is no last byte within the range
+     */
+    static int varLongLength(long address, long available) {
+        int limit = (int) Math.min(available, MAX_VARLONG_LENGTH);
+
+        for (int i = 0; i < limit; i++) {
+            if (Jvm.getByte(address + i) >= 0) {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Decodes the varint byte by byte
+     * @param address Address of the varint
+     * @param length Length returned by {@link #varLongLength(long, long)}, must be positive
+     * @return Decoded value
+     */
+    static long getVarLong(long address, int length) {
+        long value = 0;
+
+        for (int i = 0; i < length; i++) {
+            value |= (long) (Jvm.getByte(address + i) & VARINT_PAYLOAD_MASK) << (i * VARINT_PAYLOAD_BITS);
+        }
+
+        return value;
+    }
+
+    private static void checkAvailable(long current, int bytes, long limit) throws UTFDataFormatException {
+        if (limit - current < bytes) {
+            throw new UTFDataFormatException("Malformed input: partial character at end");
+        }
+    }
+
+    private static int tail(long current, int index) throws UTFDataFormatException {
+        int c = Jvm.getByte(current + index);
+        if ((c & TAIL_MASK) != TAIL) {
+            throw new UTFDataFormatException("Malformed input around byte " + index);
+        }
+        return c & TAIL_BITS;
+    }
+
+}
@@ -0,0 +1,305 @@
+package org.opl.access;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+
+/**
+ * <p>Growable off-heap {@link DataOutput} for records of unpredictable size</p>
+ *
+ * <p>The buffer starts with a small block and doubles it through {@link MemoryBlockFactory#reallocate}
+ * when the data doesn't fit, so neither over-allocation nor a sizing pass with {@link MemoryCalculator}
+ * is needed. The format is the same as of {@link MemoryAccessor} with the same byte order, including
+ * varints and varint deltas.</p>
+ *
+ * <p>The written range is available with {@link #written()} while the buffer owns the block, or could be
+ * taken over with {@link #detach()}. Closing the buffer frees the block unless it has been detached.</p>
+ */
+@NotThreadSafe
+public class MemoryOutputBuffer extends OutputStream implements DataOutput {
+
+    public static final long DEFAULT_INITIAL_CAPACITY_BYTES = 256;
+
+    private static final int GROWTH_SHIFT = 1;
+
+    private final MemoryBlockFactory factory;
+
+    private final ByteOrder order;
+
+    private final boolean swap;
+
+    private MemoryBlock block;
+
+    private long base;
+
+    private long capacity;
+
+    private long size;
+
+    public MemoryOutputBuffer(MemoryBlockFactory factory) {
+        this(factory, DEFAULT_INITIAL_CAPACITY_BYTES, ByteOrder.BIG_ENDIAN);
+    }
+
+    public MemoryOutputBuffer(MemoryBlockFactory factory, long initialCapacity, ByteOrder order) {
+        OplUtils.checkNotNull(factory, "Factory is not specified");
+        OplUtils.checkGreaterThanZero(initialCapacity, "Initial capacity must be positive");
+        OplUtils.checkNotNull(order, "Byte order is not specified");
+
+        this.factory = factory;
+        this.order = order;
+        this.swap = order != ByteOrder.nativeOrder();
+        this.block = factory.allocate(initialCapacity);
+        this.base = block.address();
+        this.capacity = initialCapacity;
+        this.size = 0;
+    }
+
+    public ByteOrder order() {
+        return order;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Discards the written data keeping the allocated block for reuse
+     */
+    public void reset() {
+        this.size = 0;
+    }
+
+    /**
+     * Returns the written range
+     * @return Slice of the owned block which gets invalid on the next write, detach or close
+     * @throws IllegalStateException if the buffer is closed or detached
+     */
+    public MemoryBlock written() {
+        checkOpen();
+
+        return block.sliceFirst(size);
+    }
+
+    /**
+     * Passes the ownership of the written data to the caller, the buffer gets closed
+     * @return Block of exactly {@link #size()} bytes to be freed with the factory of the buffer
+     * @throws IllegalStateException if the buffer is empty, closed or detached
+     */
+    public MemoryBlock detach() {
+        checkOpen();
+
+        if (size == 0) {
+            throw new IllegalStateException("Buffer is empty");
+        }
+
+        MemoryBlock result = size == capacity ? block : factory.reallocate(block, size);
+
+        release();
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (block != null) {
+            factory.free(block);
+            release();
+        }
+    }
+
+    private void release() {
+        this.block = null;
+        this.base = 0;
+        this.capacity = 0;
+        this.size = 0;
+    }
+
+    private void checkOpen() {
+        if (block == null) {
+            throw new IllegalStateException("Buffer is closed");
+        }
+    }
+
+    private long claim(long bytes) throws IOException {
+        long current = size;
+
+        if (capacity - current < bytes) {
+            grow(current + bytes);
+        }
+
+        this.size = current + bytes;
+
+        return base + current;
+    }
+
+    private void grow(long required) throws IOException {
+        if (block == null) {
+            throw new IOException("Buffer is closed");
+        }
+
+        long newCapacity = Math.max(required, capacity << GROWTH_SHIFT);
+
+        this.block = factory.reallocate(block, newCapacity);
+        this.base = block.address();
+        this.capacity = newCapacity;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        Jvm.putByte(claim(Mem.BYTE_SIZE_BYTES), (byte) b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        if (b == null) {
+            throw new NullPointerException("Accepting array is not specified");
+        }
+
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        MemoryCodec.checkArray(b, off, len);
+
+        MemoryCodec.putBytes(claim(len), b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        Jvm.putByte(claim(Mem.BYTE_SIZE_BYTES), (byte) (v ? 1 : 0));
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        Jvm.putByte(claim(Mem.BYTE_SIZE_BYTES), (byte) v);
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        MemoryCodec.putShort(claim(Mem.SHORT_SIZE_BYTES), (short) v, swap);
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        MemoryCodec.putChar(claim(Mem.CHAR_SIZE_BYTES), (char) v, swap);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        MemoryCodec.putInt(claim(Mem.INTEGER_SIZE_BYTES), v, swap);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        MemoryCodec.putLong(claim(Mem.LONG_SIZE_BYTES), v, swap);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        MemoryCodec.putBytes(claim(Mem.BYTE_SIZE_BYTES * s.length()), s);
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        MemoryCodec.putChars(claim(Mem.CHAR_SIZE_BYTES * s.length()), s, swap);
+    }
+
+    /**
+     * Writes the unsigned LEB128 varint of 1 to 10 bytes
+     * @param v Value treated as unsigned
+     * @throws IOException if the buffer is closed
+     */
+    public void writeVarLong(long v) throws IOException {
+        MemoryCodec.putVarLong(claim(MemoryCodec.varLongSize(v)), v);
+    }
+
+    /**
+     * Writes the unsigned LEB128 varint of 1 to 5 bytes
+     * @param v Value treated as unsigned
+     * @throws IOException if the buffer is closed
+     */
+    public void writeVarInt(int v) throws IOException {
+        writeVarLong(v & Mem.INTEGER_MASK);
+    }
+
+    /**
+     * Writes the zigzag-encoded varint, so small negative values are short as well
+     * @param v Value
+     * @throws IOException if the buffer is closed
+     */
+    public void writeSignedVarLong(long v) throws IOException {
+        writeVarLong(MemoryCodec.zigzag(v));
+    }
+
+    /**
+     * Writes the zigzag-encoded varint, so small negative values are short as well
+     * @param v Value
+     * @throws IOException if the buffer is closed
+     */
+    public void writeSignedVarInt(int v) throws IOException {
+        writeVarInt(MemoryCodec.zigzag(v));
+    }
+
+    /**
+     * Writes the zigzag-encoded varint deltas between the consecutive values starting from zero,
+     * the count of values is not written
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     * @throws IOException if the buffer is closed
+     */
+    public void writeDeltaVarLongs(long[] values, int index, int length) throws IOException {
+        MemoryCodec.checkRange(values.length, index, length);
+
+        long target = claim(MemoryCodec.deltaVarLongsSize(values, index, length));
+        MemoryCodec.putDeltaVarLongs(target, values, index, length);
+    }
+
+    /**
+     * Writes the zigzag-encoded varint deltas between the consecutive values starting from zero,
+     * the count of values is not written
+     * @param values Values
+     * @param index Index of the first value
+     * @param length Count of values
+     * @throws IOException if the buffer is closed
+     */
+    public void writeDeltaVarInts(int[] values, int index, int length) throws IOException {
+        MemoryCodec.checkRange(values.length, index, length);
+
+        long target = claim(MemoryCodec.deltaVarIntsSize(values, index, length));
+        MemoryCodec.putDeltaVarInts(target, values, index, length);
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        int utfLength = MemoryCodec.utfLength(s);
+
+        long target = claim(MemoryCodec.UTF_LENGTH_SIZE_BYTES + utfLength);
+        MemoryCodec.putPrefixedUTF(target, s, utfLength, swap);
+    }
+
+}
@@ -1,5 +1,7 @@
 package org.opl.access.block;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * <p>Immutable wrapper for memory block described by pair (address, size)</p>
  * <p>Includes some address arithmetic and safety wrapper</p>
@@ -22,18 +24,64 @@ public interface MemoryBlock {
 
     void fill(byte value);
 
+    void fill(ForkJoinPool pool, byte value);
+
+    void pretouch();
+
+    void pretouch(ForkJoinPool pool);
+
     void copyTo(MemoryBlockDirect that);
 
     void copyTo(MemoryBlockDirect that, long size);
 
     void copyTo(long thisOffset, MemoryBlockDirect that, long thatOffset, long size);
 
+    void copyTo(ForkJoinPool pool, long thisOffset, MemoryBlockDirect that, long thatOffset, long size);
+
+    void copyFrom(long thisOffset, byte[] src, int srcIndex, int length);
+
+    void copyTo(long thisOffset, byte[] dst, int dstIndex, int length);
+
+    void copyFrom(long thisOffset, short[] src, int srcIndex, int length);
+
+    void copyTo(long thisOffset, short[] dst, int dstIndex, int length);
+
+    void copyFrom(long thisOffset, char[] src, int srcIndex, int length);
+
+    void copyTo(long thisOffset, char[] dst, int dstIndex, int length);
+
+    void copyFrom(long thisOffset, int[] src, int srcIndex, int length);
+
+    void copyTo(long thisOffset, int[] dst, int dstIndex, int length);
+
+    void copyFrom(long thisOffset, long[] src, int srcIndex, int length);
+
+    void copyTo(long thisOffset, long[] dst, int dstIndex, int length);
+
+    void copyFrom(long thisOffset, float[] src, int srcIndex, int length);
+
+    void copyTo(long thisOffset, float[] dst, int dstIndex, int length);
+
+    void copyFrom(long thisOffset, double[] src, int srcIndex, int length);
+
+    void copyTo(long thisOffset, double[] dst, int dstIndex, int length);
+
     int compareTo(MemoryBlockDirect that);
 
     int compareTo(MemoryBlockDirect that, long size);
 
     int compareTo(long thisOffset, MemoryBlockDirect that, long thatOffset, long size);
 
+    long mismatch(long thisOffset, MemoryBlockDirect that, long thatOffset, long size);
+
+    boolean equals(long thisOffset, MemoryBlockDirect that, long thatOffset, long size);
+
+    long indexOf(long offset, long size, byte value);
+
+    long lastIndexOf(long offset, long size, byte value);
+
+    long indexOf(long offset, long size, MemoryBlock pattern);
+
     MemoryBlock slice(long offset, long size);
 
     MemoryBlock sliceFirst(long size);
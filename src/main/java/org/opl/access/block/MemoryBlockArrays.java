@@ -0,0 +1,124 @@
+package org.opl.access.block;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.MemOps;
+
+/**
+ * Transfers between native memory and primitive arrays, shared by the block implementations. The array range is
+ * checked here, the memory range is checked by the caller. The owner block is kept reachable until the transfer
+ * completes.
+ */
+final class MemoryBlockArrays {
+
+    private MemoryBlockArrays() {
+        // nothing to do in an utility class
+    }
+
+    static void copyFrom(MemoryBlock owner, long address, byte[] src, int srcIndex, int length) {
+        long srcOffset = arrayOffset(src.length, srcIndex, length,
+            Jvm.ARRAY_BYTE_BASE_OFFSET, Jvm.ARRAY_BYTE_INDEX_SCALE);
+        MemOps.copy(src, srcOffset, null, address, (long) length * Jvm.ARRAY_BYTE_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyTo(MemoryBlock owner, long address, byte[] dst, int dstIndex, int length) {
+        long dstOffset = arrayOffset(dst.length, dstIndex, length,
+            Jvm.ARRAY_BYTE_BASE_OFFSET, Jvm.ARRAY_BYTE_INDEX_SCALE);
+        MemOps.copy(null, address, dst, dstOffset, (long) length * Jvm.ARRAY_BYTE_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyFrom(MemoryBlock owner, long address, short[] src, int srcIndex, int length) {
+        long srcOffset = arrayOffset(src.length, srcIndex, length,
+            Jvm.ARRAY_SHORT_BASE_OFFSET, Jvm.ARRAY_SHORT_INDEX_SCALE);
+        MemOps.copy(src, srcOffset, null, address, (long) length * Jvm.ARRAY_SHORT_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyTo(MemoryBlock owner, long address, short[] dst, int dstIndex, int length) {
+        long dstOffset = arrayOffset(dst.length, dstIndex, length,
+            Jvm.ARRAY_SHORT_BASE_OFFSET, Jvm.ARRAY_SHORT_INDEX_SCALE);
+        MemOps.copy(null, address, dst, dstOffset, (long) length * Jvm.ARRAY_SHORT_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyFrom(MemoryBlock owner, long address, char[] src, int srcIndex, int length) {
+        long srcOffset = arrayOffset(src.length, srcIndex, length,
+            Jvm.ARRAY_CHAR_BASE_OFFSET, Jvm.ARRAY_CHAR_INDEX_SCALE);
+        MemOps.copy(src, srcOffset, null, address, (long) length * Jvm.ARRAY_CHAR_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyTo(MemoryBlock owner, long address, char[] dst, int dstIndex, int length) {
+        long dstOffset = arrayOffset(dst.length, dstIndex, length,
+            Jvm.ARRAY_CHAR_BASE_OFFSET, Jvm.ARRAY_CHAR_INDEX_SCALE);
+        MemOps.copy(null, address, dst, dstOffset, (long) length * Jvm.ARRAY_CHAR_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyFrom(MemoryBlock owner, long address, int[] src, int srcIndex, int length) {
+        long srcOffset = arrayOffset(src.length, srcIndex, length,
+            Jvm.ARRAY_INT_BASE_OFFSET, Jvm.ARRAY_INT_INDEX_SCALE);
+        MemOps.copy(src, srcOffset, null, address, (long) length * Jvm.ARRAY_INT_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyTo(MemoryBlock owner, long address, int[] dst, int dstIndex, int length) {
+        long dstOffset = arrayOffset(dst.length, dstIndex, length,
+            Jvm.ARRAY_INT_BASE_OFFSET, Jvm.ARRAY_INT_INDEX_SCALE);
+        MemOps.copy(null, address, dst, dstOffset, (long) length * Jvm.ARRAY_INT_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyFrom(MemoryBlock owner, long address, long[] src, int srcIndex, int length) {
+        long srcOffset = arrayOffset(src.length, srcIndex, length,
+            Jvm.ARRAY_LONG_BASE_OFFSET, Jvm.ARRAY_LONG_INDEX_SCALE);
+        MemOps.copy(src, srcOffset, null, address, (long) length * Jvm.ARRAY_LONG_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyTo(MemoryBlock owner, long address, long[] dst, int dstIndex, int length) {
+        long dstOffset = arrayOffset(dst.length, dstIndex, length,
+            Jvm.ARRAY_LONG_BASE_OFFSET, Jvm.ARRAY_LONG_INDEX_SCALE);
+        MemOps.copy(null, address, dst, dstOffset, (long) length * Jvm.ARRAY_LONG_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyFrom(MemoryBlock owner, long address, float[] src, int srcIndex, int length) {
+        long srcOffset = arrayOffset(src.length, srcIndex, length,
+            Jvm.ARRAY_FLOAT_BASE_OFFSET, Jvm.ARRAY_FLOAT_INDEX_SCALE);
+        MemOps.copy(src, srcOffset, null, address, (long) length * Jvm.ARRAY_FLOAT_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyTo(MemoryBlock owner, long address, float[] dst, int dstIndex, int length) {
+        long dstOffset = arrayOffset(dst.length, dstIndex, length,
+            Jvm.ARRAY_FLOAT_BASE_OFFSET, Jvm.ARRAY_FLOAT_INDEX_SCALE);
+        MemOps.copy(null, address, dst, dstOffset, (long) length * Jvm.ARRAY_FLOAT_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyFrom(MemoryBlock owner, long address, double[] src, int srcIndex, int length) {
+        long srcOffset = arrayOffset(src.length, srcIndex, length,
+            Jvm.ARRAY_DOUBLE_BASE_OFFSET, Jvm.ARRAY_DOUBLE_INDEX_SCALE);
+        MemOps.copy(src, srcOffset, null, address, (long) length * Jvm.ARRAY_DOUBLE_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    static void copyTo(MemoryBlock owner, long address, double[] dst, int dstIndex, int length) {
+        long dstOffset = arrayOffset(dst.length, dstIndex, length,
+            Jvm.ARRAY_DOUBLE_BASE_OFFSET, Jvm.ARRAY_DOUBLE_INDEX_SCALE);
+        MemOps.copy(null, address, dst, dstOffset, (long) length * Jvm.ARRAY_DOUBLE_INDEX_SCALE);
+        MemoryBlockDirect.reachabilityFence(owner);
+    }
+
+    private static long arrayOffset(int arrayLength, int index, int length, long baseOffset, long indexScale) {
+        if (index < 0 || length < 0 || index > arrayLength - length) {
+            throw new ArrayIndexOutOfBoundsException(
+                String.format("Range [%d, %d) is out of array bounds [0, %d)", index, index + length, arrayLength));
+        }
+
+        return baseOffset + index * indexScale;
+    }
+
+}
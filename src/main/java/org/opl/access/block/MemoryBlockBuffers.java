@@ -0,0 +1,98 @@
+package org.opl.access.block;
+
+import org.opl.platform.DirectBuffers;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Zero-copy bridge between memory blocks and direct NIO buffers. The views are ordinary direct buffers, so
+ * they can be passed straight to {@link java.nio.channels.FileChannel} and
+ * {@link java.nio.channels.SocketChannel} reads and writes (including the scattering and gathering ones).</p>
+ *
+ * <p>Neither a view nor a wrapped buffer owns the memory: the block must not be released while its views are in
+ * use. A view keeps a reference to its block, so a block of a factory in the cleaning mode is not reclaimed while
+ * any of its views is reachable. A wrapped block keeps a reference to its buffer and can't be released with
+ * {@link MemoryBlockFactory}.</p>
+ */
+public final class MemoryBlockBuffers {
+
+    /** Maximal size of a single view produced by {@link #asByteBuffers(MemoryBlock)} (multiple of 8 bytes) */
+    public static final int MAX_VIEW_SIZE_BYTES = (int) (Integer.MAX_VALUE & -Mem.LONG_SIZE_BYTES);
+
+    private MemoryBlockBuffers() {
+        // nothing to do in an utility class
+    }
+
+    /**
+     * Creates a buffer view of the whole block
+     * @param block Memory block (at most {@link Integer#MAX_VALUE} bytes)
+     * @return Direct buffer over the block memory
+     */
+    public static ByteBuffer asByteBuffer(MemoryBlock block) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        return asByteBuffer(block, 0, block.size());
+    }
+
+    /**
+     * Creates a buffer view of a block range
+     * @param block Memory block
+     * @param offset Offset of the range inside of the block
+     * @param size Size of the range (at most {@link Integer#MAX_VALUE} bytes)
+     * @return Direct buffer over the range
+     */
+    public static ByteBuffer asByteBuffer(MemoryBlock block, long offset, long size) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        if (offset < 0 || size < 0 || offset > block.size() - size) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d) is out of block bounds [0, %d)", offset, offset + size, block.size()));
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                String.format("Range of %d bytes is too large for a single buffer, use asByteBuffers()", size));
+        }
+
+        return DirectBuffers.view(block.address(offset), (int) size, block);
+    }
+
+    /**
+     * Creates buffer views of consecutive parts of the block. A block up to {@link #MAX_VIEW_SIZE_BYTES} gives a
+     * single view, a larger block is split into views of {@link #MAX_VIEW_SIZE_BYTES} and the remainder.
+     * @param block Memory block of any size
+     * @return Direct buffers which cover the whole block
+     */
+    public static ByteBuffer[] asByteBuffers(MemoryBlock block) {
+        OplUtils.checkNotNull(block, "Block is not specified");
+
+        final long size = block.size();
+        final int count = (int) ((size + MAX_VIEW_SIZE_BYTES - 1) / MAX_VIEW_SIZE_BYTES);
+
+        final ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            final long offset = (long) i * MAX_VIEW_SIZE_BYTES;
+            buffers[i] = asByteBuffer(block, offset, Math.min(MAX_VIEW_SIZE_BYTES, size - offset));
+        }
+
+        return buffers;
+    }
+
+    /**
+     * Wraps the remaining part of a direct buffer (between the position and the limit) as a memory block. Works
+     * for {@link java.nio.MappedByteBuffer} as well.
+     * @param buffer Direct buffer
+     * @return Memory block over the buffer memory
+     */
+    public static MemoryBlock wrap(ByteBuffer buffer) {
+        OplUtils.checkNotNull(buffer, "Buffer is not specified");
+
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Only a direct buffer can be wrapped, got a heap one: " + buffer);
+        }
+
+        return new MemoryBlockWrapped(DirectBuffers.address(buffer) + buffer.position(), buffer.remaining(), buffer);
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.opl.access.block;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+
+/**
+ * <p>Background reclamation of memory blocks which have become unreachable without being released. A single
+ * daemon thread serves all factories with the cleaning mode enabled.</p>
+ *
+ * <p>java.lang.ref.Cleaner is not available on Java 8, so the same is done with a {@link PhantomReference} and
+ * a {@link ReferenceQueue}.</p>
+ */
+final class MemoryBlockCleaner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryBlockCleaner.class);
+
+    private static final ReferenceQueue<MemoryBlock> QUEUE = new ReferenceQueue<>();
+
+    static {
+        Thread thread = new Thread(MemoryBlockCleaner::run, "opl-memory-block-cleaner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private MemoryBlockCleaner() {
+        // nothing to do in an utility class
+    }
+
+    static BlockReference register(MemoryBlockFactory factory, MemoryBlock block, boolean aligned) {
+        return new BlockReference(factory, block, aligned);
+    }
+
+    private static void run() {
+        while (true) {
+            try {
+                BlockReference reference = (BlockReference) QUEUE.remove();
+                reference.factory.reclaim(reference);
+            } catch (InterruptedException e) {
+                LOGGER.debug("Memory block cleaner is interrupted", e);
+            } catch (RuntimeException e) {
+                LOGGER.error("Fail to reclaim a leaked memory block", e);
+            }
+        }
+    }
+
+    /**
+     * Reference to the top-level block which keeps everything required to release the block memory
+     */
+    static final class BlockReference extends PhantomReference<MemoryBlock> {
+
+        private final MemoryBlockFactory factory;
+
+        private final long address;
+
+        private final long size;
+
+        private final boolean aligned;
+
+        private BlockReference(MemoryBlockFactory factory, MemoryBlock block, boolean aligned) {
+            super(block, QUEUE);
+
+            this.factory = factory;
+            this.address = block.address();
+            this.size = block.size();
+            this.aligned = aligned;
+        }
+
+        long getAddress() {
+            return address;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        boolean isAligned() {
+            return aligned;
+        }
+
+    }
+
+}
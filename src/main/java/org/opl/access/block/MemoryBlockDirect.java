@@ -1,9 +1,11 @@
 package org.opl.access.block;
 
 import org.opl.platform.Jvm;
+import org.opl.platform.MemOps;
 import org.opl.util.OplUtils;
 
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 public class MemoryBlockDirect implements MemoryBlock {
 
@@ -15,16 +17,31 @@ public class MemoryBlockDirect implements MemoryBlock {
 
     private final MemoryBlock parent;
 
+    private final boolean tracked;
+
     public MemoryBlockDirect(long address, long size) {
-        this(address, size, null);
+        this(address, size, null, false);
     }
 
     public MemoryBlockDirect(long address, long size, MemoryBlock parent) {
+        this(address, size, parent, isTracked(parent));
+    }
+
+    /**
+     * Constructs a block
+     * @param address Address of the block
+     * @param size Size of the block
+     * @param parent Parent block or <code>null</code> for a top-level one
+     * @param tracked If set to <code>true</code> then the block is tracked by a factory in the cleaning mode,
+     *                so the native operations keep it reachable until they complete
+     */
+    MemoryBlockDirect(long address, long size, MemoryBlock parent, boolean tracked) {
         OplUtils.checkGreaterOrEqualZero(size, "Size must be positive or zero");
 
         this.address = address;
         this.size = size;
         this.parent = parent;
+        this.tracked = tracked;
     }
 
     @Override
@@ -86,6 +103,25 @@ public class MemoryBlockDirect implements MemoryBlock {
     @Override
     public void fill(byte value) {
         Jvm.setMemory(this.address, this.size, value);
+        reachabilityFence();
+    }
+
+    @Override
+    public void fill(ForkJoinPool pool, byte value) {
+        MemOps.fill(pool, this.address, this.size, value);
+        reachabilityFence();
+    }
+
+    @Override
+    public void pretouch() {
+        MemOps.pretouch(this.address, this.size);
+        reachabilityFence();
+    }
+
+    @Override
+    public void pretouch(ForkJoinPool pool) {
+        MemOps.pretouch(pool, this.address, this.size);
+        reachabilityFence();
     }
 
     @Override
@@ -103,6 +139,85 @@ public class MemoryBlockDirect implements MemoryBlock {
         long a1 = this.address(thisOffset);
         long a2 = that.address(thatOffset);
         Jvm.copyMemory(a1, a2, size);
+        reachabilityFence();
+        that.reachabilityFence();
+    }
+
+    @Override
+    public void copyTo(ForkJoinPool pool, long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        MemOps.copy(pool, this.address(thisOffset), that.address(thatOffset), size);
+        reachabilityFence();
+        that.reachabilityFence();
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, byte[] src, int srcIndex, int length) {
+        MemoryBlockArrays.copyFrom(this, this.address(thisOffset), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, byte[] dst, int dstIndex, int length) {
+        MemoryBlockArrays.copyTo(this, this.address(thisOffset), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, short[] src, int srcIndex, int length) {
+        MemoryBlockArrays.copyFrom(this, this.address(thisOffset), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, short[] dst, int dstIndex, int length) {
+        MemoryBlockArrays.copyTo(this, this.address(thisOffset), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, char[] src, int srcIndex, int length) {
+        MemoryBlockArrays.copyFrom(this, this.address(thisOffset), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, char[] dst, int dstIndex, int length) {
+        MemoryBlockArrays.copyTo(this, this.address(thisOffset), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, int[] src, int srcIndex, int length) {
+        MemoryBlockArrays.copyFrom(this, this.address(thisOffset), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, int[] dst, int dstIndex, int length) {
+        MemoryBlockArrays.copyTo(this, this.address(thisOffset), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, long[] src, int srcIndex, int length) {
+        MemoryBlockArrays.copyFrom(this, this.address(thisOffset), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, long[] dst, int dstIndex, int length) {
+        MemoryBlockArrays.copyTo(this, this.address(thisOffset), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, float[] src, int srcIndex, int length) {
+        MemoryBlockArrays.copyFrom(this, this.address(thisOffset), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, float[] dst, int dstIndex, int length) {
+        MemoryBlockArrays.copyTo(this, this.address(thisOffset), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, double[] src, int srcIndex, int length) {
+        MemoryBlockArrays.copyFrom(this, this.address(thisOffset), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, double[] dst, int dstIndex, int length) {
+        MemoryBlockArrays.copyTo(this, this.address(thisOffset), dst, dstIndex, length);
     }
 
     @Override
@@ -117,20 +232,55 @@ public class MemoryBlockDirect implements MemoryBlock {
 
     @Override
     public int compareTo(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
-        long a1 = this.address(thisOffset);
-        long a2 = that.address(thatOffset);
+        final int result = MemOps.compare(this.address(thisOffset), that.address(thatOffset), size);
+        reachabilityFence();
+        that.reachabilityFence();
 
-        for (long i = 0; i < size; i++, a1++, a2++) {
-            int b1 = Byte.toUnsignedInt(Jvm.getByte(a1));
-            int b2 = Byte.toUnsignedInt(Jvm.getByte(a2));
+        return result;
+    }
 
-            int r = Integer.compare(b1, b2);
-            if (r != 0) {
-                return r;
-            }
-        }
+    @Override
+    public long mismatch(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        final long result = MemOps.mismatch(this.address(thisOffset), that.address(thatOffset), size);
+        reachabilityFence();
+        that.reachabilityFence();
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        final boolean result = MemOps.equals(this.address(thisOffset), that.address(thatOffset), size);
+        reachabilityFence();
+        that.reachabilityFence();
+
+        return result;
+    }
+
+    @Override
+    public long indexOf(long offset, long size, byte value) {
+        final long result = resultOffset(offset, MemOps.indexOf(this.address(offset), size, value));
+        reachabilityFence();
 
-        return 0;
+        return result;
+    }
+
+    @Override
+    public long lastIndexOf(long offset, long size, byte value) {
+        final long result = resultOffset(offset, MemOps.lastIndexOf(this.address(offset), size, value));
+        reachabilityFence();
+
+        return result;
+    }
+
+    @Override
+    public long indexOf(long offset, long size, MemoryBlock pattern) {
+        final long result =
+            resultOffset(offset, MemOps.indexOf(this.address(offset), size, pattern.address(), pattern.size()));
+        reachabilityFence();
+        reachabilityFence(pattern);
+
+        return result;
     }
 
     @Override
@@ -157,4 +307,56 @@ public class MemoryBlockDirect implements MemoryBlock {
     public String toString() {
         return String.format("[0x%016x]/%d", this.address, this.size);
     }
+
+    /**
+     * Keeps the block strongly reachable up to this point, like <code>Reference.reachabilityFence</code> of
+     * Java 9 does. Is called right after a native operation, otherwise the JIT may find the block unreachable
+     * once its address is loaded, and a factory in the cleaning mode may reclaim the memory in the middle of the
+     * operation. Locks the block itself, and only if it is tracked.
+     */
+    void reachabilityFence() {
+        if (tracked) {
+            synchronized (this) {
+                // the monitor is the fence, the load fence (free on x86) just keeps the section non-empty
+                Jvm.loadFence();
+            }
+        }
+    }
+
+    /**
+     * Keeps the direct block behind a wrapper, a view or a slice strongly reachable up to this point
+     * @param block Memory block of any kind (may be <code>null</code>)
+     * @see #reachabilityFence()
+     */
+    static void reachabilityFence(MemoryBlock block) {
+        MemoryBlockDirect direct = unwrap(block);
+        if (direct != null) {
+            direct.reachabilityFence();
+        }
+    }
+
+    private static boolean isTracked(MemoryBlock block) {
+        MemoryBlockDirect direct = unwrap(block);
+        return direct != null && direct.tracked;
+    }
+
+    private static MemoryBlockDirect unwrap(MemoryBlock block) {
+        MemoryBlock current = block;
+        while (current != null && !(current instanceof MemoryBlockDirect)) {
+            if (current instanceof MemoryBlockSafe) {
+                current = ((MemoryBlockSafe) current).getDelegate();
+            } else if (current instanceof MemoryBlockStamped) {
+                current = ((MemoryBlockStamped) current).getDelegate();
+            } else if (current instanceof MemoryBlockView) {
+                current = current.getParent();
+            } else {
+                return null;
+            }
+        }
+        return (MemoryBlockDirect) current;
+    }
+
+    static long resultOffset(long offset, long index) {
+        return index < 0 ? -1 : offset + index;
+    }
 }
@@ -1,49 +1,148 @@
 package org.opl.access.block;
 
+import org.opl.access.block.MemoryBlockCleaner.BlockReference;
 import org.opl.allocator.Allocator;
 import org.opl.util.OplUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * Abstraction to switch between safe and unsafe memory block implementations
+ * <p>Abstraction to switch between safe and unsafe memory block implementations</p>
+ *
+ * <p>In the cleaning mode every top-level block is tracked with a phantom reference. When a block becomes
+ * unreachable without {@link #free(MemoryBlock)} its memory is released by a background thread and the leak is
+ * counted in {@link #getLeakedBlocks()} and {@link #getLeakedBytes()}. It doesn't replace
+ * {@link #free(MemoryBlock)} - the memory is reclaimed only after a GC cycle. Every allocation and release also
+ * updates a {@link ConcurrentHashMap} of the tracked blocks. The bulk operations of a tracked block (fill, copy,
+ * compare, search) hold its monitor for a moment after the native call to keep the block reachable until they
+ * complete, the blocks of the other factories don't pay for it. Any access by the raw address
+ * ({@link MemoryBlock#address()} with {@link org.opl.platform.Jvm}, accessors, buffers) doesn't: the caller
+ * must keep a reference to the block (or to any of its slices) and use it after the last access, otherwise the
+ * memory may be reclaimed while it is still in use.</p>
+ *
+ * <p>In the stamping mode blocks are wrapped with {@link MemoryBlockStamped}, so the access through a block (or its
+ * slices) after free or reallocation fails fast with {@link IllegalStateException}, as well as a double free.
+ * Only stamped blocks are accepted for release in this mode.</p>
  */
 public class MemoryBlockFactory implements AutoCloseable {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryBlockFactory.class);
+
     private final Allocator allocator;
 
     private final boolean allocatorIsOwned;
 
     private final boolean checking;
 
+    private final boolean stamping;
+
+    private final ConcurrentMap<Long, BlockReference> references;
+
+    private final AtomicLong leakedBlocks;
+
+    private final AtomicLong leakedBytes;
+
+    private boolean closed;
+
     public MemoryBlockFactory(@Nonnull Allocator allocator,
                               boolean allocatorIsOwned,
                               boolean checking)
+    {
+        this(allocator, allocatorIsOwned, checking, false, false);
+    }
+
+    /**
+     * Constructs a factory
+     * @param allocator Allocator instance
+     * @param allocatorIsOwned If set to <code>true</code> then allocator will also be closed on closing
+     * @param checking If set to <code>true</code> then blocks check the bounds on every access
+     * @param cleaning If set to <code>true</code> then leaked blocks are reclaimed after they become unreachable
+     */
+    public MemoryBlockFactory(@Nonnull Allocator allocator,
+                              boolean allocatorIsOwned,
+                              boolean checking,
+                              boolean cleaning)
+    {
+        this(allocator, allocatorIsOwned, checking, cleaning, false);
+    }
+
+    /**
+     * Constructs a factory
+     * @param allocator Allocator instance
+     * @param allocatorIsOwned If set to <code>true</code> then allocator will also be closed on closing
+     * @param checking If set to <code>true</code> then blocks check the bounds on every access
+     * @param cleaning If set to <code>true</code> then leaked blocks are reclaimed after they become unreachable
+     * @param stamping If set to <code>true</code> then blocks detect the access after free or reallocation
+     */
+    public MemoryBlockFactory(@Nonnull Allocator allocator,
+                              boolean allocatorIsOwned,
+                              boolean checking,
+                              boolean cleaning,
+                              boolean stamping)
     {
         OplUtils.checkNotNull(allocator, "Allocator is not specified");
 
         this.allocator = allocator;
         this.allocatorIsOwned = allocatorIsOwned;
         this.checking = checking;
+        this.stamping = stamping;
+        this.references = cleaning ? new ConcurrentHashMap<>() : null;
+        this.leakedBlocks = new AtomicLong(0);
+        this.leakedBytes = new AtomicLong(0);
     }
 
     @Override
     public void close() throws Exception {
+        synchronized (this) {
+            this.closed = true;
+        }
+
+        if (references != null) {
+            references.values().forEach(BlockReference::clear);
+            references.clear();
+        }
+
         if (allocatorIsOwned) {
             allocator.close();
         }
     }
 
     private MemoryBlock createBlock(long address, long size) {
-        MemoryBlockDirect direct = new MemoryBlockDirect(address, size);
+        return createBlock(address, size, false);
+    }
+
+    private MemoryBlock createBlock(long address, long size, boolean aligned) {
+        MemoryBlockDirect direct = new MemoryBlockDirect(address, size, null, references != null);
+
+        // slices refer to the direct block as a parent, so it stays reachable while any slice is in use
+        if (references != null) {
+            references.put(address, MemoryBlockCleaner.register(this, direct, aligned));
+        }
+
+        MemoryBlock block = checking ? new MemoryBlockSafe(direct) : direct;
 
-        if (checking) {
-            return new MemoryBlockSafe(direct);
+        if (stamping) {
+            return new MemoryBlockStamped(block, new MemoryBlockStamp(), 0);
         } else {
-            return direct;
+            return block;
         }
     }
 
+    /**
+     * Creates a reusable view which checks the bounds the same way as the blocks of this factory do. The view
+     * is not tracked by the factory and doesn't have to be released.
+     * @return Empty view
+     */
+    public MemoryBlockView createView() {
+        return new MemoryBlockView(checking);
+    }
+
     /**
      * Allocated the memory block of the specified size
      * @param size Size of the memory block to be allocated
@@ -54,18 +153,48 @@ public class MemoryBlockFactory implements AutoCloseable {
         return createBlock(address, size);
     }
 
+    /**
+     * Allocates the memory block of the specified size filled with zeros
+     * @param size Size of the memory block to be allocated
+     * @return The memory block
+     * @see Allocator#allocateZeroed(long)
+     */
+    public MemoryBlock allocateZeroed(long size) {
+        long address = allocator.allocateZeroed(size);
+        return createBlock(address, size);
+    }
+
+    /**
+     * Allocates the memory block of the specified size at the aligned address
+     * @param size Size of the memory block to be allocated
+     * @param alignment Alignment of the address (power of 2)
+     * @return The memory block (must be released with {@link #freeAligned(MemoryBlock)})
+     * @see Allocator#allocateAligned(long, long)
+     */
+    public MemoryBlock allocateAligned(long size, long alignment) {
+        long address = allocator.allocateAligned(size, alignment);
+        return createBlock(address, size, true);
+    }
+
     /**
      * Reallocates the specified memory block
-     * @param block Memory block to reallocate (gets invalid after reallocation)
+     * @param block Memory block to reallocate (gets invalid after successful reallocation)
      * @param newSize New size of the block
      * @return New memory block with new size
      */
     public MemoryBlock reallocate(@Nonnull MemoryBlock block, long newSize) {
-        if (block.hasParent()) {
-            throw new IllegalStateException("Can't perform operation on child block of " + block.getParent());
-        }
+        checkTopLevel(block);
+
+        long address = block.address();
+        BlockReference reference = references != null ? references.get(address) : null;
+
+        // the block stays valid if the allocator fails
+        long newAddress = allocator.reallocate(address, newSize);
+
+        // the old address may already be handed out to another thread, so only our own reference is removed
+        unregister(address, reference);
+        retire(block);
 
-        long newAddress = allocator.reallocate(block.address(), newSize);
         return createBlock(newAddress, newSize);
     }
 
@@ -75,11 +204,104 @@ public class MemoryBlockFactory implements AutoCloseable {
      * @see Allocator#free(long)
      */
     public void free(@Nonnull MemoryBlock block) {
+        checkTopLevel(block);
+
+        long address = block.address();
+
+        unregister(address);
+        retire(block);
+
+        allocator.free(address);
+    }
+
+    /**
+     * Releases the specified memory block which has been allocated with {@link #allocateAligned(long, long)}
+     * @param block Memory block to release
+     * @see Allocator#freeAligned(long)
+     */
+    public void freeAligned(@Nonnull MemoryBlock block) {
+        checkTopLevel(block);
+
+        long address = block.address();
+
+        unregister(address);
+        retire(block);
+
+        allocator.freeAligned(address);
+    }
+
+    public boolean isCleaning() {
+        return references != null;
+    }
+
+    public boolean isStamping() {
+        return stamping;
+    }
+
+    public long getLeakedBlocks() {
+        return leakedBlocks.get();
+    }
+
+    public long getLeakedBytes() {
+        return leakedBytes.get();
+    }
+
+    private void checkTopLevel(MemoryBlock block) {
+        if (stamping && !(block instanceof MemoryBlockStamped)) {
+            throw new IllegalStateException("Can't perform operation on unstamped block " + block);
+        }
         if (block.hasParent()) {
             throw new IllegalStateException("Can't perform operation on child block of " + block.getParent());
         }
+        if (block instanceof MemoryBlockView) {
+            throw new IllegalStateException("Can't perform operation on view " + block);
+        }
+        if (block instanceof MemoryBlockWrapped) {
+            throw new IllegalStateException("Can't perform operation on wrapped buffer " + block);
+        }
+    }
+
+    private void unregister(long address) {
+        if (references != null) {
+            BlockReference reference = references.remove(address);
+            if (reference != null) {
+                reference.clear();
+            }
+        }
+    }
+
+    private void unregister(long address, BlockReference reference) {
+        if (reference != null && references.remove(address, reference)) {
+            reference.clear();
+        }
+    }
+
+    private static void retire(MemoryBlock block) {
+        if (block instanceof MemoryBlockStamped) {
+            ((MemoryBlockStamped) block).retire();
+        }
+    }
+
+    /**
+     * Releases the memory of a block which has become unreachable without being released
+     * @param reference Reference to the block
+     */
+    synchronized void reclaim(BlockReference reference) {
+        if (closed || !references.remove(reference.getAddress(), reference)) {
+            return;
+        }
+
+        if (reference.isAligned()) {
+            allocator.freeAligned(reference.getAddress());
+        } else {
+            allocator.free(reference.getAddress());
+        }
+
+        leakedBlocks.incrementAndGet();
+        leakedBytes.addAndGet(reference.getSize());
 
-        allocator.free(block.address());
+        LOGGER.warn("Memory block [0x{}] of {} bytes has not been released and is reclaimed",
+            Long.toHexString(reference.getAddress()), reference.getSize());
     }
 
 }
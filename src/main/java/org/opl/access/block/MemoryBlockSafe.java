@@ -1,5 +1,9 @@
 package org.opl.access.block;
 
+import org.opl.platform.Jvm;
+
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Additional superclass of {@link MemoryBlockDirect} to be used in development/test process. Performs
  * additional checks on all operations. Created with {@link MemoryBlockFactory}
@@ -69,6 +73,21 @@ public class MemoryBlockSafe implements MemoryBlock {
         delegate.fill(value);
     }
 
+    @Override
+    public void fill(ForkJoinPool pool, byte value) {
+        delegate.fill(pool, value);
+    }
+
+    @Override
+    public void pretouch() {
+        delegate.pretouch();
+    }
+
+    @Override
+    public void pretouch(ForkJoinPool pool) {
+        delegate.pretouch(pool);
+    }
+
     @Override
     public long size() {
         return delegate.size();
@@ -86,7 +105,7 @@ public class MemoryBlockSafe implements MemoryBlock {
         } else if (offset > this.size()) {
             throw new IndexOutOfBoundsException("Offset exceeds the block size");
         } else {
-            return delegate.address();
+            return delegate.address(offset);
         }
     }
 
@@ -147,6 +166,137 @@ public class MemoryBlockSafe implements MemoryBlock {
         delegate.copyTo(thisOffset, that, thatOffset, size);
     }
 
+    @Override
+    public void copyTo(ForkJoinPool pool, long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        if (thisOffset + size > this.size()) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then this block");
+        }
+        if (thatOffset + size > that.size()) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then that block");
+        }
+
+        delegate.copyTo(pool, thisOffset, that, thatOffset, size);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, byte[] src, int srcIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_BYTE_INDEX_SCALE);
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, byte[] dst, int dstIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_BYTE_INDEX_SCALE);
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, short[] src, int srcIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_SHORT_INDEX_SCALE);
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, short[] dst, int dstIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_SHORT_INDEX_SCALE);
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, char[] src, int srcIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_CHAR_INDEX_SCALE);
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, char[] dst, int dstIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_CHAR_INDEX_SCALE);
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, int[] src, int srcIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_INT_INDEX_SCALE);
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, int[] dst, int dstIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_INT_INDEX_SCALE);
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, long[] src, int srcIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_LONG_INDEX_SCALE);
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, long[] dst, int dstIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_LONG_INDEX_SCALE);
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, float[] src, int srcIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_FLOAT_INDEX_SCALE);
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, float[] dst, int dstIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_FLOAT_INDEX_SCALE);
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, double[] src, int srcIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_DOUBLE_INDEX_SCALE);
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, double[] dst, int dstIndex, int length) {
+        checkRange(thisOffset, (long) length * Jvm.ARRAY_DOUBLE_INDEX_SCALE);
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public long indexOf(long offset, long size, byte value) {
+        checkRange(offset, size);
+
+        return delegate.indexOf(offset, size, value);
+    }
+
+    @Override
+    public long lastIndexOf(long offset, long size, byte value) {
+        checkRange(offset, size);
+
+        return delegate.lastIndexOf(offset, size, value);
+    }
+
+    @Override
+    public long indexOf(long offset, long size, MemoryBlock pattern) {
+        checkRange(offset, size);
+
+        return delegate.indexOf(offset, size, pattern);
+    }
+
     @Override
     public int compareTo(MemoryBlockDirect that) {
         if (this.size() > this.size()) {
@@ -180,4 +330,41 @@ public class MemoryBlockSafe implements MemoryBlock {
         return delegate.compareTo(thisOffset, that, thatOffset, size);
     }
 
+    @Override
+    public long mismatch(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        if (thisOffset + size > this.size()) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then this block");
+        }
+        if (thatOffset + size > that.size()) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then that block");
+        }
+
+        return delegate.mismatch(thisOffset, that, thatOffset, size);
+    }
+
+    @Override
+    public boolean equals(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        if (thisOffset + size > this.size()) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then this block");
+        }
+        if (thatOffset + size > that.size()) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then that block");
+        }
+
+        return delegate.equals(thisOffset, that, thatOffset, size);
+    }
+
+    private void checkRange(long offset, long bytes) {
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("Offset can't be negative");
+        }
+        if (offset + bytes > this.size()) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then this block");
+        }
+    }
+
+    MemoryBlock getDelegate() {
+        return delegate;
+    }
+
 }
@@ -0,0 +1,28 @@
+package org.opl.access.block;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Generation counter shared by a top-level block and all of its slices
+ */
+final class MemoryBlockStamp {
+
+    private static final AtomicIntegerFieldUpdater<MemoryBlockStamp> GENERATION_UPDATER =
+        AtomicIntegerFieldUpdater.newUpdater(MemoryBlockStamp.class, "generation");
+
+    private volatile int generation;
+
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Advances the generation, only one of the concurrent calls with the same expected generation succeeds
+     * @param expected Expected current generation
+     * @return <code>false</code> if the generation has already been advanced
+     */
+    boolean advance(int expected) {
+        return GENERATION_UPDATER.compareAndSet(this, expected, expected + 1);
+    }
+
+}
@@ -0,0 +1,347 @@
+package org.opl.access.block;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Wrapper which detects the use of a block after {@link MemoryBlockFactory#free(MemoryBlock)} or
+ * {@link MemoryBlockFactory#reallocate(MemoryBlock, long)}. Created with {@link MemoryBlockFactory} in the
+ * stamping mode.</p>
+ *
+ * <p>Every allocation gets its own stamp, the block and all of its slices remember the generation of the stamp
+ * at the moment of allocation. Releasing the block advances the generation, so any later access through the
+ * block or its slices fails with {@link IllegalStateException} instead of a silent corruption or a crash.
+ * The check is a single volatile read and comparison, cheap enough for production canaries. Access by the raw
+ * address obtained before the release can't be detected.</p>
+ *
+ * <p>The parent of a slice is stamped as well. A {@link MemoryBlockView} reset over a stamped block checks the
+ * generation only at {@link MemoryBlockView#reset(MemoryBlock, long, long)}, later access through the view
+ * is not checked.</p>
+ */
+public class MemoryBlockStamped implements MemoryBlock {
+
+    private final MemoryBlock delegate;
+
+    private final MemoryBlockStamp stamp;
+
+    private final int generation;
+
+    MemoryBlockStamped(MemoryBlock delegate, MemoryBlockStamp stamp, int generation) {
+        this.delegate = delegate;
+        this.stamp = stamp;
+        this.generation = generation;
+    }
+
+    /**
+     * Checks that the block has not been released yet
+     * @return <code>true</code> if the block can be accessed
+     */
+    public boolean isValid() {
+        return stamp.getGeneration() == generation;
+    }
+
+    @Override
+    public MemoryBlockStamped getParent() {
+        MemoryBlock parent = delegate.getParent();
+        return parent != null ? new MemoryBlockStamped(parent, stamp, generation) : null;
+    }
+
+    @Override
+    public boolean hasParent() {
+        return delegate.hasParent();
+    }
+
+    @Override
+    public long address() {
+        checkGeneration();
+
+        return delegate.address();
+    }
+
+    @Override
+    public long address(long offset) {
+        checkGeneration();
+
+        return delegate.address(offset);
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+
+    @Override
+    public long offset(long address) {
+        checkGeneration();
+
+        return delegate.offset(address);
+    }
+
+    @Override
+    public long available(long address) {
+        checkGeneration();
+
+        return delegate.available(address);
+    }
+
+    @Override
+    public void fill(byte value) {
+        checkGeneration();
+
+        delegate.fill(value);
+    }
+
+    @Override
+    public void fill(ForkJoinPool pool, byte value) {
+        checkGeneration();
+
+        delegate.fill(pool, value);
+    }
+
+    @Override
+    public void pretouch() {
+        checkGeneration();
+
+        delegate.pretouch();
+    }
+
+    @Override
+    public void pretouch(ForkJoinPool pool) {
+        checkGeneration();
+
+        delegate.pretouch(pool);
+    }
+
+    @Override
+    public void copyTo(MemoryBlockDirect that) {
+        checkGeneration();
+
+        delegate.copyTo(that);
+    }
+
+    @Override
+    public void copyTo(MemoryBlockDirect that, long size) {
+        checkGeneration();
+
+        delegate.copyTo(that, size);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, that, thatOffset, size);
+    }
+
+    @Override
+    public void copyTo(ForkJoinPool pool, long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        checkGeneration();
+
+        delegate.copyTo(pool, thisOffset, that, thatOffset, size);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, byte[] src, int srcIndex, int length) {
+        checkGeneration();
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, byte[] dst, int dstIndex, int length) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, short[] src, int srcIndex, int length) {
+        checkGeneration();
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, short[] dst, int dstIndex, int length) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, char[] src, int srcIndex, int length) {
+        checkGeneration();
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, char[] dst, int dstIndex, int length) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, int[] src, int srcIndex, int length) {
+        checkGeneration();
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, int[] dst, int dstIndex, int length) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, long[] src, int srcIndex, int length) {
+        checkGeneration();
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, long[] dst, int dstIndex, int length) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, float[] src, int srcIndex, int length) {
+        checkGeneration();
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, float[] dst, int dstIndex, int length) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, double[] src, int srcIndex, int length) {
+        checkGeneration();
+
+        delegate.copyFrom(thisOffset, src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, double[] dst, int dstIndex, int length) {
+        checkGeneration();
+
+        delegate.copyTo(thisOffset, dst, dstIndex, length);
+    }
+
+    @Override
+    public int compareTo(MemoryBlockDirect that) {
+        checkGeneration();
+
+        return delegate.compareTo(that);
+    }
+
+    @Override
+    public int compareTo(MemoryBlockDirect that, long size) {
+        checkGeneration();
+
+        return delegate.compareTo(that, size);
+    }
+
+    @Override
+    public int compareTo(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        checkGeneration();
+
+        return delegate.compareTo(thisOffset, that, thatOffset, size);
+    }
+
+    @Override
+    public long mismatch(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        checkGeneration();
+
+        return delegate.mismatch(thisOffset, that, thatOffset, size);
+    }
+
+    @Override
+    public boolean equals(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        checkGeneration();
+
+        return delegate.equals(thisOffset, that, thatOffset, size);
+    }
+
+    @Override
+    public long indexOf(long offset, long size, byte value) {
+        checkGeneration();
+
+        return delegate.indexOf(offset, size, value);
+    }
+
+    @Override
+    public long lastIndexOf(long offset, long size, byte value) {
+        checkGeneration();
+
+        return delegate.lastIndexOf(offset, size, value);
+    }
+
+    @Override
+    public long indexOf(long offset, long size, MemoryBlock pattern) {
+        checkGeneration();
+
+        return delegate.indexOf(offset, size, pattern);
+    }
+
+    @Override
+    public MemoryBlockStamped slice(long offset, long size) {
+        checkGeneration();
+
+        return new MemoryBlockStamped(delegate.slice(offset, size), stamp, generation);
+    }
+
+    @Override
+    public MemoryBlockStamped sliceFirst(long size) {
+        checkGeneration();
+
+        return new MemoryBlockStamped(delegate.sliceFirst(size), stamp, generation);
+    }
+
+    @Override
+    public MemoryBlockStamped sliceLast(long size) {
+        checkGeneration();
+
+        return new MemoryBlockStamped(delegate.sliceLast(size), stamp, generation);
+    }
+
+    @Override
+    public String toString() {
+        return delegate + "#" + generation;
+    }
+
+    /**
+     * Invalidates the block and all of its slices
+     */
+    void retire() {
+        if (!stamp.advance(generation)) {
+            throw staleBlock();
+        }
+    }
+
+    private void checkGeneration() {
+        if (stamp.getGeneration() != generation) {
+            throw staleBlock();
+        }
+    }
+
+    private IllegalStateException staleBlock() {
+        return new IllegalStateException(String.format(
+            "Memory block [0x%016x] is used after free or reallocation (generation %d, current %d)",
+            delegate.address(), generation, stamp.getGeneration()));
+    }
+
+    MemoryBlock getDelegate() {
+        return delegate;
+    }
+
+}
@@ -0,0 +1,378 @@
+package org.opl.access.block;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.MemOps;
+import org.opl.util.OplUtils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Mutable flyweight block which is re-pointed with {@link #reset(long, long)} or
+ * {@link #reset(MemoryBlock, long, long)} instead of allocating a new slice for every record in a hot loop:</p>
+ * <pre>
+ * MemoryBlockView record = factory.createView();
+ * for (long offset = 0; offset &lt; block.size(); offset += RECORD_SIZE) {
+ *     record.reset(block, offset, RECORD_SIZE);
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>A checking view validates the ranges like {@link MemoryBlockSafe} does, but without the extra wrapper.
+ * The class is final and keeps no references except the parent, so a view which doesn't escape the method
+ * is also a good candidate for scalar replacement.</p>
+ *
+ * <p>The view must not be stored or shared: {@link #slice(long, long)}, {@link #sliceFirst(long)} and
+ * {@link #sliceLast(long)} return immutable blocks for that. The view and its slices are never released with
+ * {@link MemoryBlockFactory}.</p>
+ */
+@NotThreadSafe
+public final class MemoryBlockView implements MemoryBlock {
+
+    private final boolean checking;
+
+    private long address;
+
+    private long size;
+
+    private MemoryBlock parent;
+
+    /**
+     * Constructs an empty view without bounds checking
+     */
+    public MemoryBlockView() {
+        this(false);
+    }
+
+    /**
+     * Constructs an empty view
+     * @param checking If set to <code>true</code> then the view checks the bounds on every access
+     */
+    public MemoryBlockView(boolean checking) {
+        this.checking = checking;
+    }
+
+    /**
+     * Points the view to a native memory region
+     * @param address Address of the region
+     * @param size Size of the region
+     * @return This view
+     */
+    public MemoryBlockView reset(long address, long size) {
+        OplUtils.checkGreaterOrEqualZero(size, "Size must be positive or zero");
+
+        this.address = address;
+        this.size = size;
+        this.parent = null;
+
+        return this;
+    }
+
+    /**
+     * Points the view to a range of the block, the same as {@link MemoryBlock#slice(long, long)} does
+     * @param block Memory block
+     * @param offset Offset of the range inside of the block
+     * @param size Size of the range
+     * @return This view
+     */
+    public MemoryBlockView reset(MemoryBlock block, long offset, long size) {
+        if (checking && (offset < 0 || size < 0 || offset > block.size() - size)) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d) is out of block bounds [0, %d)", offset, offset + size, block.size()));
+        }
+
+        this.address = block.address() + offset;
+        this.size = size;
+        this.parent = block.hasParent() ? block.getParent() : block;
+
+        return this;
+    }
+
+    public boolean isChecking() {
+        return checking;
+    }
+
+    @Override
+    public MemoryBlock getParent() {
+        return parent;
+    }
+
+    @Override
+    public boolean hasParent() {
+        return parent != null;
+    }
+
+    @Override
+    public long address() {
+        return address;
+    }
+
+    @Override
+    public long address(long offset) {
+        if (checking && (offset < 0 || offset > size)) {
+            throw new IndexOutOfBoundsException("Offset exceeds the block size");
+        }
+
+        return address + offset;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long offset(long address) {
+        final long offset = address - this.address;
+        if (checking && (offset < 0 || offset > size)) {
+            throw new IndexOutOfBoundsException("Offset exceeds the block size");
+        }
+
+        return offset;
+    }
+
+    @Override
+    public long available(long address) {
+        return size - offset(address);
+    }
+
+    @Override
+    public void fill(byte value) {
+        Jvm.setMemory(address, size, value);
+        MemoryBlockDirect.reachabilityFence(parent);
+    }
+
+    @Override
+    public void fill(ForkJoinPool pool, byte value) {
+        MemOps.fill(pool, address, size, value);
+        MemoryBlockDirect.reachabilityFence(parent);
+    }
+
+    @Override
+    public void pretouch() {
+        MemOps.pretouch(address, size);
+        MemoryBlockDirect.reachabilityFence(parent);
+    }
+
+    @Override
+    public void pretouch(ForkJoinPool pool) {
+        MemOps.pretouch(pool, address, size);
+        MemoryBlockDirect.reachabilityFence(parent);
+    }
+
+    @Override
+    public void copyTo(MemoryBlockDirect that) {
+        copyTo(0, that, 0, size);
+    }
+
+    @Override
+    public void copyTo(MemoryBlockDirect that, long size) {
+        copyTo(0, that, 0, size);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        Jvm.copyMemory(rangeAddress(thisOffset, size), thatAddress(that, thatOffset, size), size);
+        MemoryBlockDirect.reachabilityFence(parent);
+        that.reachabilityFence();
+    }
+
+    @Override
+    public void copyTo(ForkJoinPool pool, long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        MemOps.copy(pool, rangeAddress(thisOffset, size), thatAddress(that, thatOffset, size), size);
+        MemoryBlockDirect.reachabilityFence(parent);
+        that.reachabilityFence();
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, byte[] src, int srcIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_BYTE_INDEX_SCALE;
+        MemoryBlockArrays.copyFrom(parent, rangeAddress(thisOffset, bytes), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, byte[] dst, int dstIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_BYTE_INDEX_SCALE;
+        MemoryBlockArrays.copyTo(parent, rangeAddress(thisOffset, bytes), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, short[] src, int srcIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_SHORT_INDEX_SCALE;
+        MemoryBlockArrays.copyFrom(parent, rangeAddress(thisOffset, bytes), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, short[] dst, int dstIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_SHORT_INDEX_SCALE;
+        MemoryBlockArrays.copyTo(parent, rangeAddress(thisOffset, bytes), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, char[] src, int srcIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_CHAR_INDEX_SCALE;
+        MemoryBlockArrays.copyFrom(parent, rangeAddress(thisOffset, bytes), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, char[] dst, int dstIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_CHAR_INDEX_SCALE;
+        MemoryBlockArrays.copyTo(parent, rangeAddress(thisOffset, bytes), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, int[] src, int srcIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_INT_INDEX_SCALE;
+        MemoryBlockArrays.copyFrom(parent, rangeAddress(thisOffset, bytes), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, int[] dst, int dstIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_INT_INDEX_SCALE;
+        MemoryBlockArrays.copyTo(parent, rangeAddress(thisOffset, bytes), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, long[] src, int srcIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_LONG_INDEX_SCALE;
+        MemoryBlockArrays.copyFrom(parent, rangeAddress(thisOffset, bytes), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, long[] dst, int dstIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_LONG_INDEX_SCALE;
+        MemoryBlockArrays.copyTo(parent, rangeAddress(thisOffset, bytes), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, float[] src, int srcIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_FLOAT_INDEX_SCALE;
+        MemoryBlockArrays.copyFrom(parent, rangeAddress(thisOffset, bytes), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, float[] dst, int dstIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_FLOAT_INDEX_SCALE;
+        MemoryBlockArrays.copyTo(parent, rangeAddress(thisOffset, bytes), dst, dstIndex, length);
+    }
+
+    @Override
+    public void copyFrom(long thisOffset, double[] src, int srcIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_DOUBLE_INDEX_SCALE;
+        MemoryBlockArrays.copyFrom(parent, rangeAddress(thisOffset, bytes), src, srcIndex, length);
+    }
+
+    @Override
+    public void copyTo(long thisOffset, double[] dst, int dstIndex, int length) {
+        final long bytes = (long) length * Jvm.ARRAY_DOUBLE_INDEX_SCALE;
+        MemoryBlockArrays.copyTo(parent, rangeAddress(thisOffset, bytes), dst, dstIndex, length);
+    }
+
+    @Override
+    public int compareTo(MemoryBlockDirect that) {
+        return compareTo(0, that, 0, size);
+    }
+
+    @Override
+    public int compareTo(MemoryBlockDirect that, long size) {
+        return compareTo(0, that, 0, size);
+    }
+
+    @Override
+    public int compareTo(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        final int result = MemOps.compare(rangeAddress(thisOffset, size), thatAddress(that, thatOffset, size), size);
+        MemoryBlockDirect.reachabilityFence(parent);
+        that.reachabilityFence();
+
+        return result;
+    }
+
+    @Override
+    public long mismatch(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        final long result = MemOps.mismatch(rangeAddress(thisOffset, size), thatAddress(that, thatOffset, size), size);
+        MemoryBlockDirect.reachabilityFence(parent);
+        that.reachabilityFence();
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(long thisOffset, MemoryBlockDirect that, long thatOffset, long size) {
+        final boolean result = MemOps.equals(rangeAddress(thisOffset, size), thatAddress(that, thatOffset, size), size);
+        MemoryBlockDirect.reachabilityFence(parent);
+        that.reachabilityFence();
+
+        return result;
+    }
+
+    @Override
+    public long indexOf(long offset, long size, byte value) {
+        final long result =
+            MemoryBlockDirect.resultOffset(offset, MemOps.indexOf(rangeAddress(offset, size), size, value));
+        MemoryBlockDirect.reachabilityFence(parent);
+
+        return result;
+    }
+
+    @Override
+    public long lastIndexOf(long offset, long size, byte value) {
+        final long result =
+            MemoryBlockDirect.resultOffset(offset, MemOps.lastIndexOf(rangeAddress(offset, size), size, value));
+        MemoryBlockDirect.reachabilityFence(parent);
+
+        return result;
+    }
+
+    @Override
+    public long indexOf(long offset, long size, MemoryBlock pattern) {
+        final long address = rangeAddress(offset, size);
+        final long result =
+            MemoryBlockDirect.resultOffset(offset, MemOps.indexOf(address, size, pattern.address(), pattern.size()));
+        MemoryBlockDirect.reachabilityFence(parent);
+        MemoryBlockDirect.reachabilityFence(pattern);
+
+        return result;
+    }
+
+    @Override
+    public MemoryBlock slice(long offset, long size) {
+        // a slice of a raw region refers to the view, so it can't be taken for an allocated block
+        final MemoryBlock block = new MemoryBlockDirect(rangeAddress(offset, size), size,
+            parent != null ? parent : this);
+
+        return checking ? new MemoryBlockSafe(block) : block;
+    }
+
+    @Override
+    public MemoryBlock sliceFirst(long size) {
+        return slice(0, size);
+    }
+
+    @Override
+    public MemoryBlock sliceLast(long size) {
+        return slice(this.size - size, size);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[0x%016x]/%d", this.address, this.size);
+    }
+
+    private long rangeAddress(long offset, long bytes) {
+        if (checking && (offset < 0 || bytes < 0 || offset > size - bytes)) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then this block");
+        }
+
+        return address + offset;
+    }
+
+    private long thatAddress(MemoryBlockDirect that, long offset, long bytes) {
+        if (checking && (offset < 0 || bytes < 0 || offset > that.size() - bytes)) {
+            throw new IndexOutOfBoundsException("Size with offset is larger then that block");
+        }
+
+        return that.address(offset);
+    }
+
+}
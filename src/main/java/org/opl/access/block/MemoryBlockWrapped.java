@@ -0,0 +1,37 @@
+package org.opl.access.block;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Block over the memory of a direct buffer, created with {@link MemoryBlockBuffers#wrap(ByteBuffer)}. The memory
+ * belongs to the buffer, so {@link MemoryBlockFactory} refuses to release or reallocate the block. The block and
+ * its slices keep the buffer reachable, including the native operations in progress.
+ */
+final class MemoryBlockWrapped extends MemoryBlockDirect {
+
+    private final ByteBuffer buffer;
+
+    MemoryBlockWrapped(long address, long size, ByteBuffer buffer) {
+        super(address, size, null, true);
+
+        this.buffer = buffer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o)
+            && this.buffer == ((MemoryBlockWrapped) o).buffer;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), System.identityHashCode(buffer));
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " of " + buffer;
+    }
+
+}
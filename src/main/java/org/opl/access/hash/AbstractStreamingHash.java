@@ -0,0 +1,159 @@
+package org.opl.access.hash;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.platform.Jvm;
+
+/**
+ * <p>Base of the hash functions which consume the data by fixed-size stripes. Whole stripes are read right from
+ * the source, the incomplete stripe is accumulated in the buffer until the next update or the finalization.</p>
+ */
+public abstract class AbstractStreamingHash implements StreamingHash {
+
+    private static final long BUFFER_BASE = Jvm.ARRAY_BYTE_BASE_OFFSET;
+
+    private final int stripeSize;
+
+    private final byte[] buffer;
+
+    private int bufferedBytes;
+
+    private long totalLength;
+
+    /**
+     * Constructs the hash
+     * @param stripeSize Count of bytes consumed by {@link #processStripe(Object, long)}
+     */
+    protected AbstractStreamingHash(int stripeSize) {
+        this.stripeSize = stripeSize;
+        this.buffer = new byte[stripeSize];
+    }
+
+    @Override
+    public void update(long address, long size) {
+        append(null, address, size);
+    }
+
+    @Override
+    public void update(MemoryBlock block) {
+        append(null, block.address(), block.size());
+    }
+
+    @Override
+    public void update(MemoryBlock block, long offset, long size) {
+        checkRange(block, offset, size);
+
+        append(null, block.address(offset), size);
+    }
+
+    @Override
+    public void update(int b) {
+        totalLength++;
+        buffer[bufferedBytes++] = (byte) b;
+
+        if (bufferedBytes == stripeSize) {
+            processStripe(buffer, BUFFER_BASE);
+            bufferedBytes = 0;
+        }
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+
+        append(b, BUFFER_BASE + off, len);
+    }
+
+    @Override
+    public final void reset() {
+        totalLength = 0;
+        bufferedBytes = 0;
+
+        resetState();
+    }
+
+    /**
+     * Resets the state of the hash function to the initial one
+     */
+    protected abstract void resetState();
+
+    /**
+     * Consumes a single stripe
+     * @param base Base object (<code>null</code> for native memory)
+     * @param offset Offset of the stripe relative to the base object
+     */
+    protected abstract void processStripe(Object base, long offset);
+
+    /**
+     * Fetches the length of the hashed data
+     * @return Count of bytes consumed since the last reset
+     */
+    protected final long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * Fetches the size of the incomplete stripe
+     * @return Count of bytes in the buffer which don't form a whole stripe yet
+     */
+    protected final int getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    /**
+     * Fetches the buffer as a base object for the reads of the incomplete stripe
+     * @return Buffer with the incomplete stripe, the data starts at {@link Jvm#ARRAY_BYTE_BASE_OFFSET}
+     */
+    protected final Object getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Checks that the range lies inside of the block
+     * @param block Memory block
+     * @param offset Offset of the range inside of the block
+     * @param size Size of the range
+     */
+    protected static void checkRange(MemoryBlock block, long offset, long size) {
+        if (offset < 0 || size < 0 || offset > block.size() - size) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d) is out of block bounds [0, %d)", offset, offset + size, block.size()));
+        }
+    }
+
+    private void append(Object base, long offset, long size) {
+        totalLength += size;
+
+        long position = offset;
+        long remaining = size;
+
+        if (bufferedBytes > 0) {
+            final int fill = (int) Math.min(stripeSize - bufferedBytes, remaining);
+            Jvm.copyMemory(base, position, buffer, BUFFER_BASE + bufferedBytes, fill);
+
+            bufferedBytes += fill;
+            position += fill;
+            remaining -= fill;
+
+            if (bufferedBytes < stripeSize) {
+                return;
+            }
+
+            processStripe(buffer, BUFFER_BASE);
+            bufferedBytes = 0;
+        }
+
+        while (remaining >= stripeSize) {
+            processStripe(base, position);
+            position += stripeSize;
+            remaining -= stripeSize;
+        }
+
+        if (remaining > 0) {
+            Jvm.copyMemory(base, position, buffer, BUFFER_BASE, remaining);
+            bufferedBytes = (int) remaining;
+        }
+    }
+
+}
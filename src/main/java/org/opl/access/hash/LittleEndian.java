@@ -0,0 +1,30 @@
+package org.opl.access.hash;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.MemOps;
+
+/**
+ * Little-endian reads for the hash functions, which are defined over little-endian words. The base object is
+ * <code>null</code> for native memory and an array for on-heap memory.
+ */
+final class LittleEndian {
+
+    private LittleEndian() {
+        // nothing to do in an utility class
+    }
+
+    static long getLong(Object base, long offset) {
+        final long value = Jvm.getLong(base, offset);
+        return MemOps.LITTLE_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    static long getUnsignedInt(Object base, long offset) {
+        final int value = Jvm.getInt(base, offset);
+        return Integer.toUnsignedLong(MemOps.LITTLE_ENDIAN ? value : Integer.reverseBytes(value));
+    }
+
+    static long getUnsignedByte(Object base, long offset) {
+        return Byte.toUnsignedLong(Jvm.getByte(base, offset));
+    }
+
+}
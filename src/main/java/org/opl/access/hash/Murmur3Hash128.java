@@ -0,0 +1,239 @@
+package org.opl.access.hash;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.platform.Jvm;
+
+/**
+ * <p>MurmurHash3 x64 128-bit variant by Austin Appleby. The data is consumed by blocks of 16 bytes, every block
+ * is read as two 64-bit words. The values are equal to the reference implementation on all platforms (the seed
+ * of the reference implementation is 32-bit, so seeds in [0, 2^32) give the same values).</p>
+ *
+ * <p>The 128-bit value is returned as two longs: the low half is the first 8 bytes of the reference digest
+ * (<code>h1</code>) and the high half is the last 8 bytes (<code>h2</code>). The 64-bit value is the low half.</p>
+ */
+public final class Murmur3Hash128 extends AbstractStreamingHash {
+
+    /** Size of the array which receives a 128-bit value */
+    public static final int HASH_128_LENGTH = 2;
+
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private static final int BLOCK_SIZE_BYTES = 16;
+
+    private final long seed;
+
+    private long h1;
+
+    private long h2;
+
+    /**
+     * Constructs an incremental hash with zero seed
+     */
+    public Murmur3Hash128() {
+        this(0);
+    }
+
+    /**
+     * Constructs an incremental hash
+     * @param seed Seed of the hash function
+     */
+    public Murmur3Hash128(long seed) {
+        super(BLOCK_SIZE_BYTES);
+
+        this.seed = seed;
+        this.h1 = seed;
+        this.h2 = seed;
+    }
+
+    /**
+     * Hashes a memory region to the 64-bit value
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param seed Seed of the hash function
+     * @return Low half of the 128-bit value
+     */
+    public static long hash(long address, long size, long seed) {
+        return hashAt(null, address, size, seed, null);
+    }
+
+    /**
+     * Hashes the whole memory block to the 64-bit value
+     * @param block Memory block
+     * @param seed Seed of the hash function
+     * @return Low half of the 128-bit value
+     */
+    public static long hash(MemoryBlock block, long seed) {
+        return hash(block.address(), block.size(), seed);
+    }
+
+    /**
+     * Hashes a range of memory block to the 64-bit value
+     * @param block Memory block
+     * @param offset Offset of the range inside of the block
+     * @param size Size of the range
+     * @param seed Seed of the hash function
+     * @return Low half of the 128-bit value
+     */
+    public static long hash(MemoryBlock block, long offset, long size, long seed) {
+        checkRange(block, offset, size);
+
+        return hash(block.address(offset), size, seed);
+    }
+
+    /**
+     * Hashes a memory region to the 128-bit value
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param seed Seed of the hash function
+     * @param result Array of at least 2 elements which receives the low and the high halves of the value
+     */
+    public static void hash128(long address, long size, long seed, long[] result) {
+        hashAt(null, address, size, seed, result);
+    }
+
+    /**
+     * Hashes a range of memory block to the 128-bit value
+     * @param block Memory block
+     * @param offset Offset of the range inside of the block
+     * @param size Size of the range
+     * @param seed Seed of the hash function
+     * @param result Array of at least 2 elements which receives the low and the high halves of the value
+     */
+    public static void hash128(MemoryBlock block, long offset, long size, long seed, long[] result) {
+        checkRange(block, offset, size);
+
+        hashAt(null, block.address(offset), size, seed, result);
+    }
+
+    /**
+     * Hashes a range of byte array to the 128-bit value
+     * @param array Byte array
+     * @param offset Offset of the range inside of the array
+     * @param length Length of the range
+     * @param seed Seed of the hash function
+     * @param result Array of at least 2 elements which receives the low and the high halves of the value
+     */
+    public static void hash128(byte[] array, int offset, int length, long seed, long[] result) {
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+
+        hashAt(array, Jvm.ARRAY_BYTE_BASE_OFFSET + offset, length, seed, result);
+    }
+
+    @Override
+    public long getValue() {
+        return finish(h1, h2, getBuffer(), Jvm.ARRAY_BYTE_BASE_OFFSET, getBufferedBytes(), getTotalLength(), null);
+    }
+
+    /**
+     * Calculates the 128-bit value of the data consumed so far
+     * @param result Array of at least 2 elements which receives the low and the high halves of the value
+     */
+    public void getValue128(long[] result) {
+        finish(h1, h2, getBuffer(), Jvm.ARRAY_BYTE_BASE_OFFSET, getBufferedBytes(), getTotalLength(), result);
+    }
+
+    @Override
+    protected void resetState() {
+        h1 = seed;
+        h2 = seed;
+    }
+
+    @Override
+    protected void processStripe(Object base, long offset) {
+        h1 ^= mixK1(LittleEndian.getLong(base, offset));
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52DCE729;
+
+        h2 ^= mixK2(LittleEndian.getLong(base, offset + 8));
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495AB5;
+    }
+
+    private static long hashAt(Object base, long offset, long size, long seed, long[] result) {
+        final long end = offset + size;
+
+        long a1 = seed;
+        long a2 = seed;
+        long position = offset;
+
+        while (end - position >= BLOCK_SIZE_BYTES) {
+            a1 ^= mixK1(LittleEndian.getLong(base, position));
+            a1 = Long.rotateLeft(a1, 27) + a2;
+            a1 = a1 * 5 + 0x52DCE729;
+
+            a2 ^= mixK2(LittleEndian.getLong(base, position + 8));
+            a2 = Long.rotateLeft(a2, 31) + a1;
+            a2 = a2 * 5 + 0x38495AB5;
+
+            position += BLOCK_SIZE_BYTES;
+        }
+
+        return finish(a1, a2, base, position, end - position, size, result);
+    }
+
+    private static long finish(long a1, long a2, Object base, long offset, long remaining, long length,
+                               long[] result)
+    {
+        long h1 = a1;
+        long h2 = a2;
+
+        if (remaining > 8) {
+            long k2 = 0;
+            for (long i = remaining - 1; i >= 8; i--) {
+                k2 = k2 << 8 | LittleEndian.getUnsignedByte(base, offset + i);
+            }
+            h2 ^= mixK2(k2);
+        }
+
+        if (remaining > 0) {
+            long k1 = 0;
+            for (long i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+                k1 = k1 << 8 | LittleEndian.getUnsignedByte(base, offset + i);
+            }
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        if (result != null) {
+            result[0] = h1;
+            result[1] = h2;
+        }
+
+        return h1;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        long h = k;
+
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+
+}
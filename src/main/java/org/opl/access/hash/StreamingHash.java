@@ -0,0 +1,34 @@
+package org.opl.access.hash;
+
+import org.opl.access.block.MemoryBlock;
+
+import java.util.zip.Checksum;
+
+/**
+ * Incremental hash function. Feeding the data in several chunks gives the same value as hashing all the data at
+ * once. Instances are not thread-safe.
+ */
+public interface StreamingHash extends Checksum {
+
+    /**
+     * Appends a memory region to the hashed data
+     * @param address Address of the region
+     * @param size Size of the region
+     */
+    void update(long address, long size);
+
+    /**
+     * Appends the whole memory block to the hashed data
+     * @param block Memory block
+     */
+    void update(MemoryBlock block);
+
+    /**
+     * Appends a range of memory block to the hashed data
+     * @param block Memory block
+     * @param offset Offset of the range inside of the block
+     * @param size Size of the range
+     */
+    void update(MemoryBlock block, long offset, long size);
+
+}
@@ -0,0 +1,225 @@
+package org.opl.access.hash;
+
+import org.opl.access.block.MemoryBlock;
+import org.opl.platform.Jvm;
+
+/**
+ * <p>xxHash64 - fast non-cryptographic 64-bit hash function by Yann Collet. The data is consumed by stripes of
+ * 32 bytes, every stripe is read as four 64-bit words. The values are equal to the reference implementation
+ * on all platforms.</p>
+ *
+ * <p>Static methods hash the data at once, an instance hashes the data incrementally:</p>
+ * <pre>
+ * XxHash64 hash = new XxHash64(seed);
+ * hash.update(address1, size1);
+ * hash.update(address2, size2);
+ * long value = hash.getValue();
+ * </pre>
+ */
+public final class XxHash64 extends AbstractStreamingHash {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE_SIZE_BYTES = 32;
+
+    private final long seed;
+
+    private long v1;
+
+    private long v2;
+
+    private long v3;
+
+    private long v4;
+
+    /**
+     * Constructs an incremental hash with zero seed
+     */
+    public XxHash64() {
+        this(0);
+    }
+
+    /**
+     * Constructs an incremental hash
+     * @param seed Seed of the hash function
+     */
+    public XxHash64(long seed) {
+        super(STRIPE_SIZE_BYTES);
+
+        this.seed = seed;
+        this.v1 = seed + PRIME64_1 + PRIME64_2;
+        this.v2 = seed + PRIME64_2;
+        this.v3 = seed;
+        this.v4 = seed - PRIME64_1;
+    }
+
+    /**
+     * Hashes a memory region
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param seed Seed of the hash function
+     * @return Hash value
+     */
+    public static long hash(long address, long size, long seed) {
+        return hashAt(null, address, size, seed);
+    }
+
+    /**
+     * Hashes the whole memory block
+     * @param block Memory block
+     * @param seed Seed of the hash function
+     * @return Hash value
+     */
+    public static long hash(MemoryBlock block, long seed) {
+        return hashAt(null, block.address(), block.size(), seed);
+    }
+
+    /**
+     * Hashes a range of memory block
+     * @param block Memory block
+     * @param offset Offset of the range inside of the block
+     * @param size Size of the range
+     * @param seed Seed of the hash function
+     * @return Hash value
+     */
+    public static long hash(MemoryBlock block, long offset, long size, long seed) {
+        checkRange(block, offset, size);
+
+        return hashAt(null, block.address(offset), size, seed);
+    }
+
+    /**
+     * Hashes a range of byte array
+     * @param array Byte array
+     * @param offset Offset of the range inside of the array
+     * @param length Length of the range
+     * @param seed Seed of the hash function
+     * @return Hash value
+     */
+    public static long hash(byte[] array, int offset, int length, long seed) {
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+
+        return hashAt(array, Jvm.ARRAY_BYTE_BASE_OFFSET + offset, length, seed);
+    }
+
+    @Override
+    public long getValue() {
+        final long totalLength = getTotalLength();
+
+        long h;
+        if (totalLength >= STRIPE_SIZE_BYTES) {
+            h = converge(v1, v2, v3, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+
+        h += totalLength;
+
+        return finish(h, getBuffer(), Jvm.ARRAY_BYTE_BASE_OFFSET, getBufferedBytes());
+    }
+
+    @Override
+    protected void resetState() {
+        v1 = seed + PRIME64_1 + PRIME64_2;
+        v2 = seed + PRIME64_2;
+        v3 = seed;
+        v4 = seed - PRIME64_1;
+    }
+
+    @Override
+    protected void processStripe(Object base, long offset) {
+        v1 = round(v1, LittleEndian.getLong(base, offset));
+        v2 = round(v2, LittleEndian.getLong(base, offset + 8));
+        v3 = round(v3, LittleEndian.getLong(base, offset + 16));
+        v4 = round(v4, LittleEndian.getLong(base, offset + 24));
+    }
+
+    private static long hashAt(Object base, long offset, long size, long seed) {
+        final long end = offset + size;
+
+        long position = offset;
+        long h;
+
+        if (size >= STRIPE_SIZE_BYTES) {
+            long a1 = seed + PRIME64_1 + PRIME64_2;
+            long a2 = seed + PRIME64_2;
+            long a3 = seed;
+            long a4 = seed - PRIME64_1;
+
+            do {
+                a1 = round(a1, LittleEndian.getLong(base, position));
+                a2 = round(a2, LittleEndian.getLong(base, position + 8));
+                a3 = round(a3, LittleEndian.getLong(base, position + 16));
+                a4 = round(a4, LittleEndian.getLong(base, position + 24));
+                position += STRIPE_SIZE_BYTES;
+            } while (end - position >= STRIPE_SIZE_BYTES);
+
+            h = converge(a1, a2, a3, a4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+
+        h += size;
+
+        return finish(h, base, position, end - position);
+    }
+
+    private static long finish(long hash, Object base, long offset, long remaining) {
+        final long end = offset + remaining;
+
+        long h = hash;
+        long position = offset;
+
+        while (end - position >= 8) {
+            h ^= round(0, LittleEndian.getLong(base, position));
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+            position += 8;
+        }
+
+        if (end - position >= 4) {
+            h ^= LittleEndian.getUnsignedInt(base, position) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+            position += 4;
+        }
+
+        while (position < end) {
+            h ^= LittleEndian.getUnsignedByte(base, position) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+            position++;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+
+        return h;
+    }
+
+    private static long converge(long a1, long a2, long a3, long a4) {
+        long h = Long.rotateLeft(a1, 1) + Long.rotateLeft(a2, 7) + Long.rotateLeft(a3, 12) + Long.rotateLeft(a4, 18);
+
+        h = merge(h, a1);
+        h = merge(h, a2);
+        h = merge(h, a3);
+        h = merge(h, a4);
+
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * PRIME64_2, 31) * PRIME64_1;
+    }
+
+    private static long merge(long acc, long value) {
+        return (acc ^ round(0, value)) * PRIME64_1 + PRIME64_4;
+    }
+
+}
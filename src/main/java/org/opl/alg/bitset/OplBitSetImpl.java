@@ -7,6 +7,8 @@ import org.opl.platform.Mem;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
+import java.util.concurrent.ForkJoinPool;
+
 @NotThreadSafe
 public class OplBitSetImpl implements OplBitSet {
 
@@ -16,17 +18,29 @@ public class OplBitSetImpl implements OplBitSet {
 
     private final long size;
 
+    private final ForkJoinPool pool;
+
     public OplBitSetImpl(MemoryBlockFactory factory, long size) {
+        this(factory, size, null);
+    }
+
+    /**
+     * Constructs a bit set
+     * @param factory Factory of the memory block
+     * @param size Count of bits
+     * @param pool If specified then the block is cleared on the pool on reset
+     */
+    public OplBitSetImpl(MemoryBlockFactory factory, long size, ForkJoinPool pool) {
         this.factory = factory;
         this.size = size;
+        this.pool = pool;
 
         if (size > Long.MAX_VALUE - Mem.BYTE_SIZE_BITS) {
             throw new IllegalArgumentException("Size is too huge");
         }
 
         long byteSize = (size + Mem.BYTE_SIZE_BITS - 1) / Mem.BYTE_SIZE_BITS;
-        this.block = factory.allocate(byteSize);
-        this.block.fill((byte) 0);
+        this.block = factory.allocateZeroed(byteSize);
     }
 
     @Override
@@ -87,7 +101,11 @@ public class OplBitSetImpl implements OplBitSet {
 
     @Override
     public void reset() {
-        block.fill((byte) 0);
+        if (pool != null) {
+            block.fill(pool, (byte) 0);
+        } else {
+            block.fill((byte) 0);
+        }
     }
 
     @Override
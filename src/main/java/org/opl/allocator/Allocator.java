@@ -1,5 +1,9 @@
 package org.opl.allocator;
 
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -34,4 +38,68 @@ public interface Allocator extends AutoCloseable {
      */
     void free(long address) throws AllocatorException;
 
+    /**
+     * Allocates specified amount of bytes filled with zeros. Implementations which get zeroed memory for free
+     * (e.g. fresh pages of a mapped file) override this method to avoid the redundant fill.
+     * @param size Required memory size
+     * @return Memory block address
+     * @throws OutOfMemoryError Is thrown when allocator is our of memory
+     * @throws AllocatorException Is thrown on violation of allocator's rule
+     */
+    default long allocateZeroed(long size) throws AllocatorException, OutOfMemoryError {
+        final long address = allocate(size);
+
+        Jvm.setMemory(address, size, (byte) 0);
+
+        return address;
+    }
+
+    /**
+     * <p>Allocates specified amount of bytes at the address which is a multiple of the alignment. Byte values are
+     * undefined after allocation. The block must be released with {@link #freeAligned(long)} and can't be
+     * reallocated.</p>
+     *
+     * <p>The default implementation over-allocates the block by <code>alignment - 1 + 8</code> bytes and keeps
+     * the original address right before the aligned one:</p>
+     * <pre>
+     * +----- ..... -----+------------+----- ..... -----+----- ..... -----+
+     * |     padding     |  original  |   memory block  |     padding     |
+     * |                 |  address   |  for the caller |                 |
+     * |                 | (8 bytes)  |  (`size` bytes) |                 |
+     * +----- ..... -----+------------+----- ..... -----+----- ..... -----+
+     * </pre>
+     *
+     * @param size Required memory size
+     * @param alignment Alignment of the address (power of 2), e.g. {@link Mem#CACHE_LINE_SIZE_BYTES} or
+     *                  {@link Jvm#PAGE_SIZE}
+     * @return Memory block address
+     * @throws OutOfMemoryError Is thrown when allocator is our of memory
+     * @throws AllocatorException Is thrown on violation of allocator's rule
+     */
+    default long allocateAligned(long size, long alignment) throws AllocatorException, OutOfMemoryError {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+        OplUtils.checkPowerOfTwo(alignment, "Alignment must be a power of 2");
+
+        final long headerSize = Mem.LONG_SIZE_BYTES;
+        if (size > Long.MAX_VALUE - alignment - headerSize) {
+            throw new AllocatorException("Requested size is too huge: " + size);
+        }
+
+        final long address = allocate(size + alignment - 1 + headerSize);
+        final long alignedAddress = Mem.alignUp(address + headerSize, alignment);
+
+        Jvm.putLong(alignedAddress - headerSize, address);
+
+        return alignedAddress;
+    }
+
+    /**
+     * Releases memory block which has been allocated with {@link #allocateAligned(long, long)}
+     * @param address Address of memory block
+     * @throws AllocatorException Is thrown on violation of allocator's rule
+     */
+    default void freeAligned(long address) throws AllocatorException {
+        free(Jvm.getLong(address - Mem.LONG_SIZE_BYTES));
+    }
+
 }
@@ -7,6 +7,9 @@ import org.opl.allocator.trace.RegistryAllocatorProxy;
 import javax.annotation.Nonnull;
 import javax.annotation.WillNotClose;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public final class Allocators {
 
     private Allocators() {
@@ -31,6 +34,24 @@ public final class Allocators {
         return new MemoryBlockFactory(allocator, false, false);
     }
 
+    public static Allocator createPooledAllocator(long blockSize) {
+        return new PooledAllocator(createSystemAllocator(), true, blockSize);
+    }
+
+    public static MemoryBlockFactory createPooledMemoryBlockFactory(long blockSize) {
+        return new MemoryBlockFactory(createPooledAllocator(blockSize), true, false);
+    }
+
+    public static Allocator createMappedFileAllocator(@Nonnull Path file, long capacity) throws IOException {
+        return new MappedFileAllocator(file, capacity);
+    }
+
+    public static MemoryBlockFactory createMappedMemoryBlockFactory(@Nonnull Path file, long capacity)
+        throws IOException
+    {
+        return new MemoryBlockFactory(createMappedFileAllocator(file, capacity), true, false);
+    }
+
     public static MemoryBlockFactory createTestMemoryBlockFactory() {
         return new MemoryBlockFactory(createTestAllocator(), true, true);
     }
@@ -0,0 +1,325 @@
+package org.opl.allocator;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <p>Arena (bump-pointer) allocator. Reserves large chunks from a delegate allocator and serves each request
+ * by moving a pointer inside the current chunk.</p>
+ *
+ * <p>Features:</p>
+ * <ul>
+ *     <li>{@link #allocate(long)} is a pointer increment in the common case</li>
+ *     <li>{@link #free(long)} does nothing - memory is released all at once with {@link #reset()} or
+ *     {@link #close()}</li>
+ *     <li>{@link #reallocate(long, long)} grows the last allocated block in place when the chunk has room</li>
+ *     <li>Requests larger than a chunk get a dedicated chunk of their own</li>
+ * </ul>
+ *
+ * <p>The structure of a chunk</p>
+ * <pre>
+ * +------------+------------+------------+----- ..... -----+------------+----- ..... -----+-----
+ * |  previous  |   chunk    | block size |  memory block   | block size |  memory block   | ...
+ * |   chunk    |    size    |            | for the caller  |            | for the caller  |
+ * | (8 bytes)  | (8 bytes)  | (8 bytes)  | (`size` bytes)  | (8 bytes)  | (`size` bytes)  |
+ * +------------+------------+------------+----- ..... -----+------------+----- ..... -----+-----
+ * </pre>
+ *
+ * <p>All blocks are aligned by 8 bytes. {@link #allocateAligned(long, long)} moves the pointer to the required
+ * alignment, so aligned blocks cost no more than the padding.</p>
+ *
+ * <p>Sample usage for a request-scoped workload:</p>
+ * <pre>
+ * ArenaAllocator arena = new ArenaAllocator(new SystemAllocator(), true, 4 * Mem.MB);
+ * try {
+ *     long address = arena.allocate(128);
+ *     ...
+ * } finally {
+ *     arena.reset(); // release everything allocated for the request
+ * }
+ * </pre>
+ */
+public class ArenaAllocator implements Allocator {
+
+    /** Default size of a chunk that is reserved from the delegate allocator */
+    public static final long DEFAULT_CHUNK_SIZE = Mem.MB;
+
+    private static final long CHUNK_HEADER_SIZE_BYTES = Mem.LONG_SIZE_BYTES + Mem.LONG_SIZE_BYTES;
+
+    private static final long BLOCK_HEADER_SIZE_BYTES = Mem.LONG_SIZE_BYTES;
+
+    private static final long BLOCK_ALIGNMENT = Mem.LONG_SIZE_BYTES;
+
+    /** Larger sizes would overflow the block footprint */
+    private static final long MAX_BLOCK_SIZE_BYTES = Long.MAX_VALUE - BLOCK_HEADER_SIZE_BYTES - BLOCK_ALIGNMENT;
+
+    private final Allocator delegate;
+
+    private final boolean delegateIsOwned;
+
+    private final long chunkSize;
+
+    private long chunk;
+
+    private long top;
+
+    private long limit;
+
+    private long reservedBytes;
+
+    private long allocatedBytes;
+
+    /**
+     * Constructs an arena with the default chunk size
+     * @param delegate Delegate allocator which provides chunks
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     */
+    public ArenaAllocator(@Nonnull Allocator delegate,
+                          boolean delegateIsOwned)
+    {
+        this(delegate, delegateIsOwned, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an arena
+     * @param delegate Delegate allocator which provides chunks
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param chunkSize Size of a chunk that is reserved from the delegate allocator at once
+     */
+    public ArenaAllocator(@Nonnull Allocator delegate,
+                          boolean delegateIsOwned,
+                          long chunkSize)
+    {
+        OplUtils.checkNotNull(delegate, "Delegate is not set");
+        OplUtils.checkGreaterThanZero(chunkSize - CHUNK_HEADER_SIZE_BYTES - BLOCK_HEADER_SIZE_BYTES,
+            "Chunk size is too small");
+
+        this.delegate = delegate;
+        this.delegateIsOwned = delegateIsOwned;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Releases all chunks but the current one and rewinds the pointer. All the addresses that have been
+     * allocated so far become invalid.
+     */
+    public synchronized void reset() {
+        if (chunk == 0) {
+            return;
+        }
+
+        long current = chunk;
+        long currentSize = Jvm.getLong(current + Mem.LONG_SIZE_BYTES);
+
+        if (currentSize == chunkSize) {
+            releaseChunks(Jvm.getLong(current));
+
+            Jvm.putLong(current, 0);
+
+            this.top = current + CHUNK_HEADER_SIZE_BYTES;
+            this.reservedBytes = currentSize;
+        } else {
+            releaseChunks(current);
+
+            this.chunk = 0;
+            this.top = 0;
+            this.limit = 0;
+            this.reservedBytes = 0;
+        }
+
+        this.allocatedBytes = 0;
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        releaseChunks(chunk);
+
+        this.chunk = 0;
+        this.top = 0;
+        this.limit = 0;
+        this.reservedBytes = 0;
+        this.allocatedBytes = 0;
+
+        if (delegateIsOwned) {
+            delegate.close();
+        }
+    }
+
+    @Override
+    public synchronized long allocate(long size) {
+        checkSize(size, 0);
+
+        final long required = blockFootprint(size);
+        final long blockAddress;
+
+        if (required <= limit - top) {
+            blockAddress = top;
+            this.top += required;
+        } else if (required > chunkSize - CHUNK_HEADER_SIZE_BYTES) {
+            blockAddress = reserveDedicatedChunk(required);
+        } else {
+            reserveChunk();
+            blockAddress = top;
+            this.top += required;
+        }
+
+        Jvm.putLong(blockAddress, size);
+
+        this.allocatedBytes += size;
+
+        return blockAddress + BLOCK_HEADER_SIZE_BYTES;
+    }
+
+    @Override
+    public synchronized long reallocate(long address, long newSize) {
+        checkSize(newSize, 0);
+
+        final long blockAddress = address - BLOCK_HEADER_SIZE_BYTES;
+        final long size = Jvm.getLong(blockAddress);
+
+        final boolean isLast = blockAddress + blockFootprint(size) == top;
+        if (isLast && blockFootprint(newSize) <= limit - blockAddress) {
+            Jvm.putLong(blockAddress, newSize);
+
+            this.top = blockAddress + blockFootprint(newSize);
+            this.allocatedBytes += newSize - size;
+
+            return address;
+        }
+
+        if (newSize <= size) {
+            Jvm.putLong(blockAddress, newSize);
+
+            this.allocatedBytes += newSize - size;
+
+            return address;
+        }
+
+        final long newAddress = allocate(newSize);
+
+        Jvm.copyMemory(address, newAddress, size);
+
+        return newAddress;
+    }
+
+    @Override
+    public void free(long address) {
+        // memory is released in bulk on reset() or close()
+    }
+
+    @Override
+    public synchronized long allocateAligned(long size, long alignment) {
+        OplUtils.checkPowerOfTwo(alignment, "Alignment must be a power of 2");
+        checkSize(size, alignment);
+
+        if (alignment <= BLOCK_ALIGNMENT) {
+            return allocate(size);
+        }
+
+        // the worst case padding before the block header
+        final long required = blockFootprint(size) + alignment - BLOCK_ALIGNMENT;
+        final long region;
+
+        if (required <= limit - top) {
+            region = top;
+        } else if (required > chunkSize - CHUNK_HEADER_SIZE_BYTES) {
+            region = reserveDedicatedChunk(required);
+        } else {
+            reserveChunk();
+            region = top;
+        }
+
+        final long blockAddress = Mem.alignUp(region + BLOCK_HEADER_SIZE_BYTES, alignment) - BLOCK_HEADER_SIZE_BYTES;
+
+        if (region == top) {
+            this.top = blockAddress + blockFootprint(size);
+        }
+
+        Jvm.putLong(blockAddress, size);
+
+        this.allocatedBytes += size;
+
+        return blockAddress + BLOCK_HEADER_SIZE_BYTES;
+    }
+
+    @Override
+    public void freeAligned(long address) {
+        // memory is released in bulk on reset() or close()
+    }
+
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    private void reserveChunk() {
+        final long newChunk = delegate.allocate(chunkSize);
+
+        Jvm.putLong(newChunk, chunk);
+        Jvm.putLong(newChunk + Mem.LONG_SIZE_BYTES, chunkSize);
+
+        this.chunk = newChunk;
+        this.top = newChunk + CHUNK_HEADER_SIZE_BYTES;
+        this.limit = newChunk + chunkSize;
+        this.reservedBytes += chunkSize;
+    }
+
+    private long reserveDedicatedChunk(long required) {
+        if (required > Long.MAX_VALUE - CHUNK_HEADER_SIZE_BYTES) {
+            throw new AllocatorException("Requested size is too huge: " + required);
+        }
+
+        final long dedicatedSize = CHUNK_HEADER_SIZE_BYTES + required;
+        final long dedicatedChunk = delegate.allocate(dedicatedSize);
+
+        Jvm.putLong(dedicatedChunk + Mem.LONG_SIZE_BYTES, dedicatedSize);
+
+        if (chunk != 0) {
+            // linked behind the current chunk, so the current chunk keeps serving small requests
+            Jvm.putLong(dedicatedChunk, Jvm.getLong(chunk));
+            Jvm.putLong(chunk, dedicatedChunk);
+        } else {
+            Jvm.putLong(dedicatedChunk, 0);
+
+            this.chunk = dedicatedChunk;
+            this.top = dedicatedChunk + dedicatedSize;
+            this.limit = top;
+        }
+
+        this.reservedBytes += dedicatedSize;
+
+        return dedicatedChunk + CHUNK_HEADER_SIZE_BYTES;
+    }
+
+    private void releaseChunks(long head) {
+        long current = head;
+        while (current != 0) {
+            final long previous = Jvm.getLong(current);
+            delegate.free(current);
+            current = previous;
+        }
+    }
+
+    private static void checkSize(long size, long padding) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        if (size > MAX_BLOCK_SIZE_BYTES - padding) {
+            throw new AllocatorException("Requested size is too huge: " + size);
+        }
+    }
+
+    private static long blockFootprint(long size) {
+        return (BLOCK_HEADER_SIZE_BYTES + size + BLOCK_ALIGNMENT - 1) & -BLOCK_ALIGNMENT;
+    }
+
+}
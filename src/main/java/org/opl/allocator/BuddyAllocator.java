@@ -0,0 +1,425 @@
+package org.opl.allocator;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <p>Buddy-system allocator over a single region reserved from the delegate allocator. The region is split into
+ * blocks of power-of-two sizes, a block of order K is split into two buddies of order K-1 on demand, and two free
+ * buddies are merged back on release. Both operations are O(log n).</p>
+ *
+ * <p>Features:</p>
+ * <ul>
+ *     <li>Fragmentation is bounded - the region never fragments beyond the power-of-two granularity, and RSS
+ *     never grows beyond the reserved region</li>
+ *     <li>{@link #reallocate(long, long)} shrinks in place and grows in place when the buddy is free</li>
+ *     <li>Every block is aligned by its own size (relative to the page-aligned region)</li>
+ *     <li>Free-list and fragmentation statistics</li>
+ * </ul>
+ *
+ * <p>Blocks have no header. The state of the blocks is kept in a separate map with one byte per minimal block:</p>
+ * <pre>
+ * +---+---+---+---+---+---+---+---+
+ * | A | F |   order of the block  |   A - the block is allocated, F - the block is free
+ * +---+---+---+---+---+---+---+---+
+ * </pre>
+ *
+ * <p>Only the first minimal block of a block keeps the state, the rest are zeros. The links of the free lists
+ * are stored in the free blocks themselves:</p>
+ * <pre>
+ * +------------+------------+----- ..... -----+
+ * |    next    |  previous  |      unused     |
+ * | free block | free block |                 |
+ * | (8 bytes)  | (8 bytes)  |                 |
+ * +------------+------------+----- ..... -----+
+ * </pre>
+ */
+public class BuddyAllocator implements Allocator {
+
+    /** Default size of the minimal block */
+    public static final long DEFAULT_MIN_BLOCK_SIZE = Mem.CACHE_LINE_SIZE_BYTES;
+
+    private static final long MIN_BLOCK_SIZE_LIMIT = 2 * Mem.LONG_SIZE_BYTES;
+
+    private static final int ALLOCATED = 0x80;
+
+    private static final int FREE = 0x40;
+
+    private static final int ORDER_MASK = 0x3F;
+
+    private static final long NEXT_OFFSET = 0;
+
+    private static final long PREVIOUS_OFFSET = Mem.LONG_SIZE_BYTES;
+
+    private final Allocator delegate;
+
+    private final boolean delegateIsOwned;
+
+    private final long capacity;
+
+    private final long minBlockSize;
+
+    private final int minBlockShift;
+
+    private final int maxOrder;
+
+    private final long region;
+
+    private final long states;
+
+    private final long[] freeHeads;
+
+    private final long[] freeCounts;
+
+    private long allocatedBytes;
+
+    private long allocatedBlocks;
+
+    private boolean closed;
+
+    /**
+     * Constructs a buddy allocator with the default minimal block size
+     * @param delegate Delegate allocator which provides the region
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param capacity Size of the region (power of 2)
+     */
+    public BuddyAllocator(@Nonnull Allocator delegate,
+                          boolean delegateIsOwned,
+                          long capacity)
+    {
+        this(delegate, delegateIsOwned, capacity, DEFAULT_MIN_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a buddy allocator
+     * @param delegate Delegate allocator which provides the region
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param capacity Size of the region (power of 2)
+     * @param minBlockSize Size of the minimal block (power of 2, at least 16 bytes)
+     */
+    public BuddyAllocator(@Nonnull Allocator delegate,
+                          boolean delegateIsOwned,
+                          long capacity,
+                          long minBlockSize)
+    {
+        OplUtils.checkNotNull(delegate, "Delegate is not set");
+        OplUtils.checkPowerOfTwo(capacity, "Capacity must be a power of 2");
+        OplUtils.checkPowerOfTwo(minBlockSize, "Minimal block size must be a power of 2");
+        OplUtils.checkGreaterOrEqualZero(minBlockSize - MIN_BLOCK_SIZE_LIMIT, "Minimal block size is too small");
+        OplUtils.checkGreaterOrEqualZero(capacity - minBlockSize, "Capacity is less than the minimal block size");
+
+        this.delegate = delegate;
+        this.delegateIsOwned = delegateIsOwned;
+        this.capacity = capacity;
+        this.minBlockSize = minBlockSize;
+        this.minBlockShift = Long.numberOfTrailingZeros(minBlockSize);
+        this.maxOrder = Long.numberOfTrailingZeros(capacity) - minBlockShift;
+
+        this.freeHeads = new long[maxOrder + 1];
+        this.freeCounts = new long[maxOrder + 1];
+
+        this.region = delegate.allocateAligned(capacity, Jvm.PAGE_SIZE);
+        try {
+            this.states = delegate.allocateZeroed(capacity >>> minBlockShift);
+        } catch (RuntimeException | Error e) {
+            delegate.freeAligned(region);
+            throw e;
+        }
+
+        pushFree(0, maxOrder);
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (!closed) {
+            this.closed = true;
+
+            delegate.free(states);
+            delegate.freeAligned(region);
+        }
+
+        if (delegateIsOwned) {
+            delegate.close();
+        }
+    }
+
+    @Override
+    public synchronized long allocate(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+        checkNotClosed();
+
+        final int order = order(size);
+
+        int available = order;
+        while (available <= maxOrder && freeCounts[available] == 0) {
+            available++;
+        }
+
+        if (available > maxOrder) {
+            throw new OutOfMemoryError(String.format(
+                "Buddy region has no free block for %d bytes (%d of %d bytes allocated)",
+                size, allocatedBytes, capacity));
+        }
+
+        final long offset = freeHeads[available] - region;
+        removeFree(offset, available);
+
+        // split down to the requested order, the upper halves go to the free lists
+        while (available > order) {
+            available--;
+            pushFree(offset + blockSize(available), available);
+        }
+
+        markAllocated(offset, order);
+
+        return region + offset;
+    }
+
+    @Override
+    public synchronized long reallocate(long address, long newSize) {
+        OplUtils.checkGreaterThanZero(newSize, "Size must be greater than 0");
+        checkNotClosed();
+
+        final long offset = offset(address);
+        final int order = allocatedOrder(offset, address);
+        final int newOrder = order(newSize);
+
+        if (newOrder == order) {
+            return address;
+        }
+
+        if (newOrder < order) {
+            for (int k = order - 1; k >= newOrder; k--) {
+                pushFree(offset + blockSize(k), k);
+            }
+
+            allocatedBytes -= blockSize(order) - blockSize(newOrder);
+            setState(offset, ALLOCATED | newOrder);
+
+            return address;
+        }
+
+        if (canGrowInPlace(offset, order, newOrder)) {
+            for (int k = order; k < newOrder; k++) {
+                removeFree(offset + blockSize(k), k);
+                setState(offset + blockSize(k), 0);
+            }
+
+            allocatedBytes += blockSize(newOrder) - blockSize(order);
+            setState(offset, ALLOCATED | newOrder);
+
+            return address;
+        }
+
+        final long newAddress = allocate(newSize);
+
+        Jvm.copyMemory(address, newAddress, blockSize(order));
+
+        release(offset, order);
+
+        return newAddress;
+    }
+
+    @Override
+    public synchronized void free(long address) {
+        checkNotClosed();
+
+        final long offset = offset(address);
+        release(offset, allocatedOrder(offset, address));
+    }
+
+    /**
+     * Fetches the real size of an allocated block (the requested size rounded up to the power of 2)
+     * @param address Block address
+     * @return Block size
+     */
+    public synchronized long getBlockSize(long address) {
+        checkNotClosed();
+
+        final long offset = offset(address);
+        return blockSize(allocatedOrder(offset, address));
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getMinBlockSize() {
+        return minBlockSize;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized long getAllocatedBlocks() {
+        return allocatedBlocks;
+    }
+
+    public synchronized long getFreeBytes() {
+        return capacity - allocatedBytes;
+    }
+
+    /**
+     * Collects the sizes of the free lists
+     * @return Array where the element K is the count of free blocks of <code>minBlockSize * 2^K</code> bytes
+     */
+    public synchronized long[] getFreeBlocks() {
+        return freeCounts.clone();
+    }
+
+    /**
+     * Finds the largest block which can be allocated right now
+     * @return Size of the largest free block or 0 if the region is full
+     */
+    public synchronized long getLargestFreeBlock() {
+        for (int k = maxOrder; k >= 0; k--) {
+            if (freeCounts[k] != 0) {
+                return blockSize(k);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Calculates the external fragmentation as <code>1 - largest free block / free bytes</code>
+     * @return 0 when all free memory is available as a single block, close to 1 when free memory is scattered
+     */
+    public synchronized double getFragmentation() {
+        final long free = capacity - allocatedBytes;
+        return free != 0 ? 1.0 - (double) getLargestFreeBlock() / free : 0;
+    }
+
+    private void release(long offset, int order) {
+        allocatedBytes -= blockSize(order);
+        allocatedBlocks--;
+
+        long current = offset;
+        int k = order;
+
+        // merge with the free buddies as high as possible
+        while (k < maxOrder) {
+            final long buddy = current ^ blockSize(k);
+            if (getState(buddy) != (FREE | k)) {
+                break;
+            }
+
+            removeFree(buddy, k);
+            setState(buddy, 0);
+            setState(current, 0);
+
+            current = Math.min(current, buddy);
+            k++;
+        }
+
+        pushFree(current, k);
+    }
+
+    private boolean canGrowInPlace(long offset, int order, int newOrder) {
+        if (newOrder > maxOrder || (offset & (blockSize(newOrder) - 1)) != 0) {
+            return false;
+        }
+
+        for (int k = order; k < newOrder; k++) {
+            if (getState(offset + blockSize(k)) != (FREE | k)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void markAllocated(long offset, int order) {
+        setState(offset, ALLOCATED | order);
+
+        allocatedBytes += blockSize(order);
+        allocatedBlocks++;
+    }
+
+    private void pushFree(long offset, int order) {
+        final long address = region + offset;
+        final long head = freeHeads[order];
+
+        Jvm.putLong(address + NEXT_OFFSET, head);
+        Jvm.putLong(address + PREVIOUS_OFFSET, 0);
+
+        if (head != 0) {
+            Jvm.putLong(head + PREVIOUS_OFFSET, address);
+        }
+
+        freeHeads[order] = address;
+        freeCounts[order]++;
+
+        setState(offset, FREE | order);
+    }
+
+    private void removeFree(long offset, int order) {
+        final long address = region + offset;
+        final long next = Jvm.getLong(address + NEXT_OFFSET);
+        final long previous = Jvm.getLong(address + PREVIOUS_OFFSET);
+
+        if (previous != 0) {
+            Jvm.putLong(previous + NEXT_OFFSET, next);
+        } else {
+            freeHeads[order] = next;
+        }
+
+        if (next != 0) {
+            Jvm.putLong(next + PREVIOUS_OFFSET, previous);
+        }
+
+        freeCounts[order]--;
+
+        setState(offset, 0);
+    }
+
+    private int allocatedOrder(long offset, long address) {
+        final int state = getState(offset);
+        if ((state & ALLOCATED) == 0) {
+            throw new AllocatorException(
+                String.format("Block [0x%016x] is not allocated by the buddy allocator", address));
+        }
+        return state & ORDER_MASK;
+    }
+
+    private long offset(long address) {
+        final long offset = address - region;
+        if (offset < 0 || offset >= capacity || (offset & (minBlockSize - 1)) != 0) {
+            throw new AllocatorException(
+                String.format("Block [0x%016x] doesn't belong to the buddy region", address));
+        }
+        return offset;
+    }
+
+    private int order(long size) {
+        if (size > capacity) {
+            throw new AllocatorException(
+                String.format("Requested size %d exceeds the buddy region of %d bytes", size, capacity));
+        }
+
+        final long blocks = (size + minBlockSize - 1) >>> minBlockShift;
+        return blocks <= 1 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(blocks - 1);
+    }
+
+    private long blockSize(int order) {
+        return minBlockSize << order;
+    }
+
+    private int getState(long offset) {
+        return Jvm.getByte(states + (offset >>> minBlockShift)) & Mem.BYTE_MASK;
+    }
+
+    private void setState(long offset, int state) {
+        Jvm.putByte(states + (offset >>> minBlockShift), (byte) state);
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Allocator is closed");
+        }
+    }
+
+}
@@ -0,0 +1,311 @@
+package org.opl.allocator;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.Nonnull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Enforces a hard limit on the bytes allocated through the delegate allocator. Off-heap memory is not limited
+ * by <code>-Xmx</code>, so the budget is the only way to keep the process within the limits of a container.</p>
+ *
+ * <p>When a request doesn't fit into the budget the allocator:</p>
+ * <ol>
+ *     <li>Runs the registered {@link Reclaimer reclaimers} (e.g. cache eviction) in the calling thread</li>
+ *     <li>Waits until other threads release enough memory (only if the timeout is greater than 0)</li>
+ *     <li>Throws {@link OutOfMemoryError}</li>
+ * </ol>
+ *
+ * <p>The budget counts the requested sizes, the overhead of the delegate allocator is not taken into account.
+ * The reservation is a single CAS on the fast path, the lock is touched only when there are waiting threads.</p>
+ *
+ * <p>The structure of allocated block</p>
+ * <pre>
+ * +------------+------------+----- ..... -----+
+ * | block size |  padding   |   memory block  |
+ * |            |            |  for the caller |
+ * | (8 bytes)  | (8 bytes)  |  (`size` bytes) |
+ * +------------+------------+----- ..... -----+
+ * </pre>
+ *
+ * <p>The header is padded to 16 bytes, so the caller gets the same alignment as from <code>malloc</code>. The
+ * header makes every request larger than the caller's size, so allocators of fixed-size blocks like
+ * {@link PooledAllocator} can't be wrapped.</p>
+ */
+public class BudgetAllocator implements Allocator {
+
+    private static final long HEADER_SIZE_BYTES = Mem.LONG_SIZE_BYTES + Mem.LONG_SIZE_BYTES;
+
+    private final Allocator delegate;
+
+    private final boolean delegateIsOwned;
+
+    private final long budget;
+
+    private final long timeoutNanos;
+
+    private final AtomicLong usedBytes;
+
+    private final List<Reclaimer> reclaimers;
+
+    private final Lock lock;
+
+    private final Condition released;
+
+    private final AtomicInteger waiters;
+
+    /**
+     * Constructs a budget allocator that fails fast when the budget is exhausted
+     * @param delegate Delegate allocator instance
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param budget Maximal count of bytes allocated at the same time
+     */
+    public BudgetAllocator(@Nonnull Allocator delegate,
+                           boolean delegateIsOwned,
+                           long budget)
+    {
+        this(delegate, delegateIsOwned, budget, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs a budget allocator
+     * @param delegate Delegate allocator instance
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param budget Maximal count of bytes allocated at the same time
+     * @param timeout Time to wait for the memory to be released by other threads (0 - fail fast)
+     * @param unit Time unit of the timeout
+     */
+    public BudgetAllocator(@Nonnull Allocator delegate,
+                           boolean delegateIsOwned,
+                           long budget,
+                           long timeout,
+                           @Nonnull TimeUnit unit)
+    {
+        OplUtils.checkNotNull(delegate, "Delegate is not set");
+        OplUtils.checkNotNull(unit, "Time unit is not set");
+        OplUtils.checkGreaterThanZero(budget, "Budget must be greater than 0");
+        OplUtils.checkGreaterOrEqualZero(timeout, "Timeout must not be negative");
+
+        this.delegate = delegate;
+        this.delegateIsOwned = delegateIsOwned;
+        this.budget = budget;
+        this.timeoutNanos = unit.toNanos(timeout);
+
+        this.usedBytes = new AtomicLong(0);
+        this.reclaimers = new CopyOnWriteArrayList<>();
+        this.lock = new ReentrantLock();
+        this.released = lock.newCondition();
+        this.waiters = new AtomicInteger(0);
+    }
+
+    /**
+     * Registers a reclaimer which is called when a request doesn't fit into the budget
+     * @param reclaimer Reclaimer instance
+     */
+    public void addReclaimer(@Nonnull Reclaimer reclaimer) {
+        OplUtils.checkNotNull(reclaimer, "Reclaimer is not set");
+
+        reclaimers.add(reclaimer);
+    }
+
+    /**
+     * Unregisters a reclaimer
+     * @param reclaimer Reclaimer instance
+     */
+    public void removeReclaimer(@Nonnull Reclaimer reclaimer) {
+        reclaimers.remove(reclaimer);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegateIsOwned) {
+            delegate.close();
+        }
+    }
+
+    @Override
+    public long allocate(long size) {
+        return allocate(size, false);
+    }
+
+    @Override
+    public long allocateZeroed(long size) {
+        return allocate(size, true);
+    }
+
+    private long allocate(long size, boolean zeroed) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        reserve(size);
+
+        final long delegateAddress;
+        try {
+            delegateAddress = zeroed
+                ? delegate.allocateZeroed(size + HEADER_SIZE_BYTES)
+                : delegate.allocate(size + HEADER_SIZE_BYTES);
+        } catch (RuntimeException | Error e) {
+            release(size);
+            throw e;
+        }
+
+        Jvm.putLong(delegateAddress, size);
+
+        return delegateAddress + HEADER_SIZE_BYTES;
+    }
+
+    @Override
+    public long reallocate(long address, long newSize) {
+        OplUtils.checkGreaterThanZero(newSize, "Size must be greater than 0");
+
+        final long delegateAddress = address - HEADER_SIZE_BYTES;
+        final long size = Jvm.getLong(delegateAddress);
+        final long delta = newSize - size;
+
+        if (delta > 0) {
+            reserve(delta);
+        }
+
+        final long newDelegateAddress;
+        try {
+            newDelegateAddress = delegate.reallocate(delegateAddress, newSize + HEADER_SIZE_BYTES);
+        } catch (RuntimeException | Error e) {
+            if (delta > 0) {
+                release(delta);
+            }
+            throw e;
+        }
+
+        Jvm.putLong(newDelegateAddress, newSize);
+
+        if (delta < 0) {
+            release(-delta);
+        }
+
+        return newDelegateAddress + HEADER_SIZE_BYTES;
+    }
+
+    @Override
+    public void free(long address) {
+        final long delegateAddress = address - HEADER_SIZE_BYTES;
+        final long size = Jvm.getLong(delegateAddress);
+
+        delegate.free(delegateAddress);
+
+        release(size);
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getAvailableBytes() {
+        return budget - usedBytes.get();
+    }
+
+    private void reserve(long size) {
+        if (tryReserve(size)) {
+            return;
+        }
+
+        if (size > budget) {
+            throw new OutOfMemoryError(
+                String.format("Request for %d bytes exceeds the whole budget of %d bytes", size, budget));
+        }
+
+        for (Reclaimer reclaimer : reclaimers) {
+            reclaimer.reclaim(size - getAvailableBytes());
+
+            if (tryReserve(size)) {
+                return;
+            }
+        }
+
+        if (timeoutNanos > 0 && awaitReserve(size)) {
+            return;
+        }
+
+        throw new OutOfMemoryError(
+            String.format("Budget of %d bytes is exhausted: %d bytes in use, %d bytes requested",
+                budget, usedBytes.get(), size));
+    }
+
+    private boolean tryReserve(long size) {
+        while (true) {
+            final long used = usedBytes.get();
+            if (used + size > budget) {
+                return false;
+            }
+            if (usedBytes.compareAndSet(used, used + size)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean awaitReserve(long size) {
+        long remaining = timeoutNanos;
+
+        lock.lock();
+        try {
+            // the counter is increased before the last check, so a concurrent release will signal us
+            waiters.incrementAndGet();
+            try {
+                while (!tryReserve(size)) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                waiters.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long size) {
+        usedBytes.addAndGet(-size);
+
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Callback which releases memory on demand (e.g. evicts cache entries)
+     */
+    @FunctionalInterface
+    public interface Reclaimer {
+
+        /**
+         * Releases memory blocks. Is called in the allocating thread when a request doesn't fit into the budget.
+         * @param bytes Count of bytes missing to serve the request
+         */
+        void reclaim(long bytes);
+
+    }
+
+}
@@ -0,0 +1,380 @@
+package org.opl.allocator;
+
+import org.opl.platform.DirectBuffers;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.Nonnull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>Allocator that serves blocks out of a memory-mapped file. Blocks survive restarts of the process and are
+ * paged in and out by the operating system.</p>
+ *
+ * <p>The file is mapped as a sequence of segments, so the region can be larger than the 2GB limit of
+ * {@link MappedByteBuffer}. A block never crosses the border of a segment, so the size of a block is limited by
+ * the segment size.</p>
+ *
+ * <p>Blocks are allocated by bumping a pointer which is stored in the file header. {@link #free(long)} does
+ * nothing, the space is reclaimed only with {@link #reset()}. The regions of the file that have never been
+ * written are read as zeros, so {@link #allocateZeroed(long)} doesn't touch the fresh pages at all - they are
+ * zeroed lazily by the operating system on the first access.</p>
+ *
+ * <p>The structure of the file</p>
+ * <pre>
+ * +-----------+-----------+-----------+-----------+------------+----- ..... -----+-----
+ * |   magic   |  segment  |    top    |   root    | block size |  memory block   | ...
+ * |           |   size    |  position |  position |            | for the caller  |
+ * | (8 bytes) | (8 bytes) | (8 bytes) | (8 bytes) | (8 bytes)  | (`size` bytes)  |
+ * +-----------+-----------+-----------+-----------+------------+----- ..... -----+-----
+ * </pre>
+ *
+ * <p>Addresses change from run to run, so blocks must be referenced by their positions in the file. The root
+ * position is a single slot in the file header that helps to find the blocks again after a restart:</p>
+ * <pre>
+ * MappedFileAllocator allocator = new MappedFileAllocator(path, 4 * Mem.GB);
+ *
+ * long address;
+ * if (allocator.getRootPosition() == 0) {
+ *     address = allocator.allocate(size);
+ *     allocator.setRootPosition(allocator.position(address));
+ * } else {
+ *     address = allocator.address(allocator.getRootPosition());
+ * }
+ * </pre>
+ *
+ * <p>Closing the allocator unmaps the file, so any access to the blocks after that crashes the JVM.</p>
+ */
+public class MappedFileAllocator implements Allocator {
+
+    /** Default size of the mapped segment */
+    public static final long DEFAULT_SEGMENT_SIZE = Mem.GB;
+
+    private static final long MAGIC = 0x4F50_4C4D_4150_0001L;
+
+    private static final long MAGIC_OFFSET = 0;
+
+    private static final long SEGMENT_SIZE_OFFSET = MAGIC_OFFSET + Mem.LONG_SIZE_BYTES;
+
+    private static final long TOP_OFFSET = SEGMENT_SIZE_OFFSET + Mem.LONG_SIZE_BYTES;
+
+    private static final long ROOT_OFFSET = TOP_OFFSET + Mem.LONG_SIZE_BYTES;
+
+    private static final long FILE_HEADER_SIZE_BYTES = ROOT_OFFSET + Mem.LONG_SIZE_BYTES;
+
+    private static final long BLOCK_HEADER_SIZE_BYTES = Mem.LONG_SIZE_BYTES;
+
+    private static final long BLOCK_ALIGNMENT = Mem.LONG_SIZE_BYTES;
+
+    private final FileChannel channel;
+
+    private final long capacity;
+
+    private final long segmentSize;
+
+    private final MappedByteBuffer[] segments;
+
+    private final long[] segmentAddresses;
+
+    private final long header;
+
+    private long zeroPosition;
+
+    private boolean closed;
+
+    /**
+     * Opens or creates a mapped file with the default segment size
+     * @param file File path
+     * @param capacity Size of the mapped region (the file is extended when it is smaller)
+     * @throws IOException Is thrown when file can't be opened or mapped
+     */
+    public MappedFileAllocator(@Nonnull Path file, long capacity) throws IOException {
+        this(file, capacity, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens or creates a mapped file
+     * @param file File path
+     * @param capacity Size of the mapped region (the file is extended when it is smaller)
+     * @param segmentSize Size of the mapped segment - the largest block that can be allocated
+     * @throws IOException Is thrown when file can't be opened or mapped
+     */
+    public MappedFileAllocator(@Nonnull Path file, long capacity, long segmentSize) throws IOException {
+        OplUtils.checkNotNull(file, "File is not specified");
+        OplUtils.checkGreaterThanZero(segmentSize - FILE_HEADER_SIZE_BYTES - BLOCK_HEADER_SIZE_BYTES,
+            "Segment size is too small");
+        OplUtils.checkGreaterThanZero(capacity - FILE_HEADER_SIZE_BYTES - BLOCK_HEADER_SIZE_BYTES,
+            "Capacity is too small");
+
+        if (segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size exceeds the limit of MappedByteBuffer");
+        }
+
+        this.channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        this.capacity = capacity;
+        this.segmentSize = segmentSize;
+
+        final int segmentCount = (int) ((capacity + segmentSize - 1) / segmentSize);
+        this.segments = new MappedByteBuffer[segmentCount];
+        this.segmentAddresses = new long[segmentCount];
+
+        try {
+            // the file is extended with zeros on mapping, so everything past the current end is known to be zero
+            this.zeroPosition = Math.max(channel.size(), FILE_HEADER_SIZE_BYTES);
+
+            for (int i = 0; i < segmentCount; i++) {
+                final long position = i * segmentSize;
+                final long length = Math.min(segmentSize, capacity - position);
+
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+                segmentAddresses[i] = DirectBuffers.address(segments[i]);
+            }
+
+            this.header = segmentAddresses[0];
+
+            initializeHeader();
+        } catch (IOException | RuntimeException e) {
+            unmap();
+            OplUtils.closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    private void initializeHeader() throws IOException {
+        final long magic = Jvm.getLong(header + MAGIC_OFFSET);
+
+        if (magic == 0) {
+            Jvm.putLong(header + SEGMENT_SIZE_OFFSET, segmentSize);
+            Jvm.putLong(header + TOP_OFFSET, FILE_HEADER_SIZE_BYTES);
+            Jvm.putLong(header + ROOT_OFFSET, 0);
+            Jvm.putLong(header + MAGIC_OFFSET, MAGIC);
+        } else if (magic != MAGIC) {
+            throw new IOException("File is not a mapped allocator file");
+        } else if (Jvm.getLong(header + SEGMENT_SIZE_OFFSET) != segmentSize) {
+            throw new IOException("File has been created with segment size "
+                + Jvm.getLong(header + SEGMENT_SIZE_OFFSET));
+        } else if (Jvm.getLong(header + TOP_OFFSET) > capacity) {
+            throw new IOException("File contains more data than the requested capacity");
+        }
+    }
+
+    /**
+     * Flushes all changes of the mapped region to the storage device
+     */
+    public synchronized void force() {
+        checkNotClosed();
+
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Discards all blocks. All addresses that have been allocated so far become invalid.
+     */
+    public synchronized void reset() {
+        checkNotClosed();
+
+        Jvm.putLong(header + TOP_OFFSET, FILE_HEADER_SIZE_BYTES);
+        Jvm.putLong(header + ROOT_OFFSET, 0);
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        try {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        } finally {
+            unmap();
+            channel.close();
+        }
+    }
+
+    @Override
+    public synchronized long allocate(long size) {
+        return address(allocatePosition(size)) + BLOCK_HEADER_SIZE_BYTES;
+    }
+
+    @Override
+    public synchronized long allocateZeroed(long size) {
+        final long knownZeroPosition = zeroPosition;
+
+        final long dataPosition = allocatePosition(size) + BLOCK_HEADER_SIZE_BYTES;
+        final long address = address(dataPosition);
+
+        // only the part of the block which has been used before must be cleared
+        final long dirty = Math.min(knownZeroPosition - dataPosition, size);
+        if (dirty > 0) {
+            Jvm.setMemory(address, dirty, (byte) 0);
+        }
+
+        return address;
+    }
+
+    private long allocatePosition(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+        checkNotClosed();
+
+        final long required = blockFootprint(size);
+        if (required > segmentSize) {
+            throw new AllocatorException(
+                String.format("Block of %d bytes does not fit into a segment of %d bytes", size, segmentSize));
+        }
+
+        long position = Jvm.getLong(header + TOP_OFFSET);
+
+        final long segmentStart = position - position % segmentSize;
+        if (position + required > segmentStart + segmentSize) {
+            position = segmentStart + segmentSize;
+        }
+
+        if (position + required > capacity) {
+            throw new OutOfMemoryError(
+                String.format("Mapped file has no room for %d bytes (capacity %d bytes)", size, capacity));
+        }
+
+        Jvm.putLong(address(position), size);
+        setTop(position + required);
+
+        return position;
+    }
+
+    @Override
+    public synchronized long reallocate(long address, long newSize) {
+        OplUtils.checkGreaterThanZero(newSize, "Size must be greater than 0");
+        checkNotClosed();
+
+        final long blockAddress = address - BLOCK_HEADER_SIZE_BYTES;
+        final long blockPosition = position(blockAddress);
+        final long size = Jvm.getLong(blockAddress);
+
+        final long segmentEnd = Math.min(blockPosition - blockPosition % segmentSize + segmentSize, capacity);
+        final boolean isLast = blockPosition + blockFootprint(size) == Jvm.getLong(header + TOP_OFFSET);
+        if (isLast && blockFootprint(newSize) <= segmentEnd - blockPosition) {
+            Jvm.putLong(blockAddress, newSize);
+            setTop(blockPosition + blockFootprint(newSize));
+            return address;
+        }
+
+        if (newSize <= size) {
+            Jvm.putLong(blockAddress, newSize);
+            return address;
+        }
+
+        final long newAddress = allocate(newSize);
+
+        Jvm.copyMemory(address, newAddress, size);
+
+        return newAddress;
+    }
+
+    @Override
+    public void free(long address) {
+        // the space is reclaimed only on reset()
+    }
+
+    /**
+     * Converts a position in the file into the memory address
+     * @param position Position in the file
+     * @return Memory address
+     */
+    public long address(long position) {
+        if (position < 0 || position >= capacity) {
+            throw new IndexOutOfBoundsException("Position is out of the mapped region: " + position);
+        }
+
+        return segmentAddresses[(int) (position / segmentSize)] + position % segmentSize;
+    }
+
+    /**
+     * Converts a memory address into the position in the file
+     * @param address Memory address which belongs to the mapped region
+     * @return Position in the file
+     */
+    public long position(long address) {
+        for (int i = 0; i < segmentAddresses.length; i++) {
+            final long offset = address - segmentAddresses[i];
+            if (offset >= 0 && offset < Math.min(segmentSize, capacity - i * segmentSize)) {
+                return i * segmentSize + offset;
+            }
+        }
+
+        throw new AllocatorException(String.format("Address [0x%016x] is out of the mapped region", address));
+    }
+
+    /**
+     * Fetches the size of a block that has been allocated from this file (also in a previous run)
+     * @param address Block address
+     * @return Block size
+     */
+    public long getBlockSize(long address) {
+        return Jvm.getLong(address - BLOCK_HEADER_SIZE_BYTES);
+    }
+
+    public synchronized long getRootPosition() {
+        checkNotClosed();
+
+        return Jvm.getLong(header + ROOT_OFFSET);
+    }
+
+    public synchronized void setRootPosition(long position) {
+        checkNotClosed();
+
+        Jvm.putLong(header + ROOT_OFFSET, position);
+    }
+
+    public synchronized long getAllocatedBytes() {
+        checkNotClosed();
+
+        return Jvm.getLong(header + TOP_OFFSET) - FILE_HEADER_SIZE_BYTES;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    private void setTop(long top) {
+        Jvm.putLong(header + TOP_OFFSET, top);
+
+        this.zeroPosition = Math.max(zeroPosition, top);
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Allocator is closed");
+        }
+    }
+
+    private void unmap() {
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] != null) {
+                DirectBuffers.release(segments[i]);
+                segments[i] = null;
+            }
+        }
+    }
+
+    private static long blockFootprint(long size) {
+        return (BLOCK_HEADER_SIZE_BYTES + size + BLOCK_ALIGNMENT - 1) & -BLOCK_ALIGNMENT;
+    }
+
+}
@@ -0,0 +1,169 @@
+package org.opl.allocator;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.Nonnull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Pool of fixed-size blocks. Freed blocks are kept in a lock-free stack (Treiber stack) and are handed out
+ * again on the next allocation, so a hot block size never reaches the delegate allocator after a warm-up.</p>
+ *
+ * <p>The link to the next free block is stored in the first 8 bytes of the free block itself. The head of the
+ * stack keeps a 16-bit modification stamp in the upper bits of the address to prevent the ABA problem.</p>
+ *
+ * <p>Requests up to the block size are served with a whole block. Larger requests are rejected with
+ * {@link AllocatorException}. An aligned request must fit into the block together with the alignment padding
+ * and the header of {@link Allocator#allocateAligned(long, long)}.</p>
+ *
+ * <p>The pool holds the peak count of blocks until {@link #trim()} or {@link #close()} is called. Both methods
+ * must not run concurrently with the other operations.</p>
+ */
+public class PooledAllocator implements Allocator {
+
+    private static final int STAMP_SHIFT = 48;
+
+    private static final long ADDRESS_MASK = (1L << STAMP_SHIFT) - 1;
+
+    private static final long STAMP_INCREMENT = 1L << STAMP_SHIFT;
+
+    private final Allocator delegate;
+
+    private final boolean delegateIsOwned;
+
+    private final long blockSize;
+
+    private final AtomicLong head;
+
+    /**
+     * Constructs a pool
+     * @param delegate Delegate allocator which provides new blocks
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param blockSize Size of the pooled block
+     */
+    public PooledAllocator(@Nonnull Allocator delegate,
+                           boolean delegateIsOwned,
+                           long blockSize)
+    {
+        OplUtils.checkNotNull(delegate, "Delegate is not set");
+        OplUtils.checkGreaterOrEqualZero(blockSize - Mem.LONG_SIZE_BYTES, "Block size must be at least 8 bytes");
+
+        this.delegate = delegate;
+        this.delegateIsOwned = delegateIsOwned;
+        this.blockSize = blockSize;
+        this.head = new AtomicLong(0);
+    }
+
+    /**
+     * Returns all pooled blocks to the delegate allocator
+     */
+    public void trim() {
+        long address = head.getAndSet(0) & ADDRESS_MASK;
+        while (address != 0) {
+            final long next = Jvm.getLong(address);
+            delegate.free(address);
+            address = next;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        trim();
+
+        if (delegateIsOwned) {
+            delegate.close();
+        }
+    }
+
+    @Override
+    public long allocate(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+        checkBlockSize(size);
+
+        while (true) {
+            final long current = head.get();
+            final long address = current & ADDRESS_MASK;
+
+            if (address == 0) {
+                return delegate.allocate(blockSize);
+            }
+
+            // the block may be taken by another thread right now, then the stamp won't match and we retry
+            final long next = Jvm.getLong(address);
+            if (head.compareAndSet(current, stamp(current) | next)) {
+                return address;
+            }
+        }
+    }
+
+    @Override
+    public long reallocate(long address, long newSize) {
+        OplUtils.checkGreaterThanZero(newSize, "Size must be greater than 0");
+        checkBlockSize(newSize);
+
+        return address;
+    }
+
+    @Override
+    public long allocateAligned(long size, long alignment) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+        OplUtils.checkPowerOfTwo(alignment, "Alignment must be a power of 2");
+
+        if (size > blockSize - Mem.LONG_SIZE_BYTES - alignment + 1) {
+            throw new AllocatorException(String.format(
+                "Requested size %d aligned to %d doesn't fit into the pooled block size %d with the padding",
+                size, alignment, blockSize));
+        }
+
+        return Allocator.super.allocateAligned(size, alignment);
+    }
+
+    @Override
+    public void free(long address) {
+        if ((address & ~ADDRESS_MASK) != 0) {
+            delegate.free(address);
+            return;
+        }
+
+        while (true) {
+            final long current = head.get();
+
+            Jvm.putLong(address, current & ADDRESS_MASK);
+
+            if (head.compareAndSet(current, stamp(current) | address)) {
+                return;
+            }
+        }
+    }
+
+    public long getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Counts pooled blocks. Walks the whole stack, so must not run concurrently with the other operations.
+     * @return Count of free blocks in the pool
+     */
+    public long getPooledBlocks() {
+        long count = 0;
+        for (long address = head.get() & ADDRESS_MASK; address != 0; address = Jvm.getLong(address)) {
+            count++;
+        }
+        return count;
+    }
+
+    private void checkBlockSize(long size) {
+        if (size > blockSize) {
+            throw new AllocatorException(
+                String.format("Requested size %d exceeds the pooled block size %d", size, blockSize));
+        }
+    }
+
+    private static long stamp(long current) {
+        return (current + STAMP_INCREMENT) & ~ADDRESS_MASK;
+    }
+
+}
@@ -0,0 +1,391 @@
+package org.opl.allocator;
+
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <p>Size-class slab allocator. Small requests are rounded up to one of power-of-two-ish size classes
+ * (16, 24, 32, 48, 64, ... 2048 bytes) and are carved out of slabs that are reserved from a delegate allocator.
+ * Larger requests go directly to the delegate allocator.</p>
+ *
+ * <p>Every thread keeps its own free lists, so the common {@link #allocate(long)} and {@link #free(long)} path
+ * touches no shared state. Threads exchange blocks in batches through a central free list of each class when
+ * a thread cache gets empty or grows too large.</p>
+ *
+ * <p>The structure of allocated block</p>
+ * <pre>
+ * +------------+----- ..... -----+
+ * | size class |   memory block  |
+ * |   index    |  for the caller |
+ * | (8 bytes)  |  (`size` bytes) |
+ * +------------+----- ..... -----+
+ * </pre>
+ *
+ * <p>Free blocks keep the address of the next free block in place of the size class index.</p>
+ *
+ * <p>Blocks are aligned to 8 bytes only: the header and the size classes like 24 or 48 bytes are multiples of
+ * 8 bytes, not of 16 bytes as blocks of <code>malloc</code>. Use {@link #allocateAligned(long, long)} when a
+ * stronger alignment is required.</p>
+ *
+ * <p>Slabs are returned to the delegate allocator only on {@link #close()}. Blocks that are cached by a thread
+ * that has died are not reused until then. Any call after {@link #close()} fails with
+ * {@link IllegalStateException}, so the thread caches never hand out blocks of the released slabs.</p>
+ */
+public class SlabAllocator implements Allocator {
+
+    /** Default size of a slab */
+    public static final long DEFAULT_SLAB_SIZE = 64 * Mem.KB;
+
+    private static final long BLOCK_HEADER_SIZE_BYTES = Mem.LONG_SIZE_BYTES;
+
+    private static final long MAX_BLOCK_SIZE_BYTES = Long.MAX_VALUE - BLOCK_HEADER_SIZE_BYTES;
+
+    private static final long SLAB_HEADER_SIZE_BYTES = Mem.LONG_SIZE_BYTES;
+
+    private static final long MIN_CLASS_SIZE = 16;
+
+    private static final long MAX_CLASS_SIZE = 2048;
+
+    private static final long LARGE_CLASS = -1;
+
+    private static final long THREAD_CACHE_BYTES = 64 * Mem.KB;
+
+    private static final int MIN_BATCH_SIZE = 8;
+
+    private static final long[] CLASS_SIZES = createClassSizes();
+
+    private static final byte[] CLASS_LOOKUP = createClassLookup();
+
+    private final Allocator delegate;
+
+    private final boolean delegateIsOwned;
+
+    private final long slabSize;
+
+    private final CentralList[] centralLists;
+
+    private final ThreadLocal<ThreadCache> threadCaches;
+
+    private final Object slabLock;
+
+    private long slabs;
+
+    private long slabCount;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructs a slab allocator with the default slab size
+     * @param delegate Delegate allocator which provides slabs and large blocks
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     */
+    public SlabAllocator(@Nonnull Allocator delegate,
+                         boolean delegateIsOwned)
+    {
+        this(delegate, delegateIsOwned, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Constructs a slab allocator
+     * @param delegate Delegate allocator which provides slabs and large blocks
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param slabSize Size of a slab, must be enough to keep at least one block of the largest size class
+     */
+    public SlabAllocator(@Nonnull Allocator delegate,
+                         boolean delegateIsOwned,
+                         long slabSize)
+    {
+        OplUtils.checkNotNull(delegate, "Delegate is not set");
+        OplUtils.checkGreaterOrEqualZero(slabSize - SLAB_HEADER_SIZE_BYTES - MAX_CLASS_SIZE,
+            "Slab size is too small");
+
+        this.delegate = delegate;
+        this.delegateIsOwned = delegateIsOwned;
+        this.slabSize = slabSize;
+
+        this.centralLists = new CentralList[CLASS_SIZES.length];
+        for (int i = 0; i < centralLists.length; i++) {
+            centralLists[i] = new CentralList();
+        }
+
+        this.threadCaches = ThreadLocal.withInitial(ThreadCache::new);
+        this.slabLock = new Object();
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (slabLock) {
+            this.closed = true;
+
+            long slab = slabs;
+            while (slab != 0) {
+                final long next = Jvm.getLong(slab);
+                delegate.free(slab);
+                slab = next;
+            }
+
+            this.slabs = 0;
+            this.slabCount = 0;
+        }
+
+        threadCaches.remove();
+
+        if (delegateIsOwned) {
+            delegate.close();
+        }
+    }
+
+    @Override
+    public long allocate(long size) {
+        checkSize(size);
+        checkNotClosed();
+
+        if (size > MAX_CLASS_SIZE - BLOCK_HEADER_SIZE_BYTES) {
+            final long block = delegate.allocate(size + BLOCK_HEADER_SIZE_BYTES);
+            Jvm.putLong(block, LARGE_CLASS);
+            return block + BLOCK_HEADER_SIZE_BYTES;
+        }
+
+        final int sizeClass = sizeClassOf(size + BLOCK_HEADER_SIZE_BYTES);
+        final ThreadCache cache = threadCaches.get();
+
+        long block = cache.heads[sizeClass];
+        if (block == 0) {
+            block = refill(cache, sizeClass);
+        }
+
+        cache.heads[sizeClass] = Jvm.getLong(block);
+        cache.counts[sizeClass]--;
+
+        Jvm.putLong(block, sizeClass);
+
+        return block + BLOCK_HEADER_SIZE_BYTES;
+    }
+
+    @Override
+    public long reallocate(long address, long newSize) {
+        checkSize(newSize);
+        checkNotClosed();
+
+        final long block = address - BLOCK_HEADER_SIZE_BYTES;
+        final long sizeClass = Jvm.getLong(block);
+
+        if (sizeClass == LARGE_CLASS) {
+            if (newSize > MAX_CLASS_SIZE - BLOCK_HEADER_SIZE_BYTES) {
+                return delegate.reallocate(block, newSize + BLOCK_HEADER_SIZE_BYTES) + BLOCK_HEADER_SIZE_BYTES;
+            }
+
+            final long newAddress = allocate(newSize);
+            Jvm.copyMemory(address, newAddress, newSize);
+            delegate.free(block);
+            return newAddress;
+        }
+
+        final long capacity = CLASS_SIZES[(int) sizeClass] - BLOCK_HEADER_SIZE_BYTES;
+        if (newSize <= capacity) {
+            return address;
+        }
+
+        final long newAddress = allocate(newSize);
+        Jvm.copyMemory(address, newAddress, capacity);
+        free(address);
+        return newAddress;
+    }
+
+    @Override
+    public void free(long address) {
+        checkNotClosed();
+
+        final long block = address - BLOCK_HEADER_SIZE_BYTES;
+        final long sizeClass = Jvm.getLong(block);
+
+        if (sizeClass == LARGE_CLASS) {
+            delegate.free(block);
+            return;
+        }
+
+        final int c = (int) sizeClass;
+        final ThreadCache cache = threadCaches.get();
+
+        Jvm.putLong(block, cache.heads[c]);
+        cache.heads[c] = block;
+        cache.counts[c]++;
+
+        if (cache.counts[c] > cacheLimit(c)) {
+            flush(cache, c);
+        }
+    }
+
+    public long getSlabSize() {
+        return slabSize;
+    }
+
+    public long getSlabCount() {
+        synchronized (slabLock) {
+            return slabCount;
+        }
+    }
+
+    public long getReservedBytes() {
+        synchronized (slabLock) {
+            return slabCount * slabSize;
+        }
+    }
+
+    private long refill(ThreadCache cache, int sizeClass) {
+        final int batch = batchSize(sizeClass);
+
+        final CentralList central = centralLists[sizeClass];
+        synchronized (central) {
+            if (central.head != 0) {
+                long tail = central.head;
+                int count = 1;
+                while (count < batch && Jvm.getLong(tail) != 0) {
+                    tail = Jvm.getLong(tail);
+                    count++;
+                }
+
+                final long head = central.head;
+
+                central.head = Jvm.getLong(tail);
+
+                Jvm.putLong(tail, 0);
+
+                cache.heads[sizeClass] = head;
+                cache.counts[sizeClass] = count;
+
+                return head;
+            }
+        }
+
+        return carveSlab(cache, sizeClass);
+    }
+
+    private long carveSlab(ThreadCache cache, int sizeClass) {
+        final long slab = delegate.allocate(slabSize);
+
+        synchronized (slabLock) {
+            Jvm.putLong(slab, slabs);
+            this.slabs = slab;
+            this.slabCount++;
+        }
+
+        final long classSize = CLASS_SIZES[sizeClass];
+        final long count = (slabSize - SLAB_HEADER_SIZE_BYTES) / classSize;
+        final long first = slab + SLAB_HEADER_SIZE_BYTES;
+
+        long block = first;
+        for (long i = 1; i < count; i++) {
+            Jvm.putLong(block, block + classSize);
+            block += classSize;
+        }
+        Jvm.putLong(block, 0);
+
+        cache.heads[sizeClass] = first;
+        cache.counts[sizeClass] = (int) count;
+
+        return first;
+    }
+
+    private void flush(ThreadCache cache, int sizeClass) {
+        final int keep = cache.counts[sizeClass] / 2;
+
+        long last = cache.heads[sizeClass];
+        for (int i = 1; i < keep; i++) {
+            last = Jvm.getLong(last);
+        }
+
+        final long head = Jvm.getLong(last);
+
+        long tail = head;
+        while (Jvm.getLong(tail) != 0) {
+            tail = Jvm.getLong(tail);
+        }
+
+        Jvm.putLong(last, 0);
+        cache.counts[sizeClass] = keep;
+
+        final CentralList central = centralLists[sizeClass];
+        synchronized (central) {
+            Jvm.putLong(tail, central.head);
+            central.head = head;
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Allocator is closed");
+        }
+    }
+
+    private static void checkSize(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        if (size > MAX_BLOCK_SIZE_BYTES) {
+            throw new AllocatorException("Requested size is too huge: " + size);
+        }
+    }
+
+    private static int cacheLimit(int sizeClass) {
+        return (int) Math.max(THREAD_CACHE_BYTES / CLASS_SIZES[sizeClass], MIN_BATCH_SIZE * 2);
+    }
+
+    private static int batchSize(int sizeClass) {
+        return Math.max(cacheLimit(sizeClass) / 2, MIN_BATCH_SIZE);
+    }
+
+    private static int sizeClassOf(long size) {
+        return CLASS_LOOKUP[(int) ((size + Mem.LONG_SIZE_BYTES - 1) / Mem.LONG_SIZE_BYTES)];
+    }
+
+    private static long[] createClassSizes() {
+        int count = 0;
+        for (long size = MIN_CLASS_SIZE; size <= MAX_CLASS_SIZE; size <<= 1) {
+            count += size < MAX_CLASS_SIZE ? 2 : 1;
+        }
+
+        long[] sizes = new long[count];
+
+        int index = 0;
+        for (long size = MIN_CLASS_SIZE; size <= MAX_CLASS_SIZE; size <<= 1) {
+            sizes[index++] = size;
+            if (size < MAX_CLASS_SIZE) {
+                sizes[index++] = size + (size >> 1);
+            }
+        }
+
+        return sizes;
+    }
+
+    private static byte[] createClassLookup() {
+        byte[] lookup = new byte[(int) (MAX_CLASS_SIZE / Mem.LONG_SIZE_BYTES) + 1];
+
+        int sizeClass = 0;
+        for (int i = 0; i < lookup.length; i++) {
+            while (i * Mem.LONG_SIZE_BYTES > CLASS_SIZES[sizeClass]) {
+                sizeClass++;
+            }
+            lookup[i] = (byte) sizeClass;
+        }
+
+        return lookup;
+    }
+
+    private static final class CentralList {
+
+        private long head;
+
+    }
+
+    private static final class ThreadCache {
+
+        private final long[] heads = new long[CLASS_SIZES.length];
+
+        private final int[] counts = new int[CLASS_SIZES.length];
+
+    }
+
+}
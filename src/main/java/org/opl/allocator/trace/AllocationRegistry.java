@@ -0,0 +1,54 @@
+package org.opl.allocator.trace;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Map;
+
+/**
+ * Registry of allocated blocks as a map [address of block -&gt; size of block]. All implementations must be
+ * thread-safe.
+ * @see RegistryAllocatorProxy
+ */
+@ThreadSafe
+public interface AllocationRegistry extends AutoCloseable {
+
+    /** Value returned for addresses which are not registered */
+    long NOT_FOUND = -1;
+
+    /**
+     * Registers a block
+     * @param address Block address
+     * @param size Block size
+     */
+    void put(long address, long size);
+
+    /**
+     * Fetches the size of a registered block
+     * @param address Block address
+     * @return Block size or {@link #NOT_FOUND} if the block is not registered
+     */
+    long get(long address);
+
+    /**
+     * Removes a block from the registry
+     * @param address Block address
+     * @return Block size or {@link #NOT_FOUND} if the block is not registered
+     */
+    long remove(long address);
+
+    /**
+     * Removes all blocks from the registry
+     */
+    void clear();
+
+    long getBlockCount();
+
+    long getByteCount();
+
+    /**
+     * Copies the registry content into a map
+     * @return New map instance [address of block -&gt; size of block]
+     */
+    Map<Long, Long> toMap();
+
+}
@@ -0,0 +1,68 @@
+package org.opl.allocator.trace;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * <p>Immutable snapshot of a single allocation site collected by {@link LeakTrackingAllocatorProxy}.</p>
+ *
+ * <p>The counts are based on the sampled blocks only. The estimations extrapolate them by the sampling
+ * rate, so they are statistically correct for sites which allocate many blocks.</p>
+ */
+@Immutable
+public final class AllocationSite {
+
+    private final StackTraceElement[] stackTrace;
+
+    private final long liveBlocks;
+
+    private final long liveBytes;
+
+    private final long sampling;
+
+    /**
+     * Constructs a snapshot
+     * @param stackTrace Stack trace of the allocating code
+     * @param liveBlocks Count of sampled blocks which are still alive
+     * @param liveBytes Count of bytes in sampled blocks which are still alive
+     * @param sampling Sampling rate (1 of N allocations are sampled)
+     */
+    public AllocationSite(StackTraceElement[] stackTrace, long liveBlocks, long liveBytes, long sampling) {
+        this.stackTrace = stackTrace.clone();
+        this.liveBlocks = liveBlocks;
+        this.liveBytes = liveBytes;
+        this.sampling = sampling;
+    }
+
+    public StackTraceElement[] getStackTrace() {
+        return stackTrace.clone();
+    }
+
+    public long getLiveBlocks() {
+        return liveBlocks;
+    }
+
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public long getEstimatedLiveBlocks() {
+        return liveBlocks * sampling;
+    }
+
+    public long getEstimatedLiveBytes() {
+        return liveBytes * sampling;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(liveBlocks + " sampled blocks (" + liveBytes + " bytes), estimated "
+            + getEstimatedLiveBlocks() + " blocks (" + getEstimatedLiveBytes() + " bytes)");
+
+        for (StackTraceElement element : stackTrace) {
+            sb.append(System.lineSeparator()).append("\tat ").append(element);
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.opl.allocator.trace;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.Arrays;
+
+/**
+ * <p>Immutable snapshot of the allocator statistics collected by {@link InstrumentedAllocatorProxy}.</p>
+ *
+ * <p>Counters are read one by one without a global lock, so a snapshot taken under load may be slightly
+ * inconsistent (e.g. live blocks may lag behind the allocation count by a few in-flight calls).</p>
+ */
+@Immutable
+public final class AllocatorSnapshot {
+
+    private final long allocations;
+
+    private final long reallocations;
+
+    private final long frees;
+
+    private final long liveBlocks;
+
+    private final long liveBytes;
+
+    private final long peakBytes;
+
+    private final long allocateNanos;
+
+    private final long freeNanos;
+
+    private final long[] sizeHistogram;
+
+    /**
+     * Constructs a snapshot
+     * @param allocations Count of allocate calls
+     * @param reallocations Count of reallocate calls
+     * @param frees Count of free calls
+     * @param liveBlocks Count of live blocks
+     * @param liveBytes Count of bytes in live blocks
+     * @param peakBytes Peak count of bytes in live blocks
+     * @param allocateNanos Total time spent in allocate calls
+     * @param freeNanos Total time spent in free calls
+     * @param sizeHistogram Allocation counts by size class where the class N keeps sizes in (2^(N-1), 2^N]
+     */
+    public AllocatorSnapshot(long allocations, long reallocations, long frees, long liveBlocks, long liveBytes,
+                             long peakBytes, long allocateNanos, long freeNanos, long[] sizeHistogram)
+    {
+        this.allocations = allocations;
+        this.reallocations = reallocations;
+        this.frees = frees;
+        this.liveBlocks = liveBlocks;
+        this.liveBytes = liveBytes;
+        this.peakBytes = peakBytes;
+        this.allocateNanos = allocateNanos;
+        this.freeNanos = freeNanos;
+        this.sizeHistogram = sizeHistogram.clone();
+    }
+
+    public long getAllocations() {
+        return allocations;
+    }
+
+    public long getReallocations() {
+        return reallocations;
+    }
+
+    public long getFrees() {
+        return frees;
+    }
+
+    public long getLiveBlocks() {
+        return liveBlocks;
+    }
+
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
+    public long getAllocateNanos() {
+        return allocateNanos;
+    }
+
+    public long getFreeNanos() {
+        return freeNanos;
+    }
+
+    public double getAverageAllocateNanos() {
+        return allocations != 0 ? (double) allocateNanos / allocations : 0;
+    }
+
+    public double getAverageFreeNanos() {
+        return frees != 0 ? (double) freeNanos / frees : 0;
+    }
+
+    /**
+     * Returns allocation counts by size classes
+     * @return Array where the element N is the count of allocations with size in (2^(N-1), 2^N]
+     */
+    public long[] getSizeHistogram() {
+        return sizeHistogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "AllocatorSnapshot{"
+            + "allocations=" + allocations
+            + ", reallocations=" + reallocations
+            + ", frees=" + frees
+            + ", liveBlocks=" + liveBlocks
+            + ", liveBytes=" + liveBytes
+            + ", peakBytes=" + peakBytes
+            + ", allocateNanos=" + allocateNanos
+            + ", freeNanos=" + freeNanos
+            + ", sizeHistogram=" + Arrays.toString(sizeHistogram)
+            + '}';
+    }
+}
@@ -0,0 +1,277 @@
+package org.opl.allocator.trace;
+
+import org.opl.allocator.Allocator;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Low-overhead proxy that collects allocation statistics. Cheap enough to stay enabled in production.</p>
+ *
+ * <p>Collects:</p>
+ * <ul>
+ *     <li>Counts of allocate, reallocate and free calls</li>
+ *     <li>Live bytes and the peak of live bytes</li>
+ *     <li>Histogram of allocation sizes by log2 size classes</li>
+ *     <li>Time spent in allocate and free calls (optional)</li>
+ * </ul>
+ *
+ * <p>All counters are striped and cache-line padded ({@link LongAdder}), so concurrent threads don't contend
+ * on a single memory location. The peak is refreshed on every large allocation, on a random sample of small
+ * ones and on every {@link #snapshot()}, so it may miss a short spike made of small blocks.</p>
+ *
+ * <p>The structure of allocated block</p>
+ * <pre>
+ * +------------+------------+----- ..... -----+
+ * | block size |  padding   |   memory block  |
+ * |            |            |  for the caller |
+ * | (8 bytes)  | (8 bytes)  |  (`size` bytes) |
+ * +------------+------------+----- ..... -----+
+ * </pre>
+ *
+ * <p>The header is padded to 16 bytes, so the caller gets the same alignment as from <code>malloc</code>. The
+ * header makes every request larger than the caller's size, so allocators of fixed-size blocks like
+ * {@link org.opl.allocator.PooledAllocator} can't be wrapped.</p>
+ *
+ * <p>Can be combined with {@link RegistryAllocatorProxy} and {@link DefensiveAllocatorProxy}</p>
+ */
+public class InstrumentedAllocatorProxy implements Allocator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstrumentedAllocatorProxy.class);
+
+    private static final long HEADER_SIZE_BYTES = Mem.LONG_SIZE_BYTES + Mem.LONG_SIZE_BYTES;
+
+    private static final int SIZE_CLASSES = Long.SIZE;
+
+    private static final long PEAK_EXACT_SIZE = 64 * Mem.KB;
+
+    private static final int PEAK_SAMPLING = 64;
+
+    private final Allocator delegate;
+
+    private final boolean delegateIsOwned;
+
+    private final boolean timing;
+
+    private final LongAdder allocations;
+
+    private final LongAdder reallocations;
+
+    private final LongAdder frees;
+
+    private final LongAdder liveBlocks;
+
+    private final LongAdder liveBytes;
+
+    private final LongAdder allocateNanos;
+
+    private final LongAdder freeNanos;
+
+    private final LongAdder[] sizeHistogram;
+
+    private final AtomicLong peakBytes;
+
+    /**
+     * Constructs an instrumented proxy with timing enabled
+     * @param delegate Delegate allocator instance
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     */
+    public InstrumentedAllocatorProxy(@Nonnull Allocator delegate,
+                                      boolean delegateIsOwned)
+    {
+        this(delegate, delegateIsOwned, true);
+    }
+
+    /**
+     * Constructs an instrumented proxy
+     * @param delegate Delegate allocator instance
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param timing If set to <code>true</code> then time of allocate and free calls is measured
+     */
+    public InstrumentedAllocatorProxy(@Nonnull Allocator delegate,
+                                      boolean delegateIsOwned,
+                                      boolean timing)
+    {
+        OplUtils.checkNotNull(delegate, "Delegate is not set");
+
+        this.delegate = delegate;
+        this.delegateIsOwned = delegateIsOwned;
+        this.timing = timing;
+
+        this.allocations = new LongAdder();
+        this.reallocations = new LongAdder();
+        this.frees = new LongAdder();
+        this.liveBlocks = new LongAdder();
+        this.liveBytes = new LongAdder();
+        this.allocateNanos = new LongAdder();
+        this.freeNanos = new LongAdder();
+        this.peakBytes = new AtomicLong(0);
+
+        this.sizeHistogram = new LongAdder[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            sizeHistogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Starts a new measurement interval: clears the call counts, the timings and the size histogram, and lowers
+     * the peak to the current live bytes. The live blocks and bytes are kept, because the blocks allocated
+     * before the reset are still to be released.
+     */
+    public void reset() {
+        allocations.reset();
+        reallocations.reset();
+        frees.reset();
+        allocateNanos.reset();
+        freeNanos.reset();
+        peakBytes.set(liveBytes.sum());
+
+        for (LongAdder counter : sizeHistogram) {
+            counter.reset();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegateIsOwned) {
+            delegate.close();
+        }
+
+        long blocks = liveBlocks.sum();
+        if (blocks != 0) {
+            LOGGER.warn("There are {} unreleased memory blocks ({} bytes)", blocks, liveBytes.sum());
+        }
+    }
+
+    @Override
+    public long allocate(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        final long started = timing ? System.nanoTime() : 0;
+
+        return register(delegate.allocate(size + HEADER_SIZE_BYTES), size, started);
+    }
+
+    @Override
+    public long allocateZeroed(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        final long started = timing ? System.nanoTime() : 0;
+
+        return register(delegate.allocateZeroed(size + HEADER_SIZE_BYTES), size, started);
+    }
+
+    @Override
+    public long reallocate(long address, long newSize) {
+        OplUtils.checkGreaterThanZero(newSize, "Size must be greater than 0");
+
+        final long delegateAddress = address - HEADER_SIZE_BYTES;
+        final long size = Jvm.getLong(delegateAddress);
+
+        final long newDelegateAddress = delegate.reallocate(delegateAddress, newSize + HEADER_SIZE_BYTES);
+        Jvm.putLong(newDelegateAddress, newSize);
+
+        reallocations.increment();
+        liveBytes.add(newSize - size);
+
+        if (newSize > size) {
+            refreshPeak();
+        }
+
+        return newDelegateAddress + HEADER_SIZE_BYTES;
+    }
+
+    @Override
+    public void free(long address) {
+        final long delegateAddress = address - HEADER_SIZE_BYTES;
+        final long size = Jvm.getLong(delegateAddress);
+
+        final long started = timing ? System.nanoTime() : 0;
+
+        delegate.free(delegateAddress);
+
+        if (timing) {
+            freeNanos.add(System.nanoTime() - started);
+        }
+
+        frees.increment();
+        liveBlocks.decrement();
+        liveBytes.add(-size);
+    }
+
+    /**
+     * Takes a snapshot of the statistics
+     * @return Snapshot
+     */
+    public AllocatorSnapshot snapshot() {
+        refreshPeak();
+
+        long[] histogram = new long[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            histogram[i] = sizeHistogram[i].sum();
+        }
+
+        return new AllocatorSnapshot(
+            allocations.sum(),
+            reallocations.sum(),
+            frees.sum(),
+            liveBlocks.sum(),
+            liveBytes.sum(),
+            peakBytes.get(),
+            allocateNanos.sum(),
+            freeNanos.sum(),
+            histogram);
+    }
+
+    public long getAllocatedBytes() {
+        return liveBytes.sum();
+    }
+
+    public long getAllocatedBlocks() {
+        return liveBlocks.sum();
+    }
+
+    private long register(long delegateAddress, long size, long started) {
+        Jvm.putLong(delegateAddress, size);
+
+        if (timing) {
+            allocateNanos.add(System.nanoTime() - started);
+        }
+
+        allocations.increment();
+        liveBlocks.increment();
+        liveBytes.add(size);
+        sizeHistogram[sizeClass(size)].increment();
+
+        if (size >= PEAK_EXACT_SIZE || ThreadLocalRandom.current().nextInt(PEAK_SAMPLING) == 0) {
+            refreshPeak();
+        }
+
+        return delegateAddress + HEADER_SIZE_BYTES;
+    }
+
+    private void refreshPeak() {
+        final long live = liveBytes.sum();
+
+        long peak = peakBytes.get();
+        while (live > peak) {
+            if (peakBytes.compareAndSet(peak, live)) {
+                return;
+            }
+            peak = peakBytes.get();
+        }
+    }
+
+    private static int sizeClass(long size) {
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(size - 1), SIZE_CLASSES - 1);
+    }
+
+}
@@ -0,0 +1,322 @@
+package org.opl.allocator.trace;
+
+import org.opl.allocator.Allocator;
+import org.opl.util.OplUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Finds the code that leaks memory blocks. Captures the stack trace for a random sample of allocations
+ * (1 of N) and keeps the sampled blocks until they are released. The surviving blocks are grouped by the
+ * allocating stack trace and ranked by live bytes, so a slow leak shows up as a site which keeps growing.</p>
+ *
+ * <p>The overhead on the non-sampled allocations is a random number and a lookup in the off-heap registry on
+ * release, so the proxy can stay enabled in long-running production processes.</p>
+ *
+ * <p>Sample usage:</p>
+ * <pre>
+ * LeakTrackingAllocatorProxy allocator = new LeakTrackingAllocatorProxy(new SystemAllocator(), true, 1000);
+ * ...
+ * for (AllocationSite site : allocator.getLiveSites()) {
+ *     LOGGER.info("Live site: {}", site);
+ * }
+ * </pre>
+ *
+ * <p>Unlike {@link RegistryAllocatorProxy} the proxy doesn't validate addresses and doesn't throw on
+ * {@link #close()} - the surviving sites are logged instead.</p>
+ */
+public class LeakTrackingAllocatorProxy implements Allocator {
+
+    /** Default count of stack frames kept per site */
+    public static final int DEFAULT_STACK_DEPTH = 16;
+
+    /** Count of sites reported on closing */
+    public static final int REPORT_LIMIT = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeakTrackingAllocatorProxy.class);
+
+    private static final int SITE_SHIFT = 40;
+
+    private static final long SIZE_MASK = (1L << SITE_SHIFT) - 1;
+
+    private static final int MAX_SITES = 1 << (Long.SIZE - SITE_SHIFT - 1);
+
+    private final Allocator delegate;
+
+    private final boolean delegateIsOwned;
+
+    private final int sampling;
+
+    private final int stackDepth;
+
+    private final OffHeapAllocationRegistry sampledBlocks;
+
+    private final Map<List<StackTraceElement>, TrackedSite> sitesByStack;
+
+    private final List<TrackedSite> sitesById;
+
+    /**
+     * Constructs a leak-tracking proxy with the default stack depth
+     * @param delegate Delegate allocator instance
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param sampling Sampling rate - 1 of N allocations is tracked (1 tracks all allocations)
+     */
+    public LeakTrackingAllocatorProxy(@Nonnull Allocator delegate,
+                                      boolean delegateIsOwned,
+                                      int sampling)
+    {
+        this(delegate, delegateIsOwned, sampling, DEFAULT_STACK_DEPTH);
+    }
+
+    /**
+     * Constructs a leak-tracking proxy
+     * @param delegate Delegate allocator instance
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param sampling Sampling rate - 1 of N allocations is tracked (1 tracks all allocations)
+     * @param stackDepth Count of stack frames kept per site
+     */
+    public LeakTrackingAllocatorProxy(@Nonnull Allocator delegate,
+                                      boolean delegateIsOwned,
+                                      int sampling,
+                                      int stackDepth)
+    {
+        OplUtils.checkNotNull(delegate, "Delegate is not set");
+        OplUtils.checkGreaterThanZero(sampling, "Sampling must be greater than 0");
+        OplUtils.checkGreaterThanZero(stackDepth, "Stack depth must be greater than 0");
+
+        this.delegate = delegate;
+        this.delegateIsOwned = delegateIsOwned;
+        this.sampling = sampling;
+        this.stackDepth = stackDepth;
+
+        this.sampledBlocks = new OffHeapAllocationRegistry();
+        this.sitesByStack = new ConcurrentHashMap<>();
+        this.sitesById = new ArrayList<>();
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            if (LOGGER.isWarnEnabled()) {
+                List<AllocationSite> sites = getLiveSites();
+                if (!sites.isEmpty()) {
+                    LOGGER.warn("There are {} allocation sites with unreleased memory blocks:{}{}",
+                        sites.size(), System.lineSeparator(), report(sites, REPORT_LIMIT));
+                }
+            }
+        } finally {
+            sampledBlocks.close();
+
+            if (delegateIsOwned) {
+                delegate.close();
+            }
+        }
+    }
+
+    @Override
+    public long allocate(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        return track(delegate.allocate(size), size);
+    }
+
+    @Override
+    public long allocateZeroed(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        return track(delegate.allocateZeroed(size), size);
+    }
+
+    @Override
+    public long reallocate(long address, long newSize) {
+        OplUtils.checkGreaterThanZero(newSize, "Size must be greater than 0");
+
+        final long packed = sampledBlocks.get(address);
+
+        // the block stays sampled if the delegate fails
+        final long newAddress = delegate.reallocate(address, newSize);
+
+        if (packed != AllocationRegistry.NOT_FOUND) {
+            sampledBlocks.remove(address);
+
+            final TrackedSite site = siteById(packed);
+            site.unregister(unpackSize(packed));
+
+            if (newSize <= SIZE_MASK) {
+                sampledBlocks.put(newAddress, pack(site.id, newSize));
+                site.register(newSize);
+            }
+        }
+
+        return newAddress;
+    }
+
+    @Override
+    public void free(long address) {
+        final long packed = sampledBlocks.remove(address);
+        if (packed != AllocationRegistry.NOT_FOUND) {
+            siteById(packed).unregister(unpackSize(packed));
+        }
+
+        delegate.free(address);
+    }
+
+    /**
+     * Collects the sites which have live sampled blocks
+     * @return List of sites ordered by live bytes (the largest first)
+     */
+    public List<AllocationSite> getLiveSites() {
+        List<AllocationSite> result = new ArrayList<>();
+
+        for (TrackedSite site : sitesByStack.values()) {
+            final long blocks = site.liveBlocks.get();
+            if (blocks > 0) {
+                result.add(new AllocationSite(site.stackTrace, blocks, site.liveBytes.get(), sampling));
+            }
+        }
+
+        result.sort(Comparator.comparingLong(AllocationSite::getLiveBytes).reversed());
+
+        return result;
+    }
+
+    /**
+     * Formats a report on the largest live sites
+     * @param limit Maximal count of sites in the report
+     * @return Human-readable report
+     */
+    public String report(int limit) {
+        return report(getLiveSites(), limit);
+    }
+
+    public int getSampling() {
+        return sampling;
+    }
+
+    public long getSampledBlocks() {
+        return sampledBlocks.getBlockCount();
+    }
+
+    private long track(long address, long size) {
+        if (isSampled(size)) {
+            final TrackedSite site = site(captureStackTrace());
+            if (site != null) {
+                sampledBlocks.put(address, pack(site.id, size));
+                site.register(size);
+            }
+        }
+
+        return address;
+    }
+
+    private boolean isSampled(long size) {
+        return size <= SIZE_MASK && (sampling == 1 || ThreadLocalRandom.current().nextInt(sampling) == 0);
+    }
+
+    private StackTraceElement[] captureStackTrace() {
+        final StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+
+        // skip the frames of this proxy
+        final String proxyClassName = LeakTrackingAllocatorProxy.class.getName();
+
+        int from = 0;
+        while (from < stackTrace.length && proxyClassName.equals(stackTrace[from].getClassName())) {
+            from++;
+        }
+
+        return Arrays.copyOfRange(stackTrace, from, Math.min(from + stackDepth, stackTrace.length));
+    }
+
+    private TrackedSite site(StackTraceElement[] stackTrace) {
+        final List<StackTraceElement> key = Arrays.asList(stackTrace);
+
+        final TrackedSite site = sitesByStack.get(key);
+        if (site != null) {
+            return site;
+        }
+
+        synchronized (sitesById) {
+            return sitesByStack.computeIfAbsent(key, k -> {
+                if (sitesById.size() >= MAX_SITES) {
+                    return null;
+                }
+
+                final TrackedSite created = new TrackedSite(sitesById.size(), stackTrace);
+                sitesById.add(created);
+                return created;
+            });
+        }
+    }
+
+    private TrackedSite siteById(long packed) {
+        synchronized (sitesById) {
+            return sitesById.get((int) (packed >>> SITE_SHIFT));
+        }
+    }
+
+    private static long pack(int siteId, long size) {
+        return ((long) siteId << SITE_SHIFT) | size;
+    }
+
+    private static long unpackSize(long packed) {
+        return packed & SIZE_MASK;
+    }
+
+    private static String report(List<AllocationSite> sites, int limit) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < sites.size() && i < limit; i++) {
+            sb.append('#').append(i + 1).append(": ").append(sites.get(i)).append(System.lineSeparator());
+        }
+
+        if (sites.size() > limit) {
+            sb.append("... and ").append(sites.size() - limit).append(" more sites").append(System.lineSeparator());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Mutable counters of a single allocation site
+     */
+    private static final class TrackedSite {
+
+        private final int id;
+
+        private final StackTraceElement[] stackTrace;
+
+        private final AtomicLong liveBlocks;
+
+        private final AtomicLong liveBytes;
+
+        private TrackedSite(int id, StackTraceElement[] stackTrace) {
+            this.id = id;
+            this.stackTrace = stackTrace;
+            this.liveBlocks = new AtomicLong(0);
+            this.liveBytes = new AtomicLong(0);
+        }
+
+        void register(long size) {
+            liveBlocks.incrementAndGet();
+            liveBytes.addAndGet(size);
+        }
+
+        void unregister(long size) {
+            liveBlocks.decrementAndGet();
+            liveBytes.addAndGet(-size);
+        }
+
+    }
+
+}
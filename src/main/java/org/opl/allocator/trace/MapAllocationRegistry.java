@@ -0,0 +1,71 @@
+package org.opl.allocator.trace;
+
+import org.opl.util.OplUtils;
+
+import javax.annotation.Nonnull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of allocated blocks on top of a thread-safe {@link Map} instance
+ */
+public class MapAllocationRegistry implements AllocationRegistry {
+
+    private final Map<Long, Long> map;
+
+    /**
+     * Constructs a registry
+     * @param map Some thread-safe map instance that should be used as a registry
+     */
+    public MapAllocationRegistry(@Nonnull Map<Long, Long> map) {
+        OplUtils.checkNotNull(map, "Registry map is not set");
+
+        this.map = map;
+    }
+
+    @Override
+    public void put(long address, long size) {
+        map.put(address, size);
+    }
+
+    @Override
+    public long get(long address) {
+        Long v = map.get(address);
+        return v != null ? v : NOT_FOUND;
+    }
+
+    @Override
+    public long remove(long address) {
+        Long v = map.remove(address);
+        return v != null ? v : NOT_FOUND;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public long getBlockCount() {
+        return map.size();
+    }
+
+    @Override
+    public long getByteCount() {
+        return map.values().stream()
+            .mapToLong(Long::longValue)
+            .sum();
+    }
+
+    @Override
+    public Map<Long, Long> toMap() {
+        return new HashMap<>(map);
+    }
+
+    @Override
+    public void close() throws Exception {
+        // nothing to release
+    }
+
+}
@@ -0,0 +1,379 @@
+package org.opl.allocator.trace;
+
+import org.opl.allocator.AllocatorException;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+import org.opl.util.OplUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Registry of allocated blocks kept in off-heap hash tables. Neither registration nor removal of a block
+ * creates any object on the heap, so the registry can track tens of millions of live blocks without GC
+ * pressure.</p>
+ *
+ * <p>The registry is split into segments by the hash of the address. Every segment is an open-addressing table
+ * with linear probing guarded by its own lock, and keeps a running total of bytes, so
+ * {@link #getByteCount()} doesn't walk the table. Removal uses backward-shift deletion, so the tables never
+ * accumulate tombstones.</p>
+ *
+ * <p>The structure of the table entry</p>
+ * <pre>
+ * +-----------+------------+
+ * |  address  | block size |
+ * | (8 bytes) | (8 bytes)  |
+ * +-----------+------------+
+ * </pre>
+ *
+ * <p>Address 0 marks an empty entry, so it can't be registered. The tables are released on {@link #close()}.</p>
+ */
+public class OffHeapAllocationRegistry implements AllocationRegistry {
+
+    /** Default count of segments */
+    public static final int DEFAULT_SEGMENT_COUNT = 64;
+
+    /** Default initial capacity of a segment in entries */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 16;
+
+    private static final long ENTRY_SIZE_BYTES = 2 * Mem.LONG_SIZE_BYTES;
+
+    private static final long GOLDEN_RATIO = 0x9E37_79B9_7F4A_7C15L;
+
+    private static final int LOAD_FACTOR_SHIFT = 2;
+
+    private static final int MIN_SEGMENT_CAPACITY = 1 << LOAD_FACTOR_SHIFT;
+
+    private final Segment[] segments;
+
+    private final int segmentShift;
+
+    private final int segmentMask;
+
+    /**
+     * Constructs a registry with the default settings
+     */
+    public OffHeapAllocationRegistry() {
+        this(DEFAULT_SEGMENT_COUNT, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * Constructs a registry
+     * @param segmentCount Count of segments (rounded up to the power of 2) - the level of concurrency
+     * @param segmentCapacity Initial capacity of a segment in entries (rounded up to the power of 2)
+     */
+    public OffHeapAllocationRegistry(int segmentCount, int segmentCapacity) {
+        OplUtils.checkGreaterThanZero(segmentCount, "Segment count must be greater than 0");
+        OplUtils.checkGreaterThanZero(segmentCapacity, "Segment capacity must be greater than 0");
+
+        final int count = powerOfTwo(segmentCount);
+
+        this.segments = new Segment[count];
+        this.segmentShift = Math.min(Long.SIZE - Integer.numberOfTrailingZeros(count), Long.SIZE - 1);
+        this.segmentMask = count - 1;
+
+        final int capacity = Math.max(powerOfTwo(segmentCapacity), MIN_SEGMENT_CAPACITY);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    @Override
+    public void put(long address, long size) {
+        if (address == 0) {
+            throw new AllocatorException("Null address can't be registered");
+        }
+
+        final long hash = hash(address);
+        segment(hash).put(address, size, hash);
+    }
+
+    @Override
+    public long get(long address) {
+        if (address == 0) {
+            return NOT_FOUND;
+        }
+
+        final long hash = hash(address);
+        return segment(hash).get(address, hash);
+    }
+
+    @Override
+    public long remove(long address) {
+        if (address == 0) {
+            return NOT_FOUND;
+        }
+
+        final long hash = hash(address);
+        return segment(hash).remove(address, hash);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public long getBlockCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.getBlockCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getByteCount() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.getByteCount();
+        }
+        return bytes;
+    }
+
+    /**
+     * Calculates the off-heap memory occupied by the tables
+     * @return Count of bytes
+     */
+    public long getFootprint() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.getFootprint();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Map<Long, Long> toMap() {
+        Map<Long, Long> result = new HashMap<>();
+        for (Segment segment : segments) {
+            segment.copyTo(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> segmentShift) & segmentMask];
+    }
+
+    private static long hash(long address) {
+        // blocks are aligned, so the low bits of the address carry no entropy - mix them into the high bits
+        return address * GOLDEN_RATIO;
+    }
+
+    private static int powerOfTwo(int value) {
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Open-addressing table [address -> size] guarded by its own monitor
+     */
+    private static final class Segment {
+
+        private long table;
+
+        private int capacity;
+
+        private long blockCount;
+
+        private long byteCount;
+
+        private Segment(int capacity) {
+            this.table = allocateTable(capacity);
+            this.capacity = capacity;
+        }
+
+        synchronized void put(long address, long size, long hash) {
+            checkNotClosed();
+
+            final int mask = capacity - 1;
+            for (int i = index(hash, mask); true; i = (i + 1) & mask) {
+                final long entry = entry(i);
+                final long key = Jvm.getLong(entry);
+
+                if (key == address) {
+                    byteCount += size - Jvm.getLong(entry + Mem.LONG_SIZE_BYTES);
+                    Jvm.putLong(entry + Mem.LONG_SIZE_BYTES, size);
+                    return;
+                }
+
+                if (key == 0) {
+                    Jvm.putLong(entry, address);
+                    Jvm.putLong(entry + Mem.LONG_SIZE_BYTES, size);
+
+                    blockCount++;
+                    byteCount += size;
+
+                    if (blockCount > capacity - (capacity >>> LOAD_FACTOR_SHIFT)) {
+                        resize();
+                    }
+                    return;
+                }
+            }
+        }
+
+        synchronized long get(long address, long hash) {
+            checkNotClosed();
+
+            final int mask = capacity - 1;
+            for (int i = index(hash, mask); true; i = (i + 1) & mask) {
+                final long entry = entry(i);
+                final long key = Jvm.getLong(entry);
+
+                if (key == address) {
+                    return Jvm.getLong(entry + Mem.LONG_SIZE_BYTES);
+                }
+                if (key == 0) {
+                    return NOT_FOUND;
+                }
+            }
+        }
+
+        synchronized long remove(long address, long hash) {
+            checkNotClosed();
+
+            final int mask = capacity - 1;
+            int i = index(hash, mask);
+            while (true) {
+                final long key = Jvm.getLong(entry(i));
+                if (key == address) {
+                    break;
+                }
+                if (key == 0) {
+                    return NOT_FOUND;
+                }
+                i = (i + 1) & mask;
+            }
+
+            final long size = Jvm.getLong(entry(i) + Mem.LONG_SIZE_BYTES);
+
+            blockCount--;
+            byteCount -= size;
+
+            // backward-shift deletion: move up the following entries which can't be reached over the gap
+            int gap = i;
+            for (int j = (gap + 1) & mask; true; j = (j + 1) & mask) {
+                final long key = Jvm.getLong(entry(j));
+                if (key == 0) {
+                    break;
+                }
+
+                final int home = index(hash(key), mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    Jvm.copyMemory(entry(j), entry(gap), ENTRY_SIZE_BYTES);
+                    gap = j;
+                }
+            }
+
+            Jvm.setMemory(entry(gap), ENTRY_SIZE_BYTES, (byte) 0);
+
+            return size;
+        }
+
+        synchronized void clear() {
+            checkNotClosed();
+
+            Jvm.setMemory(table, capacity * ENTRY_SIZE_BYTES, (byte) 0);
+            blockCount = 0;
+            byteCount = 0;
+        }
+
+        synchronized long getBlockCount() {
+            return blockCount;
+        }
+
+        synchronized long getByteCount() {
+            return byteCount;
+        }
+
+        synchronized long getFootprint() {
+            return table != 0 ? capacity * ENTRY_SIZE_BYTES : 0;
+        }
+
+        synchronized void copyTo(Map<Long, Long> result) {
+            checkNotClosed();
+
+            for (int i = 0; i < capacity; i++) {
+                final long key = Jvm.getLong(entry(i));
+                if (key != 0) {
+                    result.put(key, Jvm.getLong(entry(i) + Mem.LONG_SIZE_BYTES));
+                }
+            }
+        }
+
+        synchronized void close() {
+            if (table != 0) {
+                Jvm.freeMemory(table);
+                table = 0;
+                blockCount = 0;
+                byteCount = 0;
+            }
+        }
+
+        private void resize() {
+            final long oldTable = table;
+            final int oldCapacity = capacity;
+
+            final int newCapacity = oldCapacity << 1;
+            if (newCapacity <= 0) {
+                throw new OutOfMemoryError("Registry segment has reached the maximal capacity");
+            }
+
+            final long newTable = allocateTable(newCapacity);
+            final int mask = newCapacity - 1;
+
+            for (int i = 0; i < oldCapacity; i++) {
+                final long oldEntry = oldTable + i * ENTRY_SIZE_BYTES;
+                final long key = Jvm.getLong(oldEntry);
+                if (key == 0) {
+                    continue;
+                }
+
+                int j = index(hash(key), mask);
+                while (Jvm.getLong(newTable + j * ENTRY_SIZE_BYTES) != 0) {
+                    j = (j + 1) & mask;
+                }
+
+                Jvm.copyMemory(oldEntry, newTable + j * ENTRY_SIZE_BYTES, ENTRY_SIZE_BYTES);
+            }
+
+            Jvm.freeMemory(oldTable);
+
+            this.table = newTable;
+            this.capacity = newCapacity;
+        }
+
+        private long entry(int index) {
+            return table + index * ENTRY_SIZE_BYTES;
+        }
+
+        private void checkNotClosed() {
+            if (table == 0) {
+                throw new IllegalStateException("Registry is closed");
+            }
+        }
+
+        private static int index(long hash, int mask) {
+            // the high bits select the segment, so the slot is taken from the middle of the hash
+            return (int) (hash >>> Integer.SIZE) & mask;
+        }
+
+        private static long allocateTable(int capacity) {
+            final long bytes = capacity * ENTRY_SIZE_BYTES;
+            final long address = Jvm.allocateMemory(bytes);
+            Jvm.setMemory(address, bytes, (byte) 0);
+            return address;
+        }
+
+    }
+
+}
@@ -6,7 +6,6 @@ import org.opl.util.OplUtils;
 
 import javax.annotation.Nonnull;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -30,6 +29,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * }
  * </pre>
  *
+ * <p>By default the registry is a {@link ConcurrentHashMap}. With millions of live blocks pass an
+ * {@link OffHeapAllocationRegistry} instead, so tracking doesn't box addresses and sizes and doesn't load the
+ * garbage collector.</p>
+ *
  * <p>Can be combined with {@link DefensiveAllocatorProxy}</p>
  *
  * <p>Will not close delegate allocator - so you have to close the delegate allocator explicitly.</p>
@@ -40,7 +43,7 @@ public class RegistryAllocatorProxy implements Allocator {
 
     private final boolean delegateIsOwned;
 
-    private final Map<Long, Long> allocatedBlockRegistry;
+    private final AllocationRegistry allocatedBlockRegistry;
 
     /**
      * Constructs a listing proxy around delegate allocator
@@ -62,13 +65,26 @@ public class RegistryAllocatorProxy implements Allocator {
     public RegistryAllocatorProxy(@Nonnull Allocator delegate,
                                   boolean delegateIsOwned,
                                   @Nonnull Map<Long, Long> registryMap)
+    {
+        this(delegate, delegateIsOwned, new MapAllocationRegistry(registryMap));
+    }
+
+    /**
+     * Constructs a listing proxy around delegate allocator
+     * @param delegate Main allocator instance
+     * @param delegateIsOwned If set to <code>true</code> then delegate will also be closed on closing
+     * @param registry Registry instance (will be closed on closing)
+     */
+    public RegistryAllocatorProxy(@Nonnull Allocator delegate,
+                                  boolean delegateIsOwned,
+                                  @Nonnull AllocationRegistry registry)
     {
         OplUtils.checkNotNull(delegate, "Delegate is not set");
-        OplUtils.checkNotNull(registryMap, "Registry map is not set");
+        OplUtils.checkNotNull(registry, "Registry is not set");
 
         this.delegate = delegate;
         this.delegateIsOwned = delegateIsOwned;
-        this.allocatedBlockRegistry = registryMap;
+        this.allocatedBlockRegistry = registry;
     }
 
     public void reset() {
@@ -77,11 +93,16 @@ public class RegistryAllocatorProxy implements Allocator {
 
     @Override
     public void close() throws Exception {
-        if (delegateIsOwned) {
-            delegate.close();
+        long blocks = allocatedBlockRegistry.getBlockCount();
+
+        try {
+            if (delegateIsOwned) {
+                delegate.close();
+            }
+        } finally {
+            allocatedBlockRegistry.close();
         }
 
-        long blocks = allocatedBlockRegistry.size();
         if (blocks != 0) {
             throw new IllegalStateException("There are " + blocks
                 + " unreleased memory blocks. You have a memory leak.");
@@ -99,12 +120,22 @@ public class RegistryAllocatorProxy implements Allocator {
         return address;
     }
 
+    @Override
+    public long allocateZeroed(long size) {
+        OplUtils.checkGreaterThanZero(size, "Size must be greater than 0");
+
+        long address = delegate.allocateZeroed(size);
+
+        allocatedBlockRegistry.put(address, size);
+
+        return address;
+    }
+
     @Override
     public long reallocate(long address, long newSize) {
         OplUtils.checkGreaterThanZero(newSize, "Size must be greater than 0");
 
-        Long v = allocatedBlockRegistry.remove(address);
-        if (v == null) {
+        if (allocatedBlockRegistry.remove(address) == AllocationRegistry.NOT_FOUND) {
             throw new AllocatorException(
                 String.format("Block [0x%016x] is not registered in the allocation registry", address));
         }
@@ -117,8 +148,7 @@ public class RegistryAllocatorProxy implements Allocator {
 
     @Override
     public void free(long address) {
-        Long v = allocatedBlockRegistry.remove(address);
-        if (v == null) {
+        if (allocatedBlockRegistry.remove(address) == AllocationRegistry.NOT_FOUND) {
             throw new AllocatorException(
                 String.format("Block [0x%016x] is not registered in the allocation registry", address));
         }
@@ -127,31 +157,29 @@ public class RegistryAllocatorProxy implements Allocator {
     }
 
     public Map<Long, Long> getAllocatedBlockRegistry() {
-        return new HashMap<>(allocatedBlockRegistry);
+        return allocatedBlockRegistry.toMap();
     }
 
     public long getAllocatedBytes() {
-        return allocatedBlockRegistry.values().stream()
-            .mapToLong(Long::longValue)
-            .sum();
+        return allocatedBlockRegistry.getByteCount();
     }
 
     public long getAllocatedBlocks() {
-        return allocatedBlockRegistry.size();
+        return allocatedBlockRegistry.getBlockCount();
     }
 
     public boolean hasBlock(long address) {
-        return allocatedBlockRegistry.containsKey(address);
+        return allocatedBlockRegistry.get(address) != AllocationRegistry.NOT_FOUND;
     }
 
     public long getBlockSize(long address) {
-        Long v = allocatedBlockRegistry.get(address);
-        if (v == null) {
+        long size = allocatedBlockRegistry.get(address);
+        if (size == AllocationRegistry.NOT_FOUND) {
             throw new AllocatorException(
                 String.format("Block [0x%016x] is not registered in the allocation registry", address));
         }
 
-        return v;
+        return size;
     }
 
 }
@@ -0,0 +1,141 @@
+package org.opl.platform;
+
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Low-level operations with direct NIO buffers (including {@link java.nio.MappedByteBuffer})</p>
+ *
+ * <p>Uses {@link Jvm} and reflection to reach the native address of the buffer and to release
+ * the buffer memory explicitly without waiting for the garbage collector.</p>
+ */
+public final class DirectBuffers {
+
+    private static final long ADDRESS_FIELD_OFFSET = bufferFieldOffset("address");
+
+    private static final long CAPACITY_FIELD_OFFSET = bufferFieldOffset("capacity");
+
+    private static final long LIMIT_FIELD_OFFSET = bufferFieldOffset("limit");
+
+    private static final ByteBuffer TEMPLATE = ByteBuffer.allocateDirect(0);
+
+    private static final long ATTACHMENT_FIELD_OFFSET = attachmentFieldOffset();
+
+    private static final Method INVOKE_CLEANER_METHOD = findInvokeCleanerMethod();
+
+    private DirectBuffers() {
+        // nothing to do in an utility class
+    }
+
+    /**
+     * Fetches the native address of a direct buffer
+     * @param buffer Direct buffer
+     * @return Address of the first byte of the buffer (the position is not taken into account)
+     */
+    public static long address(Buffer buffer) {
+        checkDirect(buffer);
+
+        return Jvm.getLong(buffer, ADDRESS_FIELD_OFFSET);
+    }
+
+    /**
+     * <p>Creates a direct buffer over an arbitrary native memory region without copying. The buffer doesn't own
+     * the memory, so it's not released when the buffer is collected, and the region must outlive the buffer.</p>
+     *
+     * <p>The buffer is a duplicate of a zero-sized template with the address and the capacity replaced, so all
+     * the other fields are initialized by the JDK itself. The byte order is {@link java.nio.ByteOrder#BIG_ENDIAN}
+     * as for any new buffer.</p>
+     * @param address Address of the region
+     * @param size Size of the region
+     * @return Direct buffer with position 0 and limit equal to the size
+     */
+    public static ByteBuffer view(long address, int size) {
+        return view(address, size, null);
+    }
+
+    /**
+     * Creates a direct buffer over an arbitrary native memory region without copying, the same as
+     * {@link #view(long, int)} does. The attachment is kept by the buffer (and by its duplicates and slices) the
+     * same way as a direct buffer keeps the buffer it was sliced from, so the owner of the region stays reachable
+     * while the buffer is in use.
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param attachment Owner of the region (may be <code>null</code>)
+     * @return Direct buffer with position 0 and limit equal to the size
+     */
+    public static ByteBuffer view(long address, int size, Object attachment) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must be positive or zero");
+        }
+
+        final ByteBuffer buffer = TEMPLATE.duplicate();
+
+        Jvm.putLong(buffer, ADDRESS_FIELD_OFFSET, address);
+        Jvm.putInt(buffer, CAPACITY_FIELD_OFFSET, size);
+        Jvm.putInt(buffer, LIMIT_FIELD_OFFSET, size);
+        Jvm.putObject(buffer, ATTACHMENT_FIELD_OFFSET, attachment);
+
+        return buffer;
+    }
+
+    /**
+     * Releases the memory of a direct buffer immediately (unmaps the region of a mapped buffer). Any access to
+     * the buffer after the release crashes the JVM.
+     * @param buffer Direct buffer
+     */
+    public static void release(ByteBuffer buffer) {
+        checkDirect(buffer);
+
+        try {
+            if (INVOKE_CLEANER_METHOD != null) {
+                INVOKE_CLEANER_METHOD.invoke(Jvm.UNSAFE, buffer);
+            } else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Fail to release the direct buffer", e);
+        }
+    }
+
+    private static void checkDirect(Buffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Buffer is not specified");
+        }
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer is not direct");
+        }
+    }
+
+    private static long bufferFieldOffset(String name) {
+        try {
+            return Jvm.objectFieldOffset(Buffer.class.getDeclaredField(name));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Fail to resolve the field java.nio.Buffer." + name, e);
+        }
+    }
+
+    private static long attachmentFieldOffset() {
+        try {
+            return Jvm.objectFieldOffset(TEMPLATE.getClass().getDeclaredField("att"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Fail to resolve the field java.nio.DirectByteBuffer.att", e);
+        }
+    }
+
+    private static Method findInvokeCleanerMethod() {
+        try {
+            // Java 9+
+            return Jvm.UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+}
@@ -43,6 +43,9 @@ public final class Mem {
     public static final long DOUBLE_SIZE_BYTES = Double.BYTES;
     public static final long DOUBLE_SIZE_BITS = Double.SIZE;
 
+    /** Size of the CPU cache line on x86-64 and most of ARM64 cores */
+    public static final long CACHE_LINE_SIZE_BYTES = 64;
+
     public static final byte BIT_00 = (byte) bit(0);
     public static final byte BIT_01 = (byte) bit(1);
     public static final byte BIT_02 = (byte) bit(2);
@@ -291,6 +294,20 @@ public final class Mem {
         return (value & mask) == 0;
     }
 
+    // alignment
+
+    public static boolean isAligned(long value, long alignment) {
+        return (value & (alignment - 1)) == 0;
+    }
+
+    public static long alignUp(long value, long alignment) {
+        return (value + alignment - 1) & -alignment;
+    }
+
+    public static long alignDown(long value, long alignment) {
+        return value & -alignment;
+    }
+
     // bit indexing
 
     public static long offsetFromBitIndex(long bitIndex) {
@@ -0,0 +1,444 @@
+package org.opl.platform;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>Bulk operations on memory regions. Regions are compared 8 bytes per step, the first differing byte
+ * inside of a word is located with {@link Long#numberOfTrailingZeros(long)} (or
+ * {@link Long#numberOfLeadingZeros(long)} on big-endian platforms).</p>
+ *
+ * <p>Bytes are compared as unsigned values, so the order is the same as the lexicographic order of the byte
+ * sequences. Platforms without unaligned memory access fall back to byte-by-byte comparison.</p>
+ *
+ * <p>Bytes are searched with SIMD-within-a-register tricks: 8 bytes are compared with the value at once and the
+ * matching bytes are marked by the high bits of the word. Longer patterns are searched with the Horspool
+ * algorithm, short ones by scanning for the first byte of the pattern.</p>
+ *
+ * <p>Fill, copy and pre-touch of large regions can run on a {@link ForkJoinPool}. The region is split into
+ * page-aligned chunks, so every page is faulted in by a single thread and the first-touch cost is spread over
+ * the cores as well.</p>
+ */
+public final class MemOps {
+
+    /** The platform is little-endian */
+    public static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    /** The platform supports unaligned reads of longs */
+    public static final boolean UNALIGNED_ACCESS = Arrays.asList("i386", "x86", "amd64", "x86_64", "aarch64",
+        "ppc64le").contains(System.getProperty("os.arch"));
+
+    /**
+     * Copies larger than this are split into chunks, so the thread reaches a safepoint between them and doesn't
+     * stall the GC while moving a huge heap array (same as the direct NIO buffers do)
+     */
+    public static final long COPY_CHUNK_SIZE_BYTES = Mem.MB;
+
+    /** Regions up to this size are processed by the calling thread only */
+    public static final long MIN_PARALLEL_CHUNK_SIZE_BYTES = 4 * Mem.MB;
+
+    private static final long WORD_SIZE_BYTES = Mem.LONG_SIZE_BYTES;
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final long ONES = 0x0101_0101_0101_0101L;
+
+    private static final long LOW_BITS = 0x7F7F_7F7F_7F7F_7F7FL;
+
+    private static final int HIGHEST_BIT = Long.SIZE - 1;
+
+    private static final int ALPHABET_SIZE = 1 << Byte.SIZE;
+
+    private static final long HORSPOOL_MIN_PATTERN_SIZE = 16;
+
+    private static final int BYTE_INDEX_SHIFT = 3;
+
+    private MemOps() {
+        // nothing to do in an utility class
+    }
+
+    /**
+     * Finds the first byte which differs in two regions
+     * @param address1 Address of the first region
+     * @param address2 Address of the second region
+     * @param size Size of the regions
+     * @return Index of the first differing byte or -1 if the regions are equal
+     */
+    public static long mismatch(long address1, long address2, long size) {
+        long i = 0;
+
+        if (UNALIGNED_ACCESS) {
+            while (i + WORD_SIZE_BYTES <= size) {
+                final long x = Jvm.getLong(address1 + i) ^ Jvm.getLong(address2 + i);
+                if (x != 0) {
+                    return i + firstByte(x);
+                }
+                i += WORD_SIZE_BYTES;
+            }
+        }
+
+        while (i < size) {
+            if (Jvm.getByte(address1 + i) != Jvm.getByte(address2 + i)) {
+                return i;
+            }
+            i++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks that two regions contain the same bytes
+     * @param address1 Address of the first region
+     * @param address2 Address of the second region
+     * @param size Size of the regions
+     * @return <code>true</code> if the regions are equal
+     */
+    public static boolean equals(long address1, long address2, long size) {
+        if (address1 == address2) {
+            return true;
+        }
+
+        long i = 0;
+
+        if (UNALIGNED_ACCESS) {
+            while (i + WORD_SIZE_BYTES <= size) {
+                if (Jvm.getLong(address1 + i) != Jvm.getLong(address2 + i)) {
+                    return false;
+                }
+                i += WORD_SIZE_BYTES;
+            }
+        }
+
+        while (i < size) {
+            if (Jvm.getByte(address1 + i) != Jvm.getByte(address2 + i)) {
+                return false;
+            }
+            i++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares two regions lexicographically as unsigned bytes
+     * @param address1 Address of the first region
+     * @param address2 Address of the second region
+     * @param size Size of the regions
+     * @return -1, 0 or 1 if the first region is less than, equal to, or greater than the second one
+     */
+    public static int compare(long address1, long address2, long size) {
+        if (address1 == address2) {
+            return 0;
+        }
+
+        final long index = mismatch(address1, address2, size);
+        if (index < 0) {
+            return 0;
+        }
+
+        final int b1 = Byte.toUnsignedInt(Jvm.getByte(address1 + index));
+        final int b2 = Byte.toUnsignedInt(Jvm.getByte(address2 + index));
+
+        return Integer.compare(b1, b2);
+    }
+
+    /**
+     * Copies bytes between native memory and heap arrays in any combination. The base object is
+     * <code>null</code> for native memory, then the offset is an absolute address.
+     * @param srcBase Base object of the source
+     * @param srcOffset Offset of the source relative to the base object
+     * @param dstBase Base object of the destination
+     * @param dstOffset Offset of the destination relative to the base object
+     * @param bytes Count of bytes to copy
+     */
+    public static void copy(Object srcBase, long srcOffset, Object dstBase, long dstOffset, long bytes) {
+        long src = srcOffset;
+        long dst = dstOffset;
+        long remaining = bytes;
+
+        while (remaining > 0) {
+            final long chunk = Math.min(remaining, COPY_CHUNK_SIZE_BYTES);
+
+            Jvm.copyMemory(srcBase, src, dstBase, dst, chunk);
+
+            src += chunk;
+            dst += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    /**
+     * Finds the first occurrence of a byte
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param value Byte to search for
+     * @return Index of the first occurrence or -1 if the region doesn't contain the byte
+     */
+    public static long indexOf(long address, long size, byte value) {
+        long i = 0;
+
+        if (UNALIGNED_ACCESS) {
+            final long pattern = ONES * (value & Mem.BYTE_MASK);
+
+            while (i + WORD_SIZE_BYTES <= size) {
+                final long found = matchBytes(Jvm.getLong(address + i), pattern);
+                if (found != 0) {
+                    return i + firstByte(found);
+                }
+                i += WORD_SIZE_BYTES;
+            }
+        }
+
+        while (i < size) {
+            if (Jvm.getByte(address + i) == value) {
+                return i;
+            }
+            i++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the last occurrence of a byte
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param value Byte to search for
+     * @return Index of the last occurrence or -1 if the region doesn't contain the byte
+     */
+    public static long lastIndexOf(long address, long size, byte value) {
+        long i = size;
+
+        if (UNALIGNED_ACCESS) {
+            final long pattern = ONES * (value & Mem.BYTE_MASK);
+
+            while (i >= WORD_SIZE_BYTES) {
+                i -= WORD_SIZE_BYTES;
+
+                final long found = matchBytes(Jvm.getLong(address + i), pattern);
+                if (found != 0) {
+                    return i + lastByte(found);
+                }
+            }
+        }
+
+        while (i > 0) {
+            i--;
+            if (Jvm.getByte(address + i) == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the first occurrence of a byte sequence
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param patternAddress Address of the pattern
+     * @param patternSize Size of the pattern
+     * @return Index of the first occurrence or -1 if the region doesn't contain the pattern
+     */
+    public static long indexOf(long address, long size, long patternAddress, long patternSize) {
+        if (patternSize == 0) {
+            return 0;
+        }
+        if (patternSize > size) {
+            return -1;
+        }
+        if (patternSize == 1) {
+            return indexOf(address, size, Jvm.getByte(patternAddress));
+        }
+        if (patternSize >= HORSPOOL_MIN_PATTERN_SIZE) {
+            return horspool(address, size, patternAddress, patternSize);
+        }
+
+        final byte first = Jvm.getByte(patternAddress);
+        final long last = size - patternSize;
+
+        long from = 0;
+        while (from <= last) {
+            final long found = indexOf(address + from, last - from + 1, first);
+            if (found < 0) {
+                return -1;
+            }
+
+            from += found;
+            if (equals(address + from + 1, patternAddress + 1, patternSize - 1)) {
+                return from;
+            }
+            from++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Fills a region on the pool
+     * @param pool Pool which runs the chunks
+     * @param address Address of the region
+     * @param size Size of the region
+     * @param value Byte value
+     */
+    public static void fill(ForkJoinPool pool, long address, long size, byte value) {
+        execute(pool, address, size, (offset, length) -> Jvm.setMemory(address + offset, length, value));
+    }
+
+    /**
+     * Copies a region on the pool. Overlapping regions are copied by the calling thread.
+     * @param pool Pool which runs the chunks
+     * @param srcAddress Address of the source region
+     * @param dstAddress Address of the destination region
+     * @param size Size of the regions
+     */
+    public static void copy(ForkJoinPool pool, long srcAddress, long dstAddress, long size) {
+        if (srcAddress < dstAddress + size && dstAddress < srcAddress + size) {
+            Jvm.copyMemory(srcAddress, dstAddress, size);
+        } else {
+            execute(pool, dstAddress, size,
+                (offset, length) -> Jvm.copyMemory(srcAddress + offset, dstAddress + offset, length));
+        }
+    }
+
+    /**
+     * Faults in all pages of a region, so the latency-critical code doesn't pay for the first touch. Every page
+     * is written with an atomic no-op (a CAS of the current value), which commits the page without changing the
+     * data even if other threads write the region concurrently.
+     * @param address Address of the region
+     * @param size Size of the region
+     */
+    public static void pretouch(long address, long size) {
+        final long end = address + size;
+
+        long position = Mem.alignUp(address, Mem.INTEGER_SIZE_BYTES);
+        while (position + Mem.INTEGER_SIZE_BYTES <= end) {
+            final int value = Jvm.getInt(position);
+            Jvm.compareAndSwapInt(null, position, value, value);
+
+            position = Mem.alignDown(position, Jvm.PAGE_SIZE) + Jvm.PAGE_SIZE;
+        }
+    }
+
+    /**
+     * Faults in all pages of a region on the pool
+     * @param pool Pool which runs the chunks
+     * @param address Address of the region
+     * @param size Size of the region
+     * @see #pretouch(long, long)
+     */
+    public static void pretouch(ForkJoinPool pool, long address, long size) {
+        execute(pool, address, size, (offset, length) -> pretouch(address + offset, length));
+    }
+
+    private static void execute(ForkJoinPool pool, long address, long size, RangeOperation operation) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool is not specified");
+        }
+
+        final long chunk = Math.max(MIN_PARALLEL_CHUNK_SIZE_BYTES,
+            Mem.alignUp(size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD), Jvm.PAGE_SIZE));
+
+        if (size <= chunk) {
+            operation.apply(0, size);
+        } else {
+            pool.invoke(new RangeTask(operation, address, 0, size, chunk));
+        }
+    }
+
+    private static long horspool(long address, long size, long patternAddress, long patternSize) {
+        final long lastIndex = patternSize - 1;
+        final byte lastByte = Jvm.getByte(patternAddress + lastIndex);
+
+        final long[] shifts = new long[ALPHABET_SIZE];
+        Arrays.fill(shifts, patternSize);
+        for (long i = 0; i < lastIndex; i++) {
+            shifts[Jvm.getByte(patternAddress + i) & Mem.BYTE_MASK] = lastIndex - i;
+        }
+
+        final long last = size - patternSize;
+
+        long from = 0;
+        while (from <= last) {
+            final byte b = Jvm.getByte(address + from + lastIndex);
+            if (b == lastByte && equals(address + from, patternAddress, lastIndex)) {
+                return from;
+            }
+            from += shifts[b & Mem.BYTE_MASK];
+        }
+
+        return -1;
+    }
+
+    private static long matchBytes(long word, long pattern) {
+        // the high bit is set exactly in the bytes which are equal in both words, no false positives
+        final long x = word ^ pattern;
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    private static int firstByte(long bits) {
+        // the byte at the lowest address is the lowest one on little-endian platforms
+        final int bit = LITTLE_ENDIAN ? Long.numberOfTrailingZeros(bits) : Long.numberOfLeadingZeros(bits);
+        return bit >>> BYTE_INDEX_SHIFT;
+    }
+
+    private static int lastByte(long bits) {
+        final int bit = LITTLE_ENDIAN
+            ? HIGHEST_BIT - Long.numberOfLeadingZeros(bits)
+            : HIGHEST_BIT - Long.numberOfTrailingZeros(bits);
+        return bit >>> BYTE_INDEX_SHIFT;
+    }
+
+    /**
+     * Operation over a part of the region
+     */
+    @FunctionalInterface
+    private interface RangeOperation {
+
+        void apply(long offset, long length);
+
+    }
+
+    /**
+     * Splits the region in halves at page boundaries until the parts are not larger than the chunk
+     */
+    private static final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeOperation operation;
+
+        private final long address;
+
+        private final long from;
+
+        private final long to;
+
+        private final long chunk;
+
+        private RangeTask(RangeOperation operation, long address, long from, long to, long chunk) {
+            this.operation = operation;
+            this.address = address;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            final long middle = Mem.alignDown(address + (from + to) / 2, Jvm.PAGE_SIZE) - address;
+
+            if (to - from <= chunk || middle <= from) {
+                operation.apply(from, to - from);
+            } else {
+                invokeAll(new RangeTask(operation, address, from, middle, chunk),
+                    new RangeTask(operation, address, middle, to, chunk));
+            }
+        }
+
+    }
+
+}
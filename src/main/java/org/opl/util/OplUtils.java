@@ -38,4 +38,10 @@ public final class OplUtils {
             throw new IllegalArgumentException(message);
         }
     }
+
+    public static void checkPowerOfTwo(long v, String message) {
+        if (v <= 0 || (v & (v - 1)) != 0) {
+            throw new IllegalArgumentException(message);
+        }
+    }
 }
@@ -0,0 +1,287 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.allocator.SystemAllocator;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Jvm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class MemoryAccessorTest {
+
+    private static final int SIZE = 1024;
+
+    private static final String TEXT = "plain \u0000 \u00E9t\u00E9 \u4E2D\u6587 \uD83D\uDE00";
+
+    private RegistryAllocatorProxy registry;
+
+    private MemoryBlockFactory factory;
+
+    private MemoryBlock block;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        factory = new MemoryBlockFactory(registry, false, true);
+        block = factory.allocateZeroed(SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.free(block);
+        factory.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void testCompatibleWithDataOutputStream() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeRecord(new DataOutputStream(bytes));
+        byte[] expected = bytes.toByteArray();
+
+        MemoryCalculator calculator = new MemoryCalculator();
+        writeRecord(calculator);
+        Assert.assertEquals(expected.length, calculator.size());
+
+        MemoryAccessor writer = new MemoryAccessor(block);
+        writeRecord(writer);
+        Assert.assertEquals(expected.length, writer.offset());
+
+        byte[] actual = new byte[expected.length];
+        new MemoryAccessor(block).readFully(actual);
+        Assert.assertArrayEquals(expected, actual);
+
+        readRecord(new MemoryAccessor(block));
+        readRecord(new DataInputStream(new ByteArrayInputStream(expected)));
+    }
+
+    @Test
+    public void testNativeOrder() throws Exception {
+        MemoryAccessor writer = new MemoryAccessor(block, ByteOrder.nativeOrder());
+        Assert.assertEquals(ByteOrder.nativeOrder(), writer.order());
+        writeRecord(writer);
+
+        MemoryAccessor reader = new MemoryAccessor(block, ByteOrder.nativeOrder());
+        readRecord(reader);
+        Assert.assertEquals(writer.offset(), reader.offset());
+
+        reader.offset(2);
+        Assert.assertEquals(0x1234, reader.readShort());
+    }
+
+    @Test
+    public void testReadLine() throws Exception {
+        MemoryAccessor writer = new MemoryAccessor(block.sliceFirst(16));
+        writer.writeBytes("one\r\ntwo\rthree\nx");
+
+        MemoryAccessor reader = new MemoryAccessor(block.sliceFirst(16));
+        Assert.assertEquals("one", reader.readLine());
+        Assert.assertEquals("two", reader.readLine());
+        Assert.assertEquals("three", reader.readLine());
+        Assert.assertEquals("x", reader.readLine());
+        Assert.assertNull(reader.readLine());
+    }
+
+    @Test
+    public void testEndOfBlock() throws Exception {
+        MemoryAccessor accessor = new MemoryAccessor(block.sliceFirst(6));
+        accessor.writeInt(1);
+
+        try {
+            accessor.writeInt(2);
+            Assert.fail();
+        } catch (EOFException e) {
+            // the position is not changed on failure
+            Assert.assertEquals(4, accessor.offset());
+        }
+
+        accessor.writeShort(3);
+        Assert.assertEquals(0, accessor.available());
+
+        try {
+            accessor.readByte();
+            Assert.fail();
+        } catch (EOFException e) {
+            // expected
+        }
+
+        MemoryAccessor reader = new MemoryAccessor(block.sliceFirst(6));
+        Assert.assertEquals(6, reader.skipBytes(10));
+        Assert.assertEquals(0, reader.skipBytes(1));
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedUTF() throws Exception {
+        MemoryAccessor writer = new MemoryAccessor(block);
+        writer.writeUTF(TEXT);
+
+        new MemoryAccessor(block.sliceFirst(writer.offset() - 1)).readUTF();
+    }
+
+    @Test
+    public void testVarLong() throws Exception {
+        long[] values = {0, 1, 127, 128, 300, 16_383, 16_384, (1L << 56) - 1, 1L << 56, (1L << 63) - 1, -1, Long.MIN_VALUE};
+        int[] sizes = {1, 1, 1, 2, 2, 2, 3, 8, 9, 9, 10, 10};
+
+        for (int i = 0; i < values.length; i++) {
+            MemoryCalculator calculator = new MemoryCalculator();
+            calculator.writeVarLong(values[i]);
+            Assert.assertEquals(sizes[i], calculator.size());
+
+            MemoryAccessor writer = new MemoryAccessor(block);
+            writer.writeVarLong(values[i]);
+            writer.writeSignedVarLong(-values[i]);
+            writer.writeVarInt((int) values[i]);
+            writer.writeSignedVarInt((int) -values[i]);
+            Assert.assertEquals(sizes[i], naiveVarLongSize(block, 0));
+
+            // decoded from a word and, at the end of the block, byte by byte
+            MemoryAccessor fast = new MemoryAccessor(block);
+            MemoryAccessor slow = new MemoryAccessor(block.sliceFirst(writer.offset()));
+            for (MemoryAccessor reader : new MemoryAccessor[] {fast, slow}) {
+                Assert.assertEquals(values[i], reader.readVarLong());
+                Assert.assertEquals(-values[i], reader.readSignedVarLong());
+                Assert.assertEquals((int) values[i], reader.readVarInt());
+                Assert.assertEquals((int) -values[i], reader.readSignedVarInt());
+                Assert.assertEquals(writer.offset(), reader.offset());
+            }
+        }
+    }
+
+    @Test
+    public void testVarLongEncoding() throws Exception {
+        MemoryAccessor writer = new MemoryAccessor(block);
+        writer.writeVarLong(300);
+        writer.writeSignedVarLong(-1);
+        writer.writeSignedVarInt(1);
+
+        byte[] encoded = new byte[4];
+        new MemoryAccessor(block).readFully(encoded);
+        Assert.assertArrayEquals(new byte[] {(byte) 0xAC, 0x02, 0x01, 0x02}, encoded);
+    }
+
+    @Test
+    public void testDeltaVarLongs() throws Exception {
+        long[] timestamps = new long[100];
+        int[] ids = new int[100];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1_500_000_000_000L + i * 1000L + (i % 3);
+            ids[i] = i * 37 % 1000 - 500;
+        }
+        ids[50] = Integer.MIN_VALUE;
+        ids[51] = Integer.MAX_VALUE;
+
+        MemoryCalculator calculator = new MemoryCalculator();
+        calculator.writeDeltaVarLongs(timestamps, 0, timestamps.length);
+        calculator.writeDeltaVarInts(ids, 0, ids.length);
+
+        MemoryAccessor writer = new MemoryAccessor(block);
+        writer.writeDeltaVarLongs(timestamps, 0, timestamps.length);
+        writer.writeDeltaVarInts(ids, 0, ids.length);
+        Assert.assertEquals(calculator.size(), writer.offset());
+        Assert.assertTrue(writer.offset() < (Long.BYTES + Integer.BYTES) * timestamps.length);
+
+        long[] actualTimestamps = new long[timestamps.length];
+        int[] actualIds = new int[ids.length + 1];
+
+        MemoryAccessor reader = new MemoryAccessor(block);
+        reader.readDeltaVarLongs(actualTimestamps, 0, timestamps.length);
+        reader.readDeltaVarInts(actualIds, 1, ids.length);
+
+        Assert.assertArrayEquals(timestamps, actualTimestamps);
+        Assert.assertArrayEquals(ids, Arrays.copyOfRange(actualIds, 1, actualIds.length));
+    }
+
+    @Test
+    public void testMalformedVarLong() throws Exception {
+        MemoryAccessor writer = new MemoryAccessor(block);
+        for (int i = 0; i < 11; i++) {
+            writer.writeByte(0xFF);
+        }
+
+        try {
+            new MemoryAccessor(block).readVarLong();
+            Assert.fail();
+        } catch (EOFException e) {
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+
+        try {
+            new MemoryAccessor(block.sliceFirst(5)).readVarLong();
+            Assert.fail();
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    private static int naiveVarLongSize(MemoryBlock block, long offset) {
+        int size = 1;
+        while (Jvm.getByte(block.address(offset + size - 1)) < 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeRecord(DataOutput out) throws IOException {
+        out.writeBoolean(true);
+        out.writeByte(-1);
+        out.writeShort(0x1234);
+        out.writeChar('\u4E2D');
+        out.writeInt(-123_456_789);
+        out.writeLong(0x0102030405060708L);
+        out.writeFloat(1.5f);
+        out.writeDouble(-2.25);
+        out.writeUTF(TEXT);
+        out.writeUTF("");
+        out.writeBytes("bytes");
+        out.writeChars("chars");
+        out.write(0xAB);
+        out.write(new byte[] {1, 2, 3, 4}, 1, 2);
+    }
+
+    private static void readRecord(DataInput in) throws IOException {
+        Assert.assertTrue(in.readBoolean());
+        Assert.assertEquals(0xFF, in.readUnsignedByte());
+        Assert.assertEquals(0x1234, in.readUnsignedShort());
+        Assert.assertEquals('\u4E2D', in.readChar());
+        Assert.assertEquals(-123_456_789, in.readInt());
+        Assert.assertEquals(0x0102030405060708L, in.readLong());
+        Assert.assertEquals(1.5f, in.readFloat(), 0.0f);
+        Assert.assertEquals(-2.25, in.readDouble(), 0.0);
+        Assert.assertEquals(TEXT, in.readUTF());
+        Assert.assertEquals("", in.readUTF());
+
+        byte[] bytes = new byte[5];
+        in.readFully(bytes);
+        Assert.assertEquals("bytes", new String(bytes, "US-ASCII"));
+
+        for (char c : "chars".toCharArray()) {
+            Assert.assertEquals(c, in.readChar());
+        }
+
+        Assert.assertEquals((byte) 0xAB, in.readByte());
+
+        byte[] tail = new byte[4];
+        in.readFully(tail, 1, 2);
+        Assert.assertArrayEquals(new byte[] {0, 2, 3, 0}, tail);
+    }
+
+}
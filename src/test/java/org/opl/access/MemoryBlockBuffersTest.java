@@ -0,0 +1,138 @@
+package org.opl.access;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockBuffers;
+import org.opl.access.block.MemoryBlockDirect;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.allocator.SystemAllocator;
+import org.opl.platform.DirectBuffers;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class MemoryBlockBuffersTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testView() throws Exception {
+        long address = Jvm.allocateMemory(64);
+        try {
+            MemoryBlock block = new MemoryBlockDirect(address, 64);
+
+            ByteBuffer buffer = MemoryBlockBuffers.asByteBuffer(block, 8, 16);
+            Assert.assertTrue(buffer.isDirect());
+            Assert.assertEquals(0, buffer.position());
+            Assert.assertEquals(16, buffer.limit());
+            Assert.assertEquals(16, buffer.capacity());
+            Assert.assertEquals(address + 8, DirectBuffers.address(buffer));
+
+            buffer.putLong(0, 0x0102030405060708L);
+            Assert.assertEquals(0x01, Jvm.getByte(address + 8));
+            Assert.assertEquals(0x08, Jvm.getByte(address + 15));
+
+            Jvm.putByte(address + 23, (byte) 0x7F);
+            Assert.assertEquals(0x7F, buffer.get(15));
+        } finally {
+            Jvm.freeMemory(address);
+        }
+    }
+
+    @Test
+    public void testChannel() throws Exception {
+        long address = Jvm.allocateMemory(1024);
+        try {
+            MemoryBlock block = new MemoryBlockDirect(address, 1024);
+            for (int i = 0; i < 1024; i++) {
+                Jvm.putByte(address + i, (byte) i);
+            }
+
+            File file = folder.newFile();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.write(MemoryBlockBuffers.asByteBuffers(block));
+            }
+
+            ByteBuffer loaded = ByteBuffer.allocateDirect(2048);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                channel.read(loaded);
+            }
+            loaded.flip();
+
+            MemoryBlockDirect wrapped = (MemoryBlockDirect) MemoryBlockBuffers.wrap(loaded);
+            Assert.assertEquals(1024, wrapped.size());
+            Assert.assertTrue(wrapped.equals(0, (MemoryBlockDirect) block, 0, 1024));
+        } finally {
+            Jvm.freeMemory(address);
+        }
+    }
+
+    @Test
+    public void testWrapPosition() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+        buffer.position(10).limit(30);
+
+        MemoryBlock block = MemoryBlockBuffers.wrap(buffer);
+        Assert.assertEquals(DirectBuffers.address(buffer) + 10, block.address());
+        Assert.assertEquals(20, block.size());
+    }
+
+    @Test
+    public void testSplitHugeBlock() throws Exception {
+        // views are not accessed, so the block doesn't have to be backed by memory
+        MemoryBlock block = new MemoryBlockDirect(Mem.GB, 5 * Mem.GB);
+
+        ByteBuffer[] buffers = MemoryBlockBuffers.asByteBuffers(block);
+        Assert.assertEquals(3, buffers.length);
+
+        long total = 0;
+        for (ByteBuffer buffer : buffers) {
+            Assert.assertEquals(block.address() + total, DirectBuffers.address(buffer));
+            total += buffer.capacity();
+        }
+        Assert.assertEquals(block.size(), total);
+        Assert.assertEquals(MemoryBlockBuffers.MAX_VIEW_SIZE_BYTES, buffers[0].capacity());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        Assert.assertEquals(0, MemoryBlockBuffers.asByteBuffers(MemoryBlockDirect.EMPTY).length);
+        Assert.assertEquals(0, MemoryBlockBuffers.asByteBuffer(MemoryBlockDirect.EMPTY).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLargeForSingleView() throws Exception {
+        MemoryBlockBuffers.asByteBuffer(new MemoryBlockDirect(Mem.GB, 3 * Mem.GB));
+    }
+
+    @Test
+    public void testWrappedFreeRejected() throws Exception {
+        MemoryBlock block = MemoryBlockBuffers.wrap(ByteBuffer.allocateDirect(64));
+
+        try (MemoryBlockFactory factory = new MemoryBlockFactory(new SystemAllocator(), true, true)) {
+            factory.free(block);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // the memory belongs to the buffer
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapHeapBuffer() throws Exception {
+        MemoryBlockBuffers.wrap(ByteBuffer.allocate(64));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapNull() throws Exception {
+        MemoryBlockBuffers.wrap(null);
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.allocator.SystemAllocator;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Jvm;
+
+import java.io.EOFException;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class MemoryBlockChannelTest {
+
+    private static final int SIZE = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RegistryAllocatorProxy registry;
+
+    private MemoryBlockFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        factory = new MemoryBlockFactory(registry, false, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        MemoryBlock source = factory.allocate(SIZE);
+        MemoryBlock target = factory.allocateZeroed(SIZE);
+        try {
+            for (int i = 0; i < SIZE; i++) {
+                Jvm.putByte(source.address(i), (byte) (i * 31));
+            }
+
+            File file = folder.newFile();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                MemoryBlockChannel blockChannel = new MemoryBlockChannel(source);
+                Assert.assertEquals(SIZE, blockChannel.transferTo(channel));
+                Assert.assertEquals(0, blockChannel.remaining());
+            }
+            Assert.assertEquals(SIZE, file.length());
+
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                MemoryBlockChannel blockChannel = new MemoryBlockChannel(target);
+                blockChannel.position(100);
+                Assert.assertEquals(SIZE - 100, blockChannel.transferFrom(channel));
+            }
+
+            Assert.assertEquals(0, Jvm.getByte(target.address(99)));
+            for (int i = 100; i < SIZE; i++) {
+                Assert.assertEquals(Jvm.getByte(source.address(i - 100)), Jvm.getByte(target.address(i)));
+            }
+        } finally {
+            factory.free(source);
+            factory.free(target);
+        }
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        MemoryBlock block = factory.allocateZeroed(16);
+        try {
+            MemoryBlockChannel channel = new MemoryBlockChannel(block);
+
+            ByteBuffer heap = ByteBuffer.allocate(10);
+            heap.putLong(0, 0x0102030405060708L).position(4);
+            Assert.assertEquals(6, channel.write(heap));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(20);
+            direct.put(0, (byte) 0x7F);
+            Assert.assertEquals(10, channel.write(direct));
+            Assert.assertEquals(10, direct.position());
+            Assert.assertEquals(16, channel.position());
+
+            try {
+                channel.write(direct);
+                Assert.fail();
+            } catch (EOFException e) {
+                // expected
+            }
+
+            channel.position(0);
+            ByteBuffer read = ByteBuffer.allocate(32);
+            Assert.assertEquals(16, channel.read(read));
+            Assert.assertEquals(-1, channel.read(read));
+            Assert.assertEquals(0x05060708, read.getInt(0));
+            Assert.assertEquals(0x7F, read.get(6));
+
+            channel.close();
+            Assert.assertFalse(channel.isOpen());
+            try {
+                channel.read(read);
+                Assert.fail();
+            } catch (ClosedChannelException e) {
+                // expected
+            }
+        } finally {
+            factory.free(block);
+        }
+    }
+
+}
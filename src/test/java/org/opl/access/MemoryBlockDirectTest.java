@@ -3,6 +3,9 @@ package org.opl.access;
 import org.junit.Assert;
 import org.junit.Test;
 import org.opl.access.block.MemoryBlockDirect;
+import org.opl.platform.Jvm;
+
+import java.nio.charset.StandardCharsets;
 
 public class MemoryBlockDirectTest {
 
@@ -41,4 +44,99 @@ public class MemoryBlockDirectTest {
 
         Assert.assertEquals(new MemoryBlockDirect(10_200_400L, 100), b.slice(100, 100));
     }
+
+    @Test
+    public void testCompare() throws Exception {
+        long address = Jvm.allocateMemory(64);
+        try {
+            for (int i = 0; i < 64; i++) {
+                Jvm.putByte(address + i, (byte) (i % 32));
+            }
+
+            MemoryBlockDirect first = new MemoryBlockDirect(address, 32);
+            MemoryBlockDirect last = new MemoryBlockDirect(address + 32, 32);
+
+            Assert.assertEquals(0, first.compareTo(last));
+            Assert.assertTrue(first.equals(0, last, 0, 32));
+            Assert.assertEquals(-1, first.mismatch(0, last, 0, 32));
+
+            Jvm.putByte(address + 32 + 17, (byte) 0xF0);
+
+            Assert.assertEquals(-1, first.compareTo(last));
+            Assert.assertEquals(1, last.compareTo(first));
+            Assert.assertFalse(first.equals(0, last, 0, 32));
+            Assert.assertEquals(17, first.mismatch(0, last, 0, 32));
+            Assert.assertEquals(15, first.mismatch(2, last, 2, 30));
+            Assert.assertTrue(first.equals(18, last, 18, 14));
+        } finally {
+            Jvm.freeMemory(address);
+        }
+    }
+
+    @Test
+    public void testArrays() throws Exception {
+        long address = Jvm.allocateMemory(64);
+        try {
+            MemoryBlockDirect b = new MemoryBlockDirect(address, 64);
+
+            b.copyFrom(8, new byte[] {1, 2, 3, 4, 5}, 1, 3);
+            Assert.assertEquals(2, Jvm.getByte(address + 8));
+            Assert.assertEquals(4, Jvm.getByte(address + 10));
+
+            byte[] bytes = new byte[5];
+            b.copyTo(8, bytes, 2, 3);
+            Assert.assertArrayEquals(new byte[] {0, 0, 2, 3, 4}, bytes);
+
+            long[] longs = {Long.MIN_VALUE, -1, Long.MAX_VALUE};
+            b.copyFrom(16, longs, 0, 3);
+            Assert.assertEquals(-1, Jvm.getLong(address + 24));
+
+            long[] longsCopy = new long[4];
+            b.copyTo(16, longsCopy, 1, 3);
+            Assert.assertArrayEquals(new long[] {0, Long.MIN_VALUE, -1, Long.MAX_VALUE}, longsCopy);
+
+            double[] doubles = {Math.PI, Math.E};
+            b.copyFrom(0, doubles, 0, 2);
+            double[] doublesCopy = new double[2];
+            b.copyTo(0, doublesCopy, 0, 2);
+            Assert.assertArrayEquals(doubles, doublesCopy, 0.0);
+
+            char[] chars = "off-heap".toCharArray();
+            b.copyFrom(40, chars, 0, chars.length);
+            char[] charsCopy = new char[chars.length];
+            b.copyTo(40, charsCopy, 0, chars.length);
+            Assert.assertArrayEquals(chars, charsCopy);
+        } finally {
+            Jvm.freeMemory(address);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testArrayOutOfBounds() throws Exception {
+        MemoryBlockDirect b = new MemoryBlockDirect(0, 64);
+        b.copyTo(0, new int[4], 2, 3);
+    }
+
+    @Test
+    public void testRecords() throws Exception {
+        byte[] text = "alpha\nbeta\n\ngamma".getBytes(StandardCharsets.US_ASCII);
+
+        long address = Jvm.allocateMemory(text.length + 3);
+        try {
+            MemoryBlockDirect b = new MemoryBlockDirect(address, text.length);
+            b.copyFrom(0, text, 0, text.length);
+
+            Assert.assertEquals(5, b.indexOf(0, b.size(), (byte) '\n'));
+            Assert.assertEquals(10, b.indexOf(6, b.size() - 6, (byte) '\n'));
+            Assert.assertEquals(11, b.lastIndexOf(0, b.size(), (byte) '\n'));
+            Assert.assertEquals(-1, b.indexOf(12, b.size() - 12, (byte) '\n'));
+
+            MemoryBlockDirect pattern = new MemoryBlockDirect(address + text.length, 3);
+            pattern.copyFrom(0, "mma".getBytes(StandardCharsets.US_ASCII), 0, 3);
+            Assert.assertEquals(14, b.indexOf(0, b.size(), pattern));
+            Assert.assertEquals(-1, b.indexOf(0, 14, pattern));
+        } finally {
+            Jvm.freeMemory(address);
+        }
+    }
 }
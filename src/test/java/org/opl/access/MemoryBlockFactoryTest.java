@@ -0,0 +1,133 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockBuffers;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.allocator.SystemAllocator;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Mem;
+
+import java.nio.ByteBuffer;
+
+public class MemoryBlockFactoryTest {
+
+    private RegistryAllocatorProxy registry;
+
+    private MemoryBlockFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        factory = new MemoryBlockFactory(registry, false, true, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void deterministicFree() throws Exception {
+        MemoryBlock b1 = factory.allocate(1024);
+        MemoryBlock b2 = factory.reallocate(b1, 2048);
+        MemoryBlock b3 = factory.allocateAligned(1024, Mem.CACHE_LINE_SIZE_BYTES);
+
+        factory.free(b2);
+        factory.freeAligned(b3);
+
+        System.gc();
+        Thread.sleep(100);
+
+        Assert.assertTrue(factory.isCleaning());
+        Assert.assertEquals(0, factory.getLeakedBlocks());
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+    }
+
+    @Test
+    public void reclaimLeaked() throws Exception {
+        MemoryBlock kept = factory.allocate(64).slice(16, 16);
+
+        leak(1000);
+        leakAligned(2000);
+
+        collectGarbage(() -> factory.getLeakedBlocks() >= 2);
+
+        Assert.assertEquals(2, factory.getLeakedBlocks());
+        Assert.assertEquals(3000, factory.getLeakedBytes());
+
+        // the slice keeps the parent block alive
+        Assert.assertEquals(1, registry.getAllocatedBlocks());
+
+        factory.free(kept.getParent());
+    }
+
+    @Test
+    public void safeArrayCopy() throws Exception {
+        MemoryBlock block = factory.allocate(16);
+        try {
+            block.copyFrom(8, new int[] {1, 2}, 0, 2);
+
+            int[] copy = new int[2];
+            block.copyTo(8, copy, 0, 2);
+            Assert.assertArrayEquals(new int[] {1, 2}, copy);
+
+            block.copyTo(12, copy, 0, 2);
+            Assert.fail("Range beyond the block must be rejected");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        } finally {
+            factory.free(block);
+        }
+    }
+
+    @Test
+    public void viewKeepsBlock() throws Exception {
+        checkView(MemoryBlockBuffers.asByteBuffer(factory.allocate(64), 8, 16));
+
+        // the view is unreachable now, so its block is reclaimed as well
+        collectGarbage(() -> factory.getLeakedBlocks() >= 2);
+
+        Assert.assertEquals(2, factory.getLeakedBlocks());
+    }
+
+    private void checkView(ByteBuffer view) throws InterruptedException {
+        leak(1000);
+
+        collectGarbage(() -> factory.getLeakedBlocks() >= 1);
+
+        // the view is the only reference to its block
+        Assert.assertEquals(1, factory.getLeakedBlocks());
+
+        view.putLong(0, 42);
+        Assert.assertEquals(42, view.getLong(0));
+    }
+
+    private void leak(long size) {
+        factory.allocate(size).fill((byte) 0);
+    }
+
+    private void leakAligned(long size) {
+        factory.allocateAligned(size, Mem.CACHE_LINE_SIZE_BYTES).fill((byte) 0);
+    }
+
+    private static void collectGarbage(Condition condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.isMet(); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+    }
+
+    private interface Condition {
+
+        boolean isMet();
+
+    }
+
+}
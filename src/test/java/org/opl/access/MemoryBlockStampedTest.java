@@ -0,0 +1,155 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.access.block.MemoryBlockStamped;
+import org.opl.allocator.BudgetAllocator;
+import org.opl.allocator.SystemAllocator;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+
+public class MemoryBlockStampedTest {
+
+    private RegistryAllocatorProxy registry;
+
+    private MemoryBlockFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        factory = new MemoryBlockFactory(registry, false, true, false, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void testValid() throws Exception {
+        Assert.assertTrue(factory.isStamping());
+
+        MemoryBlock block = factory.allocateZeroed(64);
+        try {
+            Assert.assertTrue(block instanceof MemoryBlockStamped);
+            Assert.assertTrue(((MemoryBlockStamped) block).isValid());
+
+            MemoryBlock slice = block.slice(8, 16);
+            Assert.assertTrue(slice instanceof MemoryBlockStamped);
+            Assert.assertEquals(block.address() + 8, slice.address());
+
+            slice.fill((byte) 0x11);
+            Assert.assertEquals(8, block.indexOf(0, 64, (byte) 0x11));
+        } finally {
+            factory.free(block);
+        }
+    }
+
+    @Test
+    public void testUseAfterFree() throws Exception {
+        MemoryBlock block = factory.allocate(64);
+        MemoryBlock slice = block.sliceFirst(32);
+        factory.free(block);
+
+        Assert.assertFalse(((MemoryBlockStamped) block).isValid());
+        Assert.assertFalse(((MemoryBlockStamped) slice).isValid());
+
+        // the size is immutable, so it is still available
+        Assert.assertEquals(64, block.size());
+
+        try {
+            block.address();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        try {
+            slice.fill((byte) 0);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleFree() throws Exception {
+        MemoryBlock block = factory.allocate(64);
+        factory.free(block);
+        factory.free(block);
+    }
+
+    @Test
+    public void testReallocate() throws Exception {
+        MemoryBlock block = factory.allocate(64);
+        MemoryBlock reallocated = factory.reallocate(block, 128);
+        try {
+            Assert.assertFalse(((MemoryBlockStamped) block).isValid());
+            Assert.assertTrue(((MemoryBlockStamped) reallocated).isValid());
+            Assert.assertEquals(128, reallocated.size());
+
+            try {
+                block.pretouch();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        } finally {
+            factory.free(reallocated);
+        }
+    }
+
+    @Test
+    public void testFailedReallocation() throws Exception {
+        MemoryBlockFactory budgetFactory =
+            new MemoryBlockFactory(new BudgetAllocator(registry, false, 256), true, true, false, true);
+
+        MemoryBlock block = budgetFactory.allocateZeroed(64);
+        try {
+            budgetFactory.reallocate(block, 1024);
+            Assert.fail();
+        } catch (OutOfMemoryError e) {
+            // the budget refuses the growth
+        }
+
+        Assert.assertTrue(((MemoryBlockStamped) block).isValid());
+        block.fill((byte) 1);
+
+        budgetFactory.free(block);
+        budgetFactory.close();
+    }
+
+    @Test
+    public void testFreeThroughParent() throws Exception {
+        MemoryBlock block = factory.allocate(64);
+        MemoryBlock slice = block.slice(8, 16);
+
+        factory.free(slice.getParent());
+
+        Assert.assertFalse(((MemoryBlockStamped) block).isValid());
+        Assert.assertFalse(((MemoryBlockStamped) slice).isValid());
+    }
+
+    @Test
+    public void testUnstampedRejected() throws Exception {
+        MemoryBlockFactory plainFactory = new MemoryBlockFactory(registry, false, true);
+
+        MemoryBlock block = plainFactory.allocate(64);
+        try {
+            factory.free(block);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            plainFactory.free(block);
+            plainFactory.close();
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.allocator.SystemAllocator;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+
+public class MemoryBlockStreamTest {
+
+    private static final int SIZE = 100;
+
+    private RegistryAllocatorProxy registry;
+
+    private MemoryBlockFactory factory;
+
+    private MemoryBlock block;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        factory = new MemoryBlockFactory(registry, false, true);
+        block = factory.allocateZeroed(SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.free(block);
+        factory.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MemoryBlockOutputStream output = new MemoryBlockOutputStream(block);
+        try (DataOutputStream out = new DataOutputStream(output)) {
+            out.writeLong(0x0102030405060708L);
+            out.writeUTF("text");
+            out.write(new byte[] {1, 2, 3});
+        }
+        Assert.assertEquals(8 + 6 + 3, output.position());
+
+        MemoryBlockInputStream input = new MemoryBlockInputStream(block);
+        try (DataInputStream in = new DataInputStream(input)) {
+            Assert.assertEquals(0x0102030405060708L, in.readLong());
+            Assert.assertEquals("text", in.readUTF());
+            Assert.assertEquals(1, in.read());
+        }
+        Assert.assertEquals(SIZE - 15, input.available());
+    }
+
+    @Test
+    public void testEndOfBlock() throws Exception {
+        MemoryBlockInputStream input = new MemoryBlockInputStream(block.sliceFirst(10));
+
+        byte[] buffer = new byte[16];
+        Assert.assertEquals(10, input.read(buffer, 0, buffer.length));
+        Assert.assertEquals(-1, input.read(buffer, 0, buffer.length));
+        Assert.assertEquals(0, input.read(buffer, 0, 0));
+        Assert.assertEquals(-1, input.read());
+        Assert.assertEquals(0, input.skip(1));
+
+        MemoryBlockOutputStream output = new MemoryBlockOutputStream(block.sliceFirst(10));
+        output.write(new byte[8]);
+        try {
+            output.write(new byte[4]);
+            Assert.fail();
+        } catch (EOFException e) {
+            Assert.assertEquals(8, output.position());
+        }
+    }
+
+    @Test
+    public void testMarkAndPosition() throws Exception {
+        for (int i = 0; i < SIZE; i++) {
+            new MemoryBlockOutputStream(block.slice(i, 1)).write(i);
+        }
+
+        MemoryBlockInputStream input = new MemoryBlockInputStream(block);
+        Assert.assertTrue(input.markSupported());
+
+        Assert.assertEquals(5, input.skip(5));
+        input.mark(0);
+        Assert.assertEquals(5, input.read());
+        input.reset();
+        Assert.assertEquals(5, input.read());
+
+        input.position(SIZE - 1);
+        Assert.assertEquals(SIZE - 1, input.read());
+        Assert.assertEquals(0, input.remaining());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPosition() throws Exception {
+        new MemoryBlockInputStream(block).position(SIZE + 1);
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockDirect;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.access.block.MemoryBlockView;
+import org.opl.allocator.SystemAllocator;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Jvm;
+
+public class MemoryBlockViewTest {
+
+    private static final int RECORD_SIZE = 16;
+
+    private RegistryAllocatorProxy registry;
+
+    private MemoryBlockFactory factory;
+
+    private MemoryBlock block;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        factory = new MemoryBlockFactory(registry, false, true);
+
+        block = factory.allocateZeroed(4 * RECORD_SIZE);
+        for (int i = 0; i < 4; i++) {
+            Jvm.putLong(block.address(i * RECORD_SIZE), i);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.free(block);
+        factory.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void testWalk() throws Exception {
+        MemoryBlockView record = factory.createView();
+        Assert.assertTrue(record.isChecking());
+
+        long sum = 0;
+        for (long offset = 0; offset < block.size(); offset += RECORD_SIZE) {
+            record.reset(block, offset, RECORD_SIZE);
+
+            Assert.assertEquals(RECORD_SIZE, record.size());
+            Assert.assertEquals(block.address() + offset, record.address());
+            Assert.assertTrue(record.hasParent());
+
+            sum += Jvm.getLong(record.address(0));
+        }
+
+        Assert.assertEquals(0 + 1 + 2 + 3, sum);
+    }
+
+    @Test
+    public void testOperations() throws Exception {
+        MemoryBlockView view = new MemoryBlockView().reset(block.address(), block.size());
+        Assert.assertFalse(view.hasParent());
+
+        MemoryBlockDirect record = new MemoryBlockDirect(block.address() + RECORD_SIZE, RECORD_SIZE);
+
+        Assert.assertEquals(-1, view.compareTo(0, record, 0, RECORD_SIZE));
+        Assert.assertNotEquals(-1, view.mismatch(0, record, 0, RECORD_SIZE));
+        Assert.assertTrue(view.equals(RECORD_SIZE, record, 0, RECORD_SIZE));
+
+        long[] values = new long[2];
+        view.copyTo(2 * RECORD_SIZE, values, 0, 2);
+        Assert.assertArrayEquals(new long[] {2, 0}, values);
+
+        MemoryBlock slice = view.sliceLast(RECORD_SIZE);
+        Assert.assertEquals(block.address() + 3 * RECORD_SIZE, slice.address());
+        Assert.assertSame(view, slice.getParent());
+    }
+
+    @Test
+    public void testFreeRejected() throws Exception {
+        MemoryBlockView view = new MemoryBlockView().reset(block.address(), block.size());
+
+        for (MemoryBlock candidate : new MemoryBlock[] {view, view.sliceFirst(RECORD_SIZE)}) {
+            try {
+                factory.free(candidate);
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testResetOutOfBounds() throws Exception {
+        factory.createView().reset(block, 3 * RECORD_SIZE, 2 * RECORD_SIZE);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testAccessOutOfBounds() throws Exception {
+        MemoryBlockView view = factory.createView().reset(block, 0, RECORD_SIZE);
+        view.copyFrom(RECORD_SIZE - 4, new long[1], 0, 1);
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockDirect;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+public class MemoryBufferTest {
+
+    private static final int SIZE = 64;
+
+    private long address;
+
+    private MemoryBlock block;
+
+    @Before
+    public void setUp() throws Exception {
+        address = Jvm.allocateMemory(SIZE);
+        block = new MemoryBlockDirect(address, SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Jvm.freeMemory(address);
+    }
+
+    @Test
+    public void testAbsolute() throws Exception {
+        for (MemoryBuffer buffer : new MemoryBuffer[] {new MemoryBufferDirect(block), new MemoryBufferSafe(block)}) {
+            buffer.putBoolean(0, true);
+            buffer.putByte(1, (byte) -2);
+            buffer.putShort(2, (short) -3);
+            buffer.putChar(4, 'c');
+            buffer.putInt(8, -5);
+            buffer.putLong(16, -6L);
+            buffer.putFloat(24, 7.5f);
+            buffer.putDouble(32, -8.25);
+
+            Assert.assertTrue(buffer.getBoolean(0));
+            Assert.assertEquals(-2, buffer.getByte(1));
+            Assert.assertEquals(-3, buffer.getShort(2));
+            Assert.assertEquals('c', buffer.getChar(4));
+            Assert.assertEquals(-5, buffer.getInt(8));
+            Assert.assertEquals(-6L, buffer.getLong(16));
+            Assert.assertEquals(7.5f, buffer.getFloat(24), 0.0f);
+            Assert.assertEquals(-8.25, buffer.getDouble(32), 0.0);
+
+            Assert.assertEquals(-6L, Jvm.getLong(address + 16));
+            Assert.assertEquals(0, buffer.position());
+        }
+    }
+
+    @Test
+    public void testRelative() throws Exception {
+        for (MemoryBuffer buffer : new MemoryBuffer[] {new MemoryBufferDirect(block), new MemoryBufferSafe(block)}) {
+            buffer.position(0);
+            buffer.putBoolean(false);
+            buffer.putByte((byte) 1);
+            buffer.putShort((short) 2);
+            buffer.putChar('3');
+            buffer.putInt(4);
+            buffer.putLong(5L);
+            buffer.putFloat(6.0f);
+            buffer.putDouble(7.0);
+            Assert.assertEquals(1 + 1 + 2 + 2 + 4 + 8 + 4 + 8, buffer.position());
+            Assert.assertEquals(SIZE - buffer.position(), buffer.remaining());
+
+            buffer.position(0);
+            Assert.assertFalse(buffer.getBoolean());
+            Assert.assertEquals(1, buffer.getByte());
+            Assert.assertEquals(2, buffer.getShort());
+            Assert.assertEquals('3', buffer.getChar());
+            Assert.assertEquals(4, buffer.getInt());
+            Assert.assertEquals(5L, buffer.getLong());
+            Assert.assertEquals(6.0f, buffer.getFloat(), 0.0f);
+            Assert.assertEquals(7.0, buffer.getDouble(), 0.0);
+
+            Assert.assertEquals(4, buffer.getInt(6));
+        }
+    }
+
+    @Test
+    public void testHugeOffsets() throws Exception {
+        // only the tail of the huge block is backed by memory
+        final long offset = 5 * Mem.GB;
+        MemoryBlock huge = new MemoryBlockDirect(address - offset, offset + SIZE);
+
+        MemoryBuffer buffer = new MemoryBufferSafe(huge);
+        buffer.putLong(offset + 8, 0x1122_3344_5566_7788L);
+        Assert.assertEquals(0x1122_3344_5566_7788L, Jvm.getLong(address + 8));
+
+        buffer.position(offset + SIZE - 4);
+        buffer.putInt(9);
+        Assert.assertEquals(0, buffer.remaining());
+        Assert.assertEquals(9, new MemoryBufferDirect(huge).getInt(offset + SIZE - 4));
+
+        MemoryAccessor accessor = new MemoryAccessor(huge);
+        Assert.assertEquals(offset + SIZE, accessor.available());
+        accessor.offset(offset + 16);
+        accessor.writeLong(42);
+        accessor.offset(offset + 16);
+        Assert.assertEquals(42, accessor.readLong());
+        Assert.assertEquals(SIZE - 24, accessor.available());
+    }
+
+    @Test
+    public void testOutOfBounds() throws Exception {
+        MemoryBuffer buffer = new MemoryBufferSafe(block);
+
+        try {
+            buffer.getLong(SIZE - 7);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            buffer.putByte(-1, (byte) 0);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        buffer.position(SIZE - 2);
+        try {
+            buffer.putInt(1);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // the position is not changed on failure
+            Assert.assertEquals(SIZE - 2, buffer.position());
+        }
+
+        try {
+            buffer.position(SIZE + 1);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.opl.access;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.allocator.SystemAllocator;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+public class MemoryOutputBufferTest {
+
+    private RegistryAllocatorProxy registry;
+
+    private MemoryBlockFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        factory = new MemoryBlockFactory(registry, false, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void testGrowth() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream expected = new DataOutputStream(bytes);
+
+        try (MemoryOutputBuffer buffer = new MemoryOutputBuffer(factory, 1, ByteOrder.BIG_ENDIAN)) {
+            for (int i = 0; i < 1000; i++) {
+                expected.writeInt(i);
+                expected.writeUTF("value " + i);
+                buffer.writeInt(i);
+                buffer.writeUTF("value " + i);
+            }
+            expected.write(new byte[5000]);
+            buffer.write(new byte[5000]);
+
+            Assert.assertEquals(bytes.size(), buffer.size());
+            Assert.assertTrue(buffer.capacity() >= buffer.size());
+            Assert.assertTrue(buffer.capacity() < 2 * buffer.size());
+
+            byte[] actual = new byte[bytes.size()];
+            new MemoryAccessor(buffer.written()).readFully(actual);
+            Assert.assertArrayEquals(bytes.toByteArray(), actual);
+        }
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        try (MemoryOutputBuffer buffer = new MemoryOutputBuffer(factory)) {
+            buffer.writeLong(1);
+            long capacity = buffer.capacity();
+
+            buffer.reset();
+            buffer.writeShort(2);
+
+            Assert.assertEquals(2, buffer.size());
+            Assert.assertEquals(capacity, buffer.capacity());
+            Assert.assertEquals(2, new MemoryAccessor(buffer.written()).readShort());
+        }
+    }
+
+    @Test
+    public void testDetach() throws Exception {
+        MemoryOutputBuffer buffer = new MemoryOutputBuffer(factory, 64, ByteOrder.nativeOrder());
+        buffer.writeDouble(1.5);
+        buffer.writeChars("ab");
+
+        MemoryBlock block = buffer.detach();
+        try {
+            Assert.assertEquals(12, block.size());
+
+            MemoryAccessor reader = new MemoryAccessor(block, ByteOrder.nativeOrder());
+            Assert.assertEquals(1.5, reader.readDouble(), 0.0);
+            Assert.assertEquals('a', reader.readChar());
+            Assert.assertEquals('b', reader.readChar());
+        } finally {
+            factory.free(block);
+        }
+
+        // closing a detached buffer doesn't free the block
+        buffer.close();
+
+        try {
+            buffer.writeInt(1);
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testVarLongs() throws Exception {
+        long[] values = {5, 3, 1L << 40, -7};
+
+        try (MemoryOutputBuffer buffer = new MemoryOutputBuffer(factory, 1, ByteOrder.BIG_ENDIAN)) {
+            buffer.writeVarInt(values.length);
+            buffer.writeDeltaVarLongs(values, 0, values.length);
+            buffer.writeSignedVarLong(-1);
+
+            MemoryCalculator calculator = new MemoryCalculator();
+            calculator.writeVarInt(values.length);
+            calculator.writeDeltaVarLongs(values, 0, values.length);
+            calculator.writeSignedVarLong(-1);
+            Assert.assertEquals(calculator.size(), buffer.size());
+
+            MemoryAccessor reader = new MemoryAccessor(buffer.written());
+            long[] actual = new long[reader.readVarInt()];
+            reader.readDeltaVarLongs(actual, 0, actual.length);
+            Assert.assertArrayEquals(values, actual);
+            Assert.assertEquals(-1, reader.readSignedVarLong());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDetachEmpty() throws Exception {
+        try (MemoryOutputBuffer buffer = new MemoryOutputBuffer(factory)) {
+            buffer.detach();
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.opl.access.hash;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlockDirect;
+import org.opl.platform.Jvm;
+
+import java.nio.charset.StandardCharsets;
+
+public class Murmur3Hash128Test {
+
+    private static final int SIZE = 200;
+
+    private long address;
+
+    @Before
+    public void setUp() throws Exception {
+        address = Jvm.allocateMemory(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            Jvm.putByte(address + i, (byte) (i * 31 + 7));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Jvm.freeMemory(address);
+    }
+
+    @Test
+    public void testReferenceValues() throws Exception {
+        Assert.assertArrayEquals(new long[] {0, 0}, hash("", 0));
+        Assert.assertArrayEquals(new long[] {0xCBD8A7B341BD9B02L, 0x5B1E906A48AE1D19L}, hash("hello", 0));
+        Assert.assertArrayEquals(new long[] {0xE34BBC7BBC071B6CL, 0x7A433CA9C49A9347L},
+            hash("The quick brown fox jumps over the lazy dog", 0));
+    }
+
+    @Test
+    public void testNativeEqualsArray() throws Exception {
+        byte[] array = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            array[i] = Jvm.getByte(address + i);
+        }
+
+        long[] expected = new long[Murmur3Hash128.HASH_128_LENGTH];
+        long[] actual = new long[Murmur3Hash128.HASH_128_LENGTH];
+
+        for (int size = 0; size <= SIZE; size++) {
+            Murmur3Hash128.hash128(array, 0, size, 42, expected);
+            Murmur3Hash128.hash128(address, size, 42, actual);
+
+            Assert.assertArrayEquals(expected, actual);
+            Assert.assertEquals(expected[0], Murmur3Hash128.hash(address, size, 42));
+        }
+
+        Murmur3Hash128.hash128(array, 3, 77, 42, expected);
+        Murmur3Hash128.hash128(new MemoryBlockDirect(address, SIZE), 3, 77, 42, actual);
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        long[] expected = new long[Murmur3Hash128.HASH_128_LENGTH];
+        long[] actual = new long[Murmur3Hash128.HASH_128_LENGTH];
+
+        Murmur3Hash128.hash128(address, SIZE, 42, expected);
+
+        for (int chunk = 1; chunk <= 20; chunk++) {
+            Murmur3Hash128 hash = new Murmur3Hash128(42);
+
+            for (int offset = 0; offset < SIZE; offset += chunk) {
+                hash.update(address + offset, Math.min(chunk, SIZE - offset));
+            }
+
+            hash.getValue128(actual);
+            Assert.assertArrayEquals(expected, actual);
+            Assert.assertEquals(expected[0], hash.getValue());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBlockRangeChecked() throws Exception {
+        Murmur3Hash128.hash128(new MemoryBlockDirect(address, SIZE), SIZE - 10, 20, 42,
+            new long[Murmur3Hash128.HASH_128_LENGTH]);
+    }
+
+    private static long[] hash(String text, long seed) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+
+        long[] result = new long[Murmur3Hash128.HASH_128_LENGTH];
+        Murmur3Hash128.hash128(bytes, 0, bytes.length, seed, result);
+
+        Murmur3Hash128 hash = new Murmur3Hash128(seed);
+        hash.update(bytes, 0, bytes.length);
+        Assert.assertEquals(result[0], hash.getValue());
+
+        return result;
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.opl.access.hash;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.access.block.MemoryBlockDirect;
+import org.opl.platform.Jvm;
+
+import java.nio.charset.StandardCharsets;
+
+public class XxHash64Test {
+
+    private static final int SIZE = 300;
+
+    private long address;
+
+    @Before
+    public void setUp() throws Exception {
+        address = Jvm.allocateMemory(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            Jvm.putByte(address + i, (byte) (i * 31 + 7));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Jvm.freeMemory(address);
+    }
+
+    @Test
+    public void testReferenceValues() throws Exception {
+        Assert.assertEquals(0xEF46DB3751D8E999L, hash("", 0));
+        Assert.assertEquals(0xD24EC4F1A98C6E5BL, hash("a", 0));
+        Assert.assertEquals(0x44BC2CF5AD770999L, hash("abc", 0));
+        Assert.assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition", 0));
+    }
+
+    @Test
+    public void testNativeEqualsArray() throws Exception {
+        byte[] array = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            array[i] = Jvm.getByte(address + i);
+        }
+
+        for (int size = 0; size <= SIZE; size++) {
+            Assert.assertEquals(XxHash64.hash(array, 0, size, 42), XxHash64.hash(address, size, 42));
+        }
+
+        Assert.assertEquals(XxHash64.hash(array, 5, 100, 42), XxHash64.hash(address + 5, 100, 42));
+        Assert.assertEquals(XxHash64.hash(array, 5, 100, 42),
+            XxHash64.hash(new MemoryBlockDirect(address, SIZE), 5, 100, 42));
+    }
+
+    @Test
+    public void testSeed() throws Exception {
+        Assert.assertNotEquals(XxHash64.hash(address, 100, 0), XxHash64.hash(address, 100, 1));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        for (int chunk = 1; chunk <= 40; chunk++) {
+            XxHash64 hash = new XxHash64(42);
+
+            for (int offset = 0; offset < SIZE; offset += chunk) {
+                hash.update(address + offset, Math.min(chunk, SIZE - offset));
+            }
+
+            Assert.assertEquals(XxHash64.hash(address, SIZE, 42), hash.getValue());
+        }
+    }
+
+    @Test
+    public void testStreamingBytesAndReset() throws Exception {
+        XxHash64 hash = new XxHash64(42);
+
+        hash.update(address, 10);
+        hash.reset();
+
+        for (int i = 0; i < 50; i++) {
+            hash.update(Jvm.getByte(address + i));
+        }
+        hash.update(new MemoryBlockDirect(address + 50, 50));
+
+        Assert.assertEquals(XxHash64.hash(address, 100, 42), hash.getValue());
+        Assert.assertEquals(XxHash64.hash(address, 100, 42), hash.getValue());
+    }
+
+    @Test
+    public void testBlockRangeChecked() throws Exception {
+        MemoryBlockDirect block = new MemoryBlockDirect(address, SIZE);
+
+        try {
+            XxHash64.hash(block, SIZE - 10, 20, 42);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        try {
+            new XxHash64(42).update(block, -1, 10);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    private static long hash(String text, long seed) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return XxHash64.hash(bytes, 0, bytes.length, seed);
+    }
+
+}
@@ -8,6 +8,8 @@ import org.opl.access.block.MemoryBlockFactory;
 import org.opl.allocator.Allocators;
 import org.opl.util.OplUtils;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class OplBitSetImplTest {
 
     private MemoryBlockFactory factory;
@@ -55,4 +57,22 @@ public class OplBitSetImplTest {
         set.toggle(index);
         Assert.assertFalse(set.get(index));
     }
+
+    @Test
+    public void parallelReset() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (OplBitSetImpl huge = new OplBitSetImpl(factory, 100L * 1024 * 1024 * 8, pool)) {
+            long index = huge.size() - 1;
+            Assert.assertFalse(huge.get(index));
+
+            huge.set(index);
+            huge.set(0);
+            huge.reset();
+
+            Assert.assertFalse(huge.get(index));
+            Assert.assertFalse(huge.get(0));
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,181 @@
+package org.opl.allocator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+public class ArenaAllocatorTest {
+
+    private static final long CHUNK_SIZE = 4 * Mem.KB;
+
+    private RegistryAllocatorProxy registry;
+
+    private ArenaAllocator allocator;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        allocator = new ArenaAllocator(registry, false, CHUNK_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        allocator.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void simple() throws Exception {
+        long a1 = allocator.allocate(100);
+        long a2 = allocator.allocate(200);
+        long a3 = allocator.allocate(1);
+
+        Assert.assertEquals(0, a1 % Mem.LONG_SIZE_BYTES);
+        Assert.assertEquals(0, a2 % Mem.LONG_SIZE_BYTES);
+        Assert.assertEquals(0, a3 % Mem.LONG_SIZE_BYTES);
+        Assert.assertTrue(a2 >= a1 + 100);
+        Assert.assertTrue(a3 >= a2 + 200);
+
+        Assert.assertEquals(301, allocator.getAllocatedBytes());
+        Assert.assertEquals(CHUNK_SIZE, allocator.getReservedBytes());
+        Assert.assertEquals(1, registry.getAllocatedBlocks());
+
+        allocator.free(a1);
+        allocator.free(a2);
+        allocator.free(a3);
+
+        Assert.assertEquals(1, registry.getAllocatedBlocks());
+    }
+
+    @Test
+    public void manyChunks() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            long address = allocator.allocate(64);
+            Jvm.putLong(address, i);
+            Jvm.putLong(address + 56, i);
+        }
+
+        Assert.assertTrue(registry.getAllocatedBlocks() > 1);
+        Assert.assertEquals(1000 * 64, allocator.getAllocatedBytes());
+
+        allocator.reset();
+
+        Assert.assertEquals(1, registry.getAllocatedBlocks());
+        Assert.assertEquals(CHUNK_SIZE, allocator.getReservedBytes());
+        Assert.assertEquals(0, allocator.getAllocatedBytes());
+
+        long address = allocator.allocate(64);
+        Assert.assertEquals(1, registry.getAllocatedBlocks());
+        allocator.free(address);
+    }
+
+    @Test
+    public void dedicatedChunk() throws Exception {
+        long small1 = allocator.allocate(16);
+        long huge = allocator.allocate(CHUNK_SIZE * 3);
+        long small2 = allocator.allocate(16);
+
+        Assert.assertEquals(2, registry.getAllocatedBlocks());
+        Assert.assertTrue(small2 > small1 && small2 < small1 + CHUNK_SIZE);
+
+        Jvm.setMemory(huge, CHUNK_SIZE * 3, (byte) 0x5A);
+
+        allocator.reset();
+
+        Assert.assertEquals(1, registry.getAllocatedBlocks());
+    }
+
+    @Test
+    public void reallocateInPlace() throws Exception {
+        allocator.allocate(16);
+
+        long a1 = allocator.allocate(16);
+        Jvm.putLong(a1, 0x1111_2222_3333_4444L);
+
+        long a2 = allocator.reallocate(a1, 256);
+        Assert.assertEquals(a1, a2);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a2));
+        Assert.assertEquals(16 + 256, allocator.getAllocatedBytes());
+    }
+
+    @Test
+    public void reallocateWithCopy() throws Exception {
+        long a1 = allocator.allocate(16);
+        Jvm.putLong(a1, 0x1111_2222_3333_4444L);
+        Jvm.putLong(a1 + 8, 0x5555_6666_7777_8888L);
+
+        allocator.allocate(16);
+
+        long a2 = allocator.reallocate(a1, 1024);
+        Assert.assertNotEquals(a1, a2);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a2));
+        Assert.assertEquals(0x5555_6666_7777_8888L, Jvm.getLong(a2 + 8));
+
+        long a3 = allocator.reallocate(a2, 8);
+        Assert.assertEquals(a2, a3);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a3));
+    }
+
+    @Test
+    public void allocateAligned() throws Exception {
+        allocator.allocate(3);
+
+        long a1 = allocator.allocateAligned(100, Mem.CACHE_LINE_SIZE_BYTES);
+        long a2 = allocator.allocateAligned(10, 256);
+        long a3 = allocator.allocateAligned(2 * CHUNK_SIZE, Jvm.PAGE_SIZE);
+
+        Assert.assertTrue(Mem.isAligned(a1, Mem.CACHE_LINE_SIZE_BYTES));
+        Assert.assertTrue(Mem.isAligned(a2, 256));
+        Assert.assertTrue(Mem.isAligned(a3, Jvm.PAGE_SIZE));
+        Assert.assertTrue(a2 >= a1 + 100);
+
+        Assert.assertEquals(3 + 100 + 10 + 2 * CHUNK_SIZE, allocator.getAllocatedBytes());
+
+        Jvm.setMemory(a3, 2 * CHUNK_SIZE, (byte) 0x55);
+
+        allocator.freeAligned(a1);
+        allocator.freeAligned(a2);
+        allocator.freeAligned(a3);
+    }
+
+    @Test
+    public void hugeSize() throws Exception {
+        // no chunk exists yet, so an overflowed footprint would be written at address 0
+        for (long size : new long[] {Long.MAX_VALUE, Long.MAX_VALUE - 8, Long.MAX_VALUE - 16}) {
+            try {
+                allocator.allocate(size);
+                Assert.fail();
+            } catch (AllocatorException e) {
+                // expected
+            }
+        }
+
+        long address = allocator.allocate(100);
+        long top = allocator.allocate(1);
+
+        try {
+            allocator.reallocate(address, Long.MAX_VALUE - 4);
+            Assert.fail();
+        } catch (AllocatorException e) {
+            // expected
+        }
+
+        try {
+            allocator.allocateAligned(Long.MAX_VALUE - 64, 64);
+            Assert.fail();
+        } catch (AllocatorException e) {
+            // expected
+        }
+
+        // the arena is not corrupted
+        Assert.assertEquals(101, allocator.getAllocatedBytes());
+        Assert.assertTrue(allocator.allocate(1) > top);
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.opl.allocator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BuddyAllocatorTest {
+
+    private static final long CAPACITY = 64 * Mem.KB;
+
+    private static final long MIN_BLOCK_SIZE = 64;
+
+    private RegistryAllocatorProxy registry;
+
+    private BuddyAllocator allocator;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        allocator = new BuddyAllocator(registry, false, CAPACITY, MIN_BLOCK_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        allocator.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void splitAndMerge() throws Exception {
+        long a1 = allocator.allocate(100);
+        long a2 = allocator.allocate(64);
+        long a3 = allocator.allocate(1);
+
+        Assert.assertEquals(128, allocator.getBlockSize(a1));
+        Assert.assertEquals(64, allocator.getBlockSize(a2));
+        Assert.assertEquals(64, allocator.getBlockSize(a3));
+        Assert.assertEquals(256, allocator.getAllocatedBytes());
+        Assert.assertEquals(3, allocator.getAllocatedBlocks());
+
+        Assert.assertTrue(Mem.isAligned(a1, 128));
+        Assert.assertTrue(Mem.isAligned(a2, 64));
+
+        long[] free = allocator.getFreeBlocks();
+        Assert.assertEquals(0, free[0]);
+        Assert.assertEquals(0, free[1]);
+        Assert.assertEquals(1, free[2]);
+
+        allocator.free(a2);
+        allocator.free(a1);
+        allocator.free(a3);
+
+        Assert.assertEquals(0, allocator.getAllocatedBytes());
+        Assert.assertEquals(CAPACITY, allocator.getLargestFreeBlock());
+        Assert.assertEquals(0.0, allocator.getFragmentation(), 0.0);
+
+        free = allocator.getFreeBlocks();
+        for (int k = 0; k < free.length - 1; k++) {
+            Assert.assertEquals(0, free[k]);
+        }
+        Assert.assertEquals(1, free[free.length - 1]);
+    }
+
+    @Test
+    public void exhaust() throws Exception {
+        List<Long> addresses = new ArrayList<>();
+        for (long i = 0; i < CAPACITY / MIN_BLOCK_SIZE; i++) {
+            addresses.add(allocator.allocate(MIN_BLOCK_SIZE));
+        }
+
+        Assert.assertEquals(0, allocator.getFreeBytes());
+        Assert.assertEquals(0, allocator.getLargestFreeBlock());
+
+        // every second block is released - plenty of free memory, but no block larger than the minimal one
+        for (int i = 0; i < addresses.size(); i += 2) {
+            allocator.free(addresses.get(i));
+        }
+
+        Assert.assertEquals(CAPACITY / 2, allocator.getFreeBytes());
+        Assert.assertEquals(MIN_BLOCK_SIZE, allocator.getLargestFreeBlock());
+        Assert.assertTrue(allocator.getFragmentation() > 0.99);
+
+        for (int i = 1; i < addresses.size(); i += 2) {
+            allocator.free(addresses.get(i));
+        }
+
+        Assert.assertEquals(CAPACITY, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    public void outOfMemory() throws Exception {
+        long a1 = allocator.allocate(CAPACITY / 2 + 1);
+        try {
+            expectedException.expect(OutOfMemoryError.class);
+            allocator.allocate(1);
+        } finally {
+            allocator.free(a1);
+        }
+    }
+
+    @Test
+    public void reallocateInPlace() throws Exception {
+        long a1 = allocator.allocate(64);
+        Jvm.putLong(a1, 0x1111_2222_3333_4444L);
+
+        long a2 = allocator.reallocate(a1, 1000);
+        Assert.assertEquals(a1, a2);
+        Assert.assertEquals(1024, allocator.getBlockSize(a2));
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a2));
+
+        long a3 = allocator.reallocate(a2, 100);
+        Assert.assertEquals(a2, a3);
+        Assert.assertEquals(128, allocator.getBlockSize(a3));
+        Assert.assertEquals(128, allocator.getAllocatedBytes());
+
+        long other = allocator.allocate(128);
+        Assert.assertEquals(a3 + 128, other);
+
+        // the buddy is taken now, so the block moves
+        long a4 = allocator.reallocate(a3, 256);
+        Assert.assertNotEquals(a3, a4);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a4));
+
+        allocator.free(a4);
+        allocator.free(other);
+
+        Assert.assertEquals(CAPACITY, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    public void randomized() throws Exception {
+        Random random = new Random(0xB0DD);
+        List<Long> addresses = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            if (!addresses.isEmpty() && random.nextBoolean()) {
+                long address = addresses.remove(random.nextInt(addresses.size()));
+                Assert.assertEquals(address, Jvm.getLong(address));
+                allocator.free(address);
+            } else {
+                try {
+                    long address = allocator.allocate(1 + random.nextInt(2048));
+                    Jvm.putLong(address, address);
+                    addresses.add(address);
+                } catch (OutOfMemoryError e) {
+                    // the region is full, the next iterations release some blocks
+                }
+            }
+        }
+
+        for (long address : addresses) {
+            allocator.free(address);
+        }
+
+        Assert.assertEquals(0, allocator.getAllocatedBlocks());
+        Assert.assertEquals(CAPACITY, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    public void freeUnknownAddress() throws Exception {
+        long address = allocator.allocate(256);
+        try {
+            expectedException.expect(AllocatorException.class);
+            allocator.free(address + MIN_BLOCK_SIZE);
+        } finally {
+            allocator.free(address);
+        }
+    }
+
+}
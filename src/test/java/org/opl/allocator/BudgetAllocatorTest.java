@@ -0,0 +1,164 @@
+package org.opl.allocator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Mem;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BudgetAllocatorTest {
+
+    private RegistryAllocatorProxy registry;
+
+    private BudgetAllocator allocator;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        allocator = new BudgetAllocator(registry, false, 1024);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        allocator.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void simple() throws Exception {
+        long a1 = allocator.allocate(512);
+        long a2 = allocator.allocate(512);
+
+        Assert.assertEquals(1024, allocator.getUsedBytes());
+        Assert.assertEquals(0, allocator.getAvailableBytes());
+
+        allocator.free(a1);
+        Assert.assertEquals(512, allocator.getUsedBytes());
+
+        a2 = allocator.reallocate(a2, 1000);
+        Assert.assertEquals(1000, allocator.getUsedBytes());
+
+        a2 = allocator.reallocate(a2, 100);
+        Assert.assertEquals(100, allocator.getUsedBytes());
+
+        allocator.free(a2);
+        Assert.assertEquals(0, allocator.getUsedBytes());
+    }
+
+    @Test
+    public void failFast() throws Exception {
+        long address = allocator.allocate(1000);
+        try {
+            expectedException.expect(OutOfMemoryError.class);
+            allocator.allocate(100);
+        } finally {
+            Assert.assertEquals(1000, allocator.getUsedBytes());
+            allocator.free(address);
+        }
+    }
+
+    @Test
+    public void reallocateOverBudget() throws Exception {
+        long address = allocator.allocate(1000);
+        try {
+            expectedException.expect(OutOfMemoryError.class);
+            allocator.reallocate(address, 2000);
+        } finally {
+            Assert.assertEquals(1000, allocator.getUsedBytes());
+            allocator.free(address);
+        }
+    }
+
+    @Test
+    public void reclaimer() throws Exception {
+        Deque<Long> cache = new ArrayDeque<>();
+
+        allocator.addReclaimer(bytes -> {
+            long reclaimed = 0;
+            while (reclaimed < bytes && !cache.isEmpty()) {
+                allocator.free(cache.removeFirst());
+                reclaimed += 256;
+            }
+        });
+
+        for (int i = 0; i < 16; i++) {
+            cache.addLast(allocator.allocate(256));
+        }
+
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals(1024, allocator.getUsedBytes());
+
+        while (!cache.isEmpty()) {
+            allocator.free(cache.removeFirst());
+        }
+    }
+
+    @Test
+    public void await() throws Exception {
+        allocator.close();
+        allocator = new BudgetAllocator(registry, false, 1024, 10, TimeUnit.SECONDS);
+
+        final long address = allocator.allocate(1024);
+        final CountDownLatch started = new CountDownLatch(1);
+
+        Thread releaser = new Thread(() -> {
+            try {
+                started.await();
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            allocator.free(address);
+        });
+        releaser.start();
+
+        started.countDown();
+
+        long other = allocator.allocate(512);
+        Assert.assertEquals(512, allocator.getUsedBytes());
+        allocator.free(other);
+
+        releaser.join();
+    }
+
+    @Test
+    public void awaitTimeout() throws Exception {
+        allocator.close();
+        allocator = new BudgetAllocator(registry, false, 1024, 50, TimeUnit.MILLISECONDS);
+
+        long address = allocator.allocate(1024);
+        try {
+            expectedException.expect(OutOfMemoryError.class);
+            allocator.allocate(512);
+        } finally {
+            allocator.free(address);
+        }
+    }
+
+    @Test
+    public void alignment() throws Exception {
+        for (long size : new long[] {1, 8, 100, 512}) {
+            long address = allocator.allocate(size);
+            Assert.assertEquals(0, address % (2 * Mem.LONG_SIZE_BYTES));
+
+            address = allocator.reallocate(address, size + 1);
+            Assert.assertEquals(0, address % (2 * Mem.LONG_SIZE_BYTES));
+
+            allocator.free(address);
+        }
+    }
+
+}
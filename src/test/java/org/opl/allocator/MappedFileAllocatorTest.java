@@ -0,0 +1,153 @@
+package org.opl.allocator;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.opl.access.block.MemoryBlock;
+import org.opl.access.block.MemoryBlockFactory;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+import java.io.File;
+
+public class MappedFileAllocatorTest {
+
+    private static final long SEGMENT_SIZE = 64 * Mem.KB;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void survivesReopen() throws Exception {
+        File file = folder.newFile("blocks.bin");
+
+        MappedFileAllocator allocator = new MappedFileAllocator(file.toPath(), 4 * SEGMENT_SIZE, SEGMENT_SIZE);
+        try {
+            Assert.assertEquals(0, allocator.getRootPosition());
+
+            long address = allocator.allocate(1024);
+            Jvm.putLong(address, 0x1111_2222_3333_4444L);
+            Jvm.putLong(address + 1016, 0x5555_6666_7777_8888L);
+
+            allocator.setRootPosition(allocator.position(address));
+            allocator.force();
+        } finally {
+            allocator.close();
+        }
+
+        allocator = new MappedFileAllocator(file.toPath(), 4 * SEGMENT_SIZE, SEGMENT_SIZE);
+        try {
+            long address = allocator.address(allocator.getRootPosition());
+
+            Assert.assertEquals(1024, allocator.getBlockSize(address));
+            Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(address));
+            Assert.assertEquals(0x5555_6666_7777_8888L, Jvm.getLong(address + 1016));
+
+            long next = allocator.allocate(16);
+            Assert.assertTrue(next > address + 1024);
+        } finally {
+            allocator.close();
+        }
+    }
+
+    @Test
+    public void segments() throws Exception {
+        File file = folder.newFile("segments.bin");
+
+        try (MappedFileAllocator allocator = new MappedFileAllocator(file.toPath(), 4 * SEGMENT_SIZE, SEGMENT_SIZE)) {
+            for (int i = 0; i < 8; i++) {
+                long address = allocator.allocate(SEGMENT_SIZE / 2 - 64);
+                long position = allocator.position(address);
+
+                Assert.assertEquals(address, allocator.address(position));
+                Assert.assertEquals(position / SEGMENT_SIZE, (position + SEGMENT_SIZE / 2 - 65) / SEGMENT_SIZE);
+
+                Jvm.setMemory(address, SEGMENT_SIZE / 2 - 64, (byte) i);
+            }
+
+            expectedException.expect(OutOfMemoryError.class);
+            allocator.allocate(SEGMENT_SIZE / 2);
+        }
+    }
+
+    @Test
+    public void blockExceedsSegment() throws Exception {
+        File file = folder.newFile("huge.bin");
+
+        try (MappedFileAllocator allocator = new MappedFileAllocator(file.toPath(), 4 * SEGMENT_SIZE, SEGMENT_SIZE)) {
+            expectedException.expect(AllocatorException.class);
+            allocator.allocate(SEGMENT_SIZE);
+        }
+    }
+
+    @Test
+    public void reallocate() throws Exception {
+        File file = folder.newFile("reallocate.bin");
+
+        try (MappedFileAllocator allocator = new MappedFileAllocator(file.toPath(), 4 * SEGMENT_SIZE, SEGMENT_SIZE)) {
+            long a1 = allocator.allocate(16);
+            Jvm.putLong(a1, 0x1111_2222_3333_4444L);
+
+            long a2 = allocator.reallocate(a1, 1024);
+            Assert.assertEquals(a1, a2);
+            Assert.assertEquals(1024, allocator.getBlockSize(a2));
+
+            allocator.allocate(16);
+
+            long a3 = allocator.reallocate(a2, 2048);
+            Assert.assertNotEquals(a2, a3);
+            Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a3));
+        }
+    }
+
+    @Test
+    public void memoryBlockFactory() throws Exception {
+        File file = folder.newFile("factory.bin");
+
+        try (MemoryBlockFactory factory = Allocators.createMappedMemoryBlockFactory(file.toPath(), Mem.MB)) {
+            MemoryBlock block = factory.allocate(4 * Mem.KB);
+            block.fill((byte) 0x5A);
+            Assert.assertEquals((byte) 0x5A, Jvm.getByte(block.address(4 * Mem.KB - 1)));
+            factory.free(block);
+        }
+    }
+
+    @Test
+    public void allocateZeroed() throws Exception {
+        File file = folder.newFile("zeroed.bin");
+
+        try (MappedFileAllocator allocator = new MappedFileAllocator(file.toPath(), 4 * SEGMENT_SIZE, SEGMENT_SIZE)) {
+            long address = allocator.allocate(1024);
+            Jvm.setMemory(address, 1024, (byte) 0x5A);
+        }
+
+        try (MappedFileAllocator allocator = new MappedFileAllocator(file.toPath(), 4 * SEGMENT_SIZE, SEGMENT_SIZE)) {
+            allocator.reset();
+
+            // the file has been extended before, so the reused region must be cleared explicitly
+            long a1 = allocator.allocateZeroed(512);
+            long a2 = allocator.allocateZeroed(1024);
+
+            for (long i = 0; i < 512; i++) {
+                Assert.assertEquals(0, Jvm.getByte(a1 + i));
+            }
+            for (long i = 0; i < 1024; i++) {
+                Assert.assertEquals(0, Jvm.getByte(a2 + i));
+            }
+
+            Jvm.setMemory(a1, 512, (byte) 0x5A);
+            allocator.reset();
+
+            long a3 = allocator.allocateZeroed(2048);
+            for (long i = 0; i < 2048; i++) {
+                Assert.assertEquals(0, Jvm.getByte(a3 + i));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.opl.allocator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class PooledAllocatorTest {
+
+    private static final long BLOCK_SIZE = 4 * Mem.KB;
+
+    private RegistryAllocatorProxy registry;
+
+    private PooledAllocator allocator;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        allocator = new PooledAllocator(registry, false, BLOCK_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        allocator.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void reuse() throws Exception {
+        long a1 = allocator.allocate(BLOCK_SIZE);
+        long a2 = allocator.allocate(100);
+        Assert.assertEquals(2, registry.getAllocatedBlocks());
+
+        allocator.free(a1);
+        allocator.free(a2);
+        Assert.assertEquals(2, allocator.getPooledBlocks());
+
+        Assert.assertEquals(a2, allocator.allocate(BLOCK_SIZE));
+        Assert.assertEquals(a1, allocator.allocate(BLOCK_SIZE));
+        Assert.assertEquals(0, allocator.getPooledBlocks());
+        Assert.assertEquals(2, registry.getAllocatedBlocks());
+
+        allocator.free(a1);
+        allocator.free(a2);
+
+        allocator.trim();
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+    }
+
+    @Test
+    public void reallocate() throws Exception {
+        long a1 = allocator.allocate(100);
+        Assert.assertEquals(a1, allocator.reallocate(a1, BLOCK_SIZE));
+        allocator.free(a1);
+    }
+
+    @Test
+    public void tooLarge() throws Exception {
+        expectedException.expect(AllocatorException.class);
+        allocator.allocate(BLOCK_SIZE + 1);
+    }
+
+    @Test
+    public void aligned() throws Exception {
+        long address = allocator.allocateAligned(BLOCK_SIZE / 2, Mem.CACHE_LINE_SIZE_BYTES);
+        Assert.assertEquals(0, address % Mem.CACHE_LINE_SIZE_BYTES);
+        Jvm.setMemory(address, BLOCK_SIZE / 2, (byte) 1);
+
+        allocator.freeAligned(address);
+        Assert.assertEquals(1, allocator.getPooledBlocks());
+    }
+
+    @Test
+    public void alignedTooLarge() throws Exception {
+        expectedException.expect(AllocatorException.class);
+        allocator.allocateAligned(BLOCK_SIZE, Mem.LONG_SIZE_BYTES);
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        final int threads = 8;
+        final int iterations = 100_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                final long marker = 0x1000_0000_0000_0000L + t;
+                futures.add(executor.submit(() -> {
+                    long[] addresses = new long[4];
+                    for (int i = 0; i < iterations; i++) {
+                        for (int j = 0; j < addresses.length; j++) {
+                            addresses[j] = allocator.allocate(BLOCK_SIZE);
+                            Jvm.putLong(addresses[j] + 8, marker);
+                        }
+                        for (long address : addresses) {
+                            Assert.assertEquals(marker, Jvm.getLong(address + 8));
+                            allocator.free(address);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        Assert.assertTrue(registry.getAllocatedBlocks() <= threads * 4);
+        Assert.assertEquals(registry.getAllocatedBlocks(), allocator.getPooledBlocks());
+    }
+
+}
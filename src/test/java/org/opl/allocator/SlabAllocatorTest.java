@@ -0,0 +1,177 @@
+package org.opl.allocator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.allocator.trace.RegistryAllocatorProxy;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SlabAllocatorTest {
+
+    private static final long[] SIZES = { 1, 8, 9, 100, 256, 2000, 4 * Mem.KB, Mem.MB };
+
+    private RegistryAllocatorProxy registry;
+
+    private SlabAllocator allocator;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        allocator = new SlabAllocator(registry, false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        allocator.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void simple() throws Exception {
+        List<Long> addresses = new ArrayList<>(SIZES.length);
+
+        for (long size : SIZES) {
+            long address = allocator.allocate(size);
+            Jvm.setMemory(address, size, (byte) 0x5A);
+            addresses.add(address);
+        }
+
+        for (int i = 0; i < SIZES.length; i++) {
+            long address = addresses.get(i);
+            Assert.assertEquals((byte) 0x5A, Jvm.getByte(address + SIZES[i] - 1));
+            allocator.free(address);
+        }
+
+        // one slab for each of the size classes 16, 24, 128, 384 and 2048
+        Assert.assertEquals(5, allocator.getSlabCount());
+    }
+
+    @Test
+    public void reuse() throws Exception {
+        long a1 = allocator.allocate(100);
+        allocator.free(a1);
+
+        long a2 = allocator.allocate(110);
+        Assert.assertEquals(a1, a2);
+        allocator.free(a2);
+
+        Assert.assertEquals(1, allocator.getSlabCount());
+    }
+
+    @Test
+    public void reallocate() throws Exception {
+        long a1 = allocator.allocate(12);
+        Jvm.putLong(a1, 0x1111_2222_3333_4444L);
+
+        long a2 = allocator.reallocate(a1, 16);
+        Assert.assertEquals(a1, a2);
+
+        long a3 = allocator.reallocate(a2, 1000);
+        Assert.assertNotEquals(a2, a3);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a3));
+
+        long a4 = allocator.reallocate(a3, 100 * Mem.KB);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a4));
+
+        long a5 = allocator.reallocate(a4, 200 * Mem.KB);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a5));
+
+        long a6 = allocator.reallocate(a5, 8);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a6));
+
+        allocator.free(a6);
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        final int threads = 8;
+        final int blocks = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                final long seed = t;
+                futures.add(executor.submit(() -> {
+                    long[] addresses = new long[blocks];
+                    for (int i = 0; i < blocks; i++) {
+                        long size = 1 + (seed * 31 + i * 17) % 1500;
+                        addresses[i] = allocator.allocate(size);
+                        Jvm.putByte(addresses[i], (byte) seed);
+                    }
+                    for (int i = 0; i < blocks; i += 2) {
+                        Assert.assertEquals((byte) seed, Jvm.getByte(addresses[i]));
+                        allocator.free(addresses[i]);
+                    }
+                    return addresses;
+                }));
+            }
+
+            // the rest is freed by foreign threads
+            List<Future<?>> frees = new ArrayList<>(threads);
+            for (Future<long[]> future : futures) {
+                final long[] addresses = future.get();
+                frees.add(executor.submit(() -> {
+                    for (int i = 1; i < blocks; i += 2) {
+                        allocator.free(addresses[i]);
+                    }
+                }));
+            }
+            for (Future<?> future : frees) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void alignment() throws Exception {
+        for (long size : SIZES) {
+            long address = allocator.allocate(size);
+            Assert.assertEquals(0, address % Mem.LONG_SIZE_BYTES);
+            allocator.free(address);
+        }
+    }
+
+    @Test(expected = AllocatorException.class)
+    public void tooHuge() throws Exception {
+        allocator.allocate(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void closedForOtherThreads() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the thread cache of the executor keeps the rest of the slab
+            long address = executor.submit(() -> allocator.allocate(100)).get();
+            executor.submit(() -> allocator.free(address)).get();
+
+            allocator.close();
+
+            try {
+                executor.submit(() -> allocator.allocate(100)).get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.opl.allocator.trace;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.allocator.SystemAllocator;
+import org.opl.platform.Jvm;
+import org.opl.platform.Mem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+public class InstrumentedAllocatorProxyTest {
+
+    private static final long[] SIZES = { 256, 512, 16 * Mem.KB, Mem.MB };
+
+    private InstrumentedAllocatorProxy allocator;
+
+    @Before
+    public void setUp() throws Exception {
+        allocator = new InstrumentedAllocatorProxy(new SystemAllocator(), true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Assert.assertEquals(0, allocator.getAllocatedBlocks());
+        allocator.close();
+    }
+
+    @Test
+    public void simple() throws Exception {
+        Collection<Long> addresses = new ArrayList<>(64);
+
+        for (long size : SIZES) {
+            long address = allocator.allocate(size);
+            Jvm.setMemory(address, size, (byte) 0xFF);
+            addresses.add(address);
+        }
+
+        AllocatorSnapshot snapshot = allocator.snapshot();
+        Assert.assertEquals(SIZES.length, snapshot.getAllocations());
+        Assert.assertEquals(SIZES.length, snapshot.getLiveBlocks());
+        Assert.assertEquals(Arrays.stream(SIZES).sum(), snapshot.getLiveBytes());
+        Assert.assertEquals(Arrays.stream(SIZES).sum(), snapshot.getPeakBytes());
+
+        for (long address : addresses) {
+            allocator.free(address);
+        }
+
+        snapshot = allocator.snapshot();
+        Assert.assertEquals(SIZES.length, snapshot.getFrees());
+        Assert.assertEquals(0, snapshot.getLiveBlocks());
+        Assert.assertEquals(0, snapshot.getLiveBytes());
+        Assert.assertEquals(Arrays.stream(SIZES).sum(), snapshot.getPeakBytes());
+        Assert.assertTrue(snapshot.getAllocateNanos() > 0);
+    }
+
+    @Test
+    public void histogram() throws Exception {
+        long a1 = allocator.allocate(1);
+        long a2 = allocator.allocate(1024);
+        long a3 = allocator.allocate(1025);
+
+        long[] histogram = allocator.snapshot().getSizeHistogram();
+        Assert.assertEquals(1, histogram[0]);
+        Assert.assertEquals(1, histogram[10]);
+        Assert.assertEquals(1, histogram[11]);
+        Assert.assertEquals(3, Arrays.stream(histogram).sum());
+
+        allocator.free(a1);
+        allocator.free(a2);
+        allocator.free(a3);
+    }
+
+    @Test
+    public void reallocate() throws Exception {
+        long a1 = allocator.allocate(1024);
+        Jvm.putLong(a1, 0x1111_2222_3333_4444L);
+
+        long a2 = allocator.reallocate(a1, 4096);
+        Assert.assertEquals(0x1111_2222_3333_4444L, Jvm.getLong(a2));
+        Assert.assertEquals(4096, allocator.getAllocatedBytes());
+        Assert.assertEquals(1, allocator.getAllocatedBlocks());
+        Assert.assertEquals(1, allocator.snapshot().getReallocations());
+        Assert.assertEquals(4096, allocator.snapshot().getPeakBytes());
+
+        allocator.free(a2);
+        Assert.assertEquals(0, allocator.getAllocatedBytes());
+        Assert.assertEquals(0, allocator.getAllocatedBlocks());
+    }
+
+    @Test
+    public void alignment() throws Exception {
+        for (long size : SIZES) {
+            long address = allocator.allocate(size);
+            Assert.assertEquals(0, address % (2 * Mem.LONG_SIZE_BYTES));
+
+            address = allocator.reallocate(address, size + 1);
+            Assert.assertEquals(0, address % (2 * Mem.LONG_SIZE_BYTES));
+
+            allocator.free(address);
+        }
+    }
+
+    @Test
+    public void freeAfterReset() throws Exception {
+        long a1 = allocator.allocate(1024);
+        long a2 = allocator.allocate(256);
+        allocator.free(a2);
+
+        allocator.reset();
+
+        AllocatorSnapshot snapshot = allocator.snapshot();
+        Assert.assertEquals(0, snapshot.getAllocations());
+        Assert.assertEquals(0, snapshot.getFrees());
+        Assert.assertEquals(1, snapshot.getLiveBlocks());
+        Assert.assertEquals(1024, snapshot.getLiveBytes());
+        Assert.assertEquals(1024, snapshot.getPeakBytes());
+        Assert.assertEquals(0, snapshot.getAllocateNanos());
+        Assert.assertEquals(0, Arrays.stream(snapshot.getSizeHistogram()).sum());
+
+        allocator.free(a1);
+
+        snapshot = allocator.snapshot();
+        Assert.assertEquals(1, snapshot.getFrees());
+        Assert.assertEquals(0, snapshot.getLiveBlocks());
+        Assert.assertEquals(0, snapshot.getLiveBytes());
+        Assert.assertEquals(0, allocator.getAllocatedBlocks());
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.opl.allocator.trace;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opl.allocator.BudgetAllocator;
+import org.opl.allocator.SystemAllocator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LeakTrackingAllocatorProxyTest {
+
+    private RegistryAllocatorProxy registry;
+
+    private LeakTrackingAllocatorProxy allocator;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RegistryAllocatorProxy(new SystemAllocator(), true);
+        allocator = new LeakTrackingAllocatorProxy(registry, false, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        allocator.close();
+
+        Assert.assertEquals(0, registry.getAllocatedBlocks());
+        registry.close();
+    }
+
+    @Test
+    public void sites() throws Exception {
+        List<Long> small = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            small.add(allocateSmall());
+        }
+
+        long large = allocateLarge();
+
+        List<AllocationSite> sites = allocator.getLiveSites();
+        Assert.assertEquals(2, sites.size());
+        Assert.assertEquals(11, allocator.getSampledBlocks());
+
+        Assert.assertEquals(1, sites.get(0).getLiveBlocks());
+        Assert.assertEquals(4096, sites.get(0).getLiveBytes());
+        Assert.assertEquals("allocateLarge", sites.get(0).getStackTrace()[0].getMethodName());
+
+        Assert.assertEquals(10, sites.get(1).getLiveBlocks());
+        Assert.assertEquals(640, sites.get(1).getLiveBytes());
+        Assert.assertEquals("allocateSmall", sites.get(1).getStackTrace()[0].getMethodName());
+
+        Assert.assertTrue(allocator.report(1).contains("allocateLarge"));
+        Assert.assertTrue(allocator.report(1).contains("1 more sites"));
+
+        for (long address : small) {
+            allocator.free(address);
+        }
+
+        large = allocator.reallocate(large, 8192);
+
+        sites = allocator.getLiveSites();
+        Assert.assertEquals(1, sites.size());
+        Assert.assertEquals(8192, sites.get(0).getLiveBytes());
+        Assert.assertEquals("allocateLarge", sites.get(0).getStackTrace()[0].getMethodName());
+
+        allocator.free(large);
+
+        Assert.assertTrue(allocator.getLiveSites().isEmpty());
+        Assert.assertEquals(0, allocator.getSampledBlocks());
+    }
+
+    @Test
+    public void sampling() throws Exception {
+        allocator.close();
+        allocator = new LeakTrackingAllocatorProxy(registry, false, 16);
+
+        List<Long> addresses = new ArrayList<>();
+        for (int i = 0; i < 16_000; i++) {
+            addresses.add(allocateSmall());
+        }
+
+        // the expected count of samples is 1000
+        Assert.assertTrue(allocator.getSampledBlocks() > 500);
+        Assert.assertTrue(allocator.getSampledBlocks() < 1500);
+
+        AllocationSite site = allocator.getLiveSites().get(0);
+        Assert.assertEquals(site.getLiveBlocks() * 16, site.getEstimatedLiveBlocks());
+        Assert.assertEquals(site.getLiveBytes() * 16, site.getEstimatedLiveBytes());
+
+        for (long address : addresses) {
+            allocator.free(address);
+        }
+
+        Assert.assertEquals(0, allocator.getSampledBlocks());
+    }
+
+    @Test
+    public void failedReallocation() throws Exception {
+        allocator.close();
+        allocator = new LeakTrackingAllocatorProxy(new BudgetAllocator(registry, false, 8192), true, 1);
+
+        long address = allocateLarge();
+        try {
+            allocator.reallocate(address, 16384);
+            Assert.fail();
+        } catch (OutOfMemoryError e) {
+            // the budget refuses the growth
+        }
+
+        Assert.assertEquals(1, allocator.getSampledBlocks());
+        Assert.assertEquals(4096, allocator.getLiveSites().get(0).getLiveBytes());
+
+        allocator.free(address);
+        Assert.assertEquals(0, allocator.getSampledBlocks());
+    }
+
+    private long allocateSmall() {
+        return allocator.allocate(64);
+    }
+
+    private long allocateLarge() {
+        return allocator.allocate(4096);
+    }
+
+}
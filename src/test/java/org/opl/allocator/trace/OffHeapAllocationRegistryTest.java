@@ -0,0 +1,141 @@
+package org.opl.allocator.trace;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opl.allocator.AllocatorException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class OffHeapAllocationRegistryTest {
+
+    private OffHeapAllocationRegistry registry;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new OffHeapAllocationRegistry(4, 4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.close();
+    }
+
+    @Test
+    public void simple() throws Exception {
+        registry.put(0x1000, 16);
+        registry.put(0x2000, 32);
+
+        Assert.assertEquals(16, registry.get(0x1000));
+        Assert.assertEquals(32, registry.get(0x2000));
+        Assert.assertEquals(AllocationRegistry.NOT_FOUND, registry.get(0x3000));
+        Assert.assertEquals(2, registry.getBlockCount());
+        Assert.assertEquals(48, registry.getByteCount());
+
+        registry.put(0x1000, 24);
+        Assert.assertEquals(2, registry.getBlockCount());
+        Assert.assertEquals(56, registry.getByteCount());
+
+        Assert.assertEquals(24, registry.remove(0x1000));
+        Assert.assertEquals(AllocationRegistry.NOT_FOUND, registry.remove(0x1000));
+        Assert.assertEquals(1, registry.getBlockCount());
+        Assert.assertEquals(32, registry.getByteCount());
+
+        registry.clear();
+        Assert.assertEquals(0, registry.getBlockCount());
+        Assert.assertEquals(0, registry.getByteCount());
+        Assert.assertEquals(AllocationRegistry.NOT_FOUND, registry.get(0x2000));
+    }
+
+    @Test
+    public void randomized() throws Exception {
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(0x5EED);
+
+        long bytes = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // a narrow range of aligned addresses produces plenty of collisions and removals
+            long address = (1 + random.nextInt(20_000)) * 16L;
+
+            if (random.nextInt(3) == 0) {
+                Long size = expected.remove(address);
+                Assert.assertEquals(size != null ? size : AllocationRegistry.NOT_FOUND, registry.remove(address));
+                bytes -= size != null ? size : 0;
+            } else {
+                long size = 1 + random.nextInt(1024);
+                Long previous = expected.put(address, size);
+                registry.put(address, size);
+                bytes += size - (previous != null ? previous : 0);
+            }
+        }
+
+        Assert.assertEquals(expected.size(), registry.getBlockCount());
+        Assert.assertEquals(bytes, registry.getByteCount());
+        Assert.assertEquals(expected, registry.toMap());
+
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue().longValue(), registry.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        final int threads = 4;
+        final int blocks = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final long base = (t + 1L) << 32;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < blocks; i++) {
+                        registry.put(base + i * 16L, 8);
+                    }
+                    for (int i = 0; i < blocks; i += 2) {
+                        Assert.assertEquals(8, registry.remove(base + i * 16L));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(threads * blocks / 2, registry.getBlockCount());
+        Assert.assertEquals(threads * blocks / 2 * 8L, registry.getByteCount());
+    }
+
+    @Test
+    public void nullAddress() throws Exception {
+        expectedException.expect(AllocatorException.class);
+        registry.put(0, 16);
+    }
+
+    @Test
+    public void closed() throws Exception {
+        registry.close();
+
+        Assert.assertEquals(0, registry.getFootprint());
+
+        expectedException.expect(IllegalStateException.class);
+        registry.get(0x1000);
+    }
+
+}
@@ -8,6 +8,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.opl.allocator.AllocatorException;
 import org.opl.allocator.SystemAllocator;
+import org.opl.platform.Jvm;
 import org.opl.platform.Mem;
 
 import java.util.ArrayList;
@@ -105,4 +106,39 @@ public class RegistryAllocatorProxyTest {
         expectedException.expectMessage(Long.toHexString(address));
         allocator.free(address);
     }
+
+    @Test
+    public void allocateAligned() throws Exception {
+        long a1 = allocator.allocateAligned(100, Mem.CACHE_LINE_SIZE_BYTES);
+        long a2 = allocator.allocateAligned(100, Jvm.PAGE_SIZE);
+
+        Assert.assertTrue(Mem.isAligned(a1, Mem.CACHE_LINE_SIZE_BYTES));
+        Assert.assertTrue(Mem.isAligned(a2, Jvm.PAGE_SIZE));
+        Assert.assertEquals(2, allocator.getAllocatedBlocks());
+
+        Jvm.setMemory(a2, 100, (byte) 0x55);
+
+        allocator.freeAligned(a1);
+        allocator.freeAligned(a2);
+
+        Assert.assertEquals(0, allocator.getAllocatedBlocks());
+    }
+
+    @Test
+    public void allocateAlignedInvalid() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        allocator.allocateAligned(100, 48);
+    }
+
+    @Test
+    public void allocateZeroed() throws Exception {
+        long address = allocator.allocateZeroed(1024);
+
+        Assert.assertEquals(1024, allocator.getBlockSize(address));
+        for (long i = 0; i < 1024; i += Mem.LONG_SIZE_BYTES) {
+            Assert.assertEquals(0, Jvm.getLong(address + i));
+        }
+
+        allocator.free(address);
+    }
 }
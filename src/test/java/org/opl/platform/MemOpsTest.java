@@ -0,0 +1,223 @@
+package org.opl.platform;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class MemOpsTest {
+
+    private static final int SIZE = 100;
+
+    private long a1;
+
+    private long a2;
+
+    @Before
+    public void setUp() throws Exception {
+        a1 = Jvm.allocateMemory(SIZE);
+        a2 = Jvm.allocateMemory(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            Jvm.putByte(a1 + i, (byte) i);
+            Jvm.putByte(a2 + i, (byte) i);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Jvm.freeMemory(a1);
+        Jvm.freeMemory(a2);
+    }
+
+    @Test
+    public void testEqual() throws Exception {
+        for (int size = 0; size <= SIZE; size++) {
+            Assert.assertEquals(-1, MemOps.mismatch(a1, a2, size));
+            Assert.assertEquals(0, MemOps.compare(a1, a2, size));
+            Assert.assertTrue(MemOps.equals(a1, a2, size));
+        }
+    }
+
+    @Test
+    public void testMismatchAtEveryPosition() throws Exception {
+        for (int i = 0; i < SIZE; i++) {
+            Jvm.putByte(a2 + i, (byte) (i + 1));
+
+            Assert.assertEquals(i, MemOps.mismatch(a1, a2, SIZE));
+            Assert.assertEquals(-1, MemOps.compare(a1, a2, SIZE));
+            Assert.assertEquals(1, MemOps.compare(a2, a1, SIZE));
+            Assert.assertFalse(MemOps.equals(a1, a2, SIZE));
+
+            // the difference is beyond the compared range
+            Assert.assertEquals(-1, MemOps.mismatch(a1, a2, i));
+            Assert.assertTrue(MemOps.equals(a1, a2, i));
+
+            Jvm.putByte(a2 + i, (byte) i);
+        }
+    }
+
+    @Test
+    public void testFirstMismatchInWord() throws Exception {
+        Jvm.putByte(a1 + 3, (byte) 0x00);
+        Jvm.putByte(a2 + 3, (byte) 0x01);
+        Jvm.putByte(a1 + 5, (byte) 0x7F);
+        Jvm.putByte(a2 + 5, (byte) 0x00);
+
+        Assert.assertEquals(3, MemOps.mismatch(a1, a2, SIZE));
+        Assert.assertEquals(-1, MemOps.compare(a1, a2, SIZE));
+    }
+
+    @Test
+    public void testUnsigned() throws Exception {
+        Jvm.putByte(a1 + 10, (byte) 0x80);
+        Jvm.putByte(a2 + 10, (byte) 0x7F);
+
+        Assert.assertEquals(1, MemOps.compare(a1, a2, SIZE));
+        Assert.assertEquals(-1, MemOps.compare(a2, a1, SIZE));
+    }
+
+    @Test
+    public void testUnaligned() throws Exception {
+        Jvm.putByte(a1 + 20, (byte) 0xFF);
+
+        Assert.assertEquals(19, MemOps.mismatch(a1 + 1, a2 + 1, SIZE - 1));
+        Assert.assertEquals(1, MemOps.compare(a1 + 1, a2 + 1, SIZE - 1));
+        Assert.assertTrue(MemOps.equals(a1 + 21, a2 + 21, SIZE - 21));
+    }
+
+    @Test
+    public void testParallelFillAndCopy() throws Exception {
+        final long size = 64 * Mem.MB + 123;
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        long src = Jvm.allocateMemory(size);
+        long dst = Jvm.allocateMemory(size);
+        try {
+            MemOps.fill(pool, src, size, (byte) 0x5A);
+            MemOps.pretouch(pool, dst, size);
+
+            for (long i = 0; i < size; i += Mem.MB / 3) {
+                Assert.assertEquals(0x5A, Jvm.getByte(src + i));
+            }
+            Assert.assertEquals(0x5A, Jvm.getByte(src + size - 1));
+
+            Jvm.putByte(src + size - 1, (byte) 0x11);
+            MemOps.copy(pool, src, dst, size);
+            Assert.assertTrue(MemOps.equals(src, dst, size));
+
+            // pre-touch doesn't change the data
+            MemOps.pretouch(dst + 1, size - 1);
+            Assert.assertTrue(MemOps.equals(src, dst, size));
+        } finally {
+            Jvm.freeMemory(src);
+            Jvm.freeMemory(dst);
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelCopyOverlapping() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            MemOps.copy(pool, a1, a1 + 10, SIZE - 10);
+
+            for (int i = 10; i < SIZE; i++) {
+                Assert.assertEquals((byte) (i - 10), Jvm.getByte(a1 + i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testIndexOfByte() throws Exception {
+        Jvm.setMemory(a1, SIZE, (byte) 0x7F);
+
+        for (byte value : new byte[] {0x00, 0x01, (byte) 0x80, (byte) 0xFF, 0x7E}) {
+            Assert.assertEquals(-1, MemOps.indexOf(a1, SIZE, value));
+            Assert.assertEquals(-1, MemOps.lastIndexOf(a1, SIZE, value));
+
+            for (int i = 0; i < SIZE; i++) {
+                Jvm.putByte(a1 + i, value);
+
+                Assert.assertEquals(i, MemOps.indexOf(a1, SIZE, value));
+                Assert.assertEquals(i, MemOps.lastIndexOf(a1, SIZE, value));
+                Assert.assertEquals(i - 1, MemOps.indexOf(a1 + 1, SIZE - 1, value));
+                Assert.assertEquals(-1, MemOps.indexOf(a1, i, value));
+                Assert.assertEquals(-1, MemOps.lastIndexOf(a1 + i + 1, SIZE - i - 1, value));
+
+                Jvm.putByte(a1 + i, (byte) 0x7F);
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOfFirstAndLast() throws Exception {
+        Jvm.setMemory(a1, SIZE, (byte) 0);
+        Jvm.putByte(a1 + 3, (byte) '\n');
+        Jvm.putByte(a1 + 4, (byte) '\n');
+        Jvm.putByte(a1 + 60, (byte) '\n');
+        Jvm.putByte(a1 + 62, (byte) '\n');
+
+        Assert.assertEquals(3, MemOps.indexOf(a1, SIZE, (byte) '\n'));
+        Assert.assertEquals(62, MemOps.lastIndexOf(a1, SIZE, (byte) '\n'));
+        Assert.assertEquals(4, MemOps.indexOf(a1 + 4, SIZE - 4, (byte) '\n') + 4);
+        Assert.assertEquals(60, MemOps.lastIndexOf(a1, 62, (byte) '\n'));
+    }
+
+    @Test
+    public void testIndexOfPattern() throws Exception {
+        final int size = 10_000;
+
+        Random random = new Random(1);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(3));
+        }
+
+        long address = Jvm.allocateMemory(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Jvm.putByte(address + i, data[i]);
+            }
+
+            for (int length : new int[] {0, 1, 2, 3, 5, 8, 15, 16, 17, 40}) {
+                for (int start = 0; start + length <= size; start += 997) {
+                    long expected = naiveIndexOf(data, start, length);
+                    Assert.assertEquals(expected, MemOps.indexOf(address, size, address + start, length));
+                }
+            }
+
+            // the pattern doesn't occur
+            long pattern = Jvm.allocateMemory(20);
+            try {
+                Jvm.setMemory(pattern, 20, (byte) 'd');
+                Assert.assertEquals(-1, MemOps.indexOf(address, size, pattern, 2));
+                Assert.assertEquals(-1, MemOps.indexOf(address, size, pattern, 20));
+                Assert.assertEquals(-1, MemOps.indexOf(pattern, 2, pattern, 20));
+            } finally {
+                Jvm.freeMemory(pattern);
+            }
+        } finally {
+            Jvm.freeMemory(address);
+        }
+    }
+
+    private static long naiveIndexOf(byte[] data, int start, int length) {
+        for (int i = 0; i + length <= data.length; i++) {
+            boolean match = true;
+            for (int j = 0; j < length && match; j++) {
+                match = data[i + j] == data[start + j];
+            }
+            if (match) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -35,4 +35,18 @@ public class MemTest {
         Assert.assertEquals(0xFFFF_FFFF_FFFF_FFFFL, Mem.longMask(0, 64));
     }
 
+    @Test
+    public void align() throws Exception {
+        Assert.assertEquals(0, Mem.alignUp(0, 64));
+        Assert.assertEquals(64, Mem.alignUp(1, 64));
+        Assert.assertEquals(64, Mem.alignUp(64, 64));
+        Assert.assertEquals(128, Mem.alignUp(65, 64));
+
+        Assert.assertEquals(0, Mem.alignDown(63, 64));
+        Assert.assertEquals(64, Mem.alignDown(127, 64));
+
+        Assert.assertTrue(Mem.isAligned(4096, 4096));
+        Assert.assertFalse(Mem.isAligned(4104, 4096));
+    }
+
 }